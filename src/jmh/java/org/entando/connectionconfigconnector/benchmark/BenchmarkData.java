@@ -0,0 +1,70 @@
+package org.entando.connectionconfigconnector.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import lombok.experimental.UtilityClass;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+
+/**
+ * Generates the connection configs used by the benchmarks. They are deterministic, so that runs on different
+ * releases measure the same data.
+ */
+@UtilityClass
+public class BenchmarkData {
+
+    private static final int PROPERTIES = 6;
+
+    public static List<ConnectionConfig> connectionConfigs(int count) {
+        List<ConnectionConfig> connectionConfigs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, String> properties = new LinkedHashMap<>();
+            for (int p = 0; p < PROPERTIES; p++) {
+                properties.put("property" + p, "value-" + i + "-" + p);
+            }
+            connectionConfigs.add(new ConnectionConfig(String.format("connection-%05d", i), properties));
+        }
+        return connectionConfigs;
+    }
+
+    public static String[] names(List<ConnectionConfig> connectionConfigs) {
+        return connectionConfigs.stream().map(ConnectionConfig::getName).toArray(String[]::new);
+    }
+
+    public static String randomName(String... names) {
+        return names[ThreadLocalRandom.current().nextInt(names.length)];
+    }
+
+    /**
+     * Writes the connection configs in a new temporary directory, laid out as the Kubernetes secrets mounted on
+     * STRICT: one {@code <name>/config.yaml} file per connection.
+     */
+    public static Path writeConfigTree(List<ConnectionConfig> connectionConfigs) throws IOException {
+        Path rootDirectory = Files.createTempDirectory("connection-config-benchmark");
+        Yaml yaml = new Yaml(new Constructor(ConnectionConfig.class));
+        for (ConnectionConfig connectionConfig : connectionConfigs) {
+            Path configDirectory = Files.createDirectory(rootDirectory.resolve(connectionConfig.getName()));
+            Files.write(configDirectory.resolve("config.yaml"),
+                    yaml.dump(connectionConfig).getBytes(StandardCharsets.UTF_8));
+        }
+        return rootDirectory;
+    }
+
+    public static void delete(Path rootDirectory) throws IOException {
+        try (Stream<Path> paths = Files.walk(rootDirectory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
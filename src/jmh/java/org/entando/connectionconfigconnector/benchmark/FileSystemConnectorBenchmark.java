@@ -0,0 +1,83 @@
+package org.entando.connectionconfigconnector.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.service.ConnectionConfigConnector;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorFileSystem;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * STRICT connector reading a generated directory tree, either from the disk on every call or from the watched
+ * snapshot.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileSystemConnectorBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int configCount;
+
+    @Param({"false", "true"})
+    public boolean watch;
+
+    private Path rootDirectory;
+    private ConnectionConfigConnectorFileSystem connectionConfigConnectorFileSystem;
+    private ConnectionConfigConnector connectionConfigConnector;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<ConnectionConfig> connectionConfigs = BenchmarkData.connectionConfigs(configCount);
+        names = BenchmarkData.names(connectionConfigs);
+        rootDirectory = BenchmarkData.writeConfigTree(connectionConfigs);
+        connectionConfigConnectorFileSystem = new ConnectionConfigConnectorFileSystem(rootDirectory.toString(), watch,
+                0);
+        connectionConfigConnectorFileSystem.startWatching();
+        connectionConfigConnector = new ConnectionConfigConnectorImpl(SecurityLevel.STRICT.toString(), null,
+                connectionConfigConnectorFileSystem);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        connectionConfigConnectorFileSystem.stopWatching();
+        BenchmarkData.delete(rootDirectory);
+    }
+
+    @Benchmark
+    public ConnectionConfig get() {
+        return connectionConfigConnector.getConnectionConfig(BenchmarkData.randomName(names));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ConnectionConfig getConcurrently() {
+        return connectionConfigConnector.getConnectionConfig(BenchmarkData.randomName(names));
+    }
+
+    @Benchmark
+    public List<ConnectionConfig> list() {
+        return connectionConfigConnector.getConnectionConfigs();
+    }
+}
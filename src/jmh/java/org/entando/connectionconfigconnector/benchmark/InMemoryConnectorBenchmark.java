@@ -0,0 +1,61 @@
+package org.entando.connectionconfigconnector.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.service.impl.InMemoryConnectionConfigConnector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * In-memory connector, used as the baseline the other connectors are compared with.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InMemoryConnectorBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int configCount;
+
+    private InMemoryConnectionConfigConnector connectionConfigConnector;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ConnectionConfig> connectionConfigs = BenchmarkData.connectionConfigs(configCount);
+        names = BenchmarkData.names(connectionConfigs);
+        connectionConfigConnector = new InMemoryConnectionConfigConnector();
+        connectionConfigs.forEach(connectionConfigConnector::addConnectionConfig);
+    }
+
+    @Benchmark
+    public ConnectionConfig get() {
+        return connectionConfigConnector.getConnectionConfig(BenchmarkData.randomName(names));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ConnectionConfig getConcurrently() {
+        return connectionConfigConnector.getConnectionConfig(BenchmarkData.randomName(names));
+    }
+
+    @Benchmark
+    public List<ConnectionConfig> list() {
+        return connectionConfigConnector.getConnectionConfigs();
+    }
+}
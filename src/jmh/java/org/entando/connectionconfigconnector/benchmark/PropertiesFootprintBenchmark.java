@@ -0,0 +1,68 @@
+package org.entando.connectionconfigconnector.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.service.impl.CompactProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Compares connection configs holding their properties in a {@code HashMap}, as deserialized, with the
+ * {@link CompactProperties} kept by the in-memory connector and the caches. The retained size of the whole population
+ * is measured with JOL and printed when the trial starts; the benchmark itself measures a property lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertiesFootprintBenchmark {
+
+    public enum Representation {
+        HASH_MAP, COMPACT
+    }
+
+    @Param({"10000", "100000"})
+    public int configCount;
+
+    @Param
+    public Representation representation;
+
+    private ConnectionConfig[] connectionConfigs;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ConnectionConfig> generated = BenchmarkData.connectionConfigs(configCount);
+        if (representation == Representation.COMPACT) {
+            generated = generated.stream().map(CompactProperties::compact).collect(Collectors.toList());
+        }
+        connectionConfigs = generated.toArray(new ConnectionConfig[0]);
+        keys = connectionConfigs[0].getProperties().keySet().toArray(new String[0]);
+        long retainedBytes = GraphLayout.parseInstance((Object) connectionConfigs).totalSize();
+        System.out.printf("%n%s, %d configs: %d bytes retained, %d bytes per config%n", representation, configCount,
+                retainedBytes, retainedBytes / configCount);
+    }
+
+    @Benchmark
+    public String get() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return connectionConfigs[random.nextInt(connectionConfigs.length)].getProperties()
+                .get(keys[random.nextInt(keys.length)]);
+    }
+}
@@ -0,0 +1,91 @@
+package org.entando.connectionconfigconnector.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.entando.connectionconfigconnector.config.ConnectionConfigConfiguration;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.service.ConnectionConfigConnector;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorImpl;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorSidecar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.web.client.RootUriTemplateHandler;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * LENIENT connector talking to a {@link StubSidecar} through the same pooled HTTP client as in production, with and
+ * without the response cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SidecarConnectorBenchmark {
+
+    @Param({"10", "1000"})
+    public int configCount;
+
+    @Param({"0", "60000"})
+    public long cacheTtlMillis;
+
+    private StubSidecar stubSidecar;
+    private CloseableHttpClient httpClient;
+    private ConnectionConfigConnectorSidecar connectionConfigConnectorSidecar;
+    private ConnectionConfigConnector connectionConfigConnector;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<ConnectionConfig> connectionConfigs = BenchmarkData.connectionConfigs(configCount);
+        names = BenchmarkData.names(connectionConfigs);
+        stubSidecar = new StubSidecar(connectionConfigs);
+        httpClient = new ConnectionConfigConfiguration(String.valueOf(stubSidecar.getPort()), null)
+                .httpClient(50, 30_000, 30_000);
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        RootUriTemplateHandler.addTo(restTemplate, "http://localhost:" + stubSidecar.getPort());
+        connectionConfigConnectorSidecar = new ConnectionConfigConnectorSidecar(restTemplate, cacheTtlMillis);
+        connectionConfigConnector = new ConnectionConfigConnectorImpl(SecurityLevel.LENIENT.toString(),
+                connectionConfigConnectorSidecar, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        connectionConfigConnectorSidecar.stop();
+        httpClient.close();
+        stubSidecar.close();
+    }
+
+    @Benchmark
+    public ConnectionConfig get() {
+        return connectionConfigConnector.getConnectionConfig(BenchmarkData.randomName(names));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ConnectionConfig getConcurrently() {
+        return connectionConfigConnector.getConnectionConfig(BenchmarkData.randomName(names));
+    }
+
+    @Benchmark
+    public List<ConnectionConfig> list() {
+        return connectionConfigConnector.getConnectionConfigs();
+    }
+}
@@ -0,0 +1,105 @@
+package org.entando.connectionconfigconnector.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigJacksonModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the encodings the LENIENT connector can negotiate with the sidecar on large listings: JSON bound by bean
+ * introspection, as before, JSON bound by the {@link ConnectionConfigJacksonModule}, the same JSON gzipped, Smile and
+ * CBOR. Both reading and writing the list are measured, without any network; the size of the encoded list is printed
+ * when the trial starts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SidecarEncodingBenchmark {
+
+    public enum Encoding {
+        JSON, JSON_OPTIMIZED, JSON_GZIP, SMILE, CBOR
+    }
+
+    private static final TypeReference<List<ConnectionConfig>> CONFIG_LIST_TYPE =
+            new TypeReference<List<ConnectionConfig>>() {
+            };
+
+    @Param({"1000", "10000"})
+    public int configCount;
+
+    @Param
+    public Encoding encoding;
+
+    private List<ConnectionConfig> connectionConfigs;
+    private ObjectMapper mapper;
+    private ObjectReader reader;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        connectionConfigs = BenchmarkData.connectionConfigs(configCount);
+        mapper = mapper(encoding);
+        reader = mapper.readerFor(CONFIG_LIST_TYPE);
+        encoded = write();
+        System.out.printf("%n%s, %d configs: %d bytes, %d bytes per config%n", encoding, configCount,
+                encoded.length, encoded.length / configCount);
+    }
+
+    @Benchmark
+    public List<ConnectionConfig> read() throws IOException {
+        try (InputStream input = encoding == Encoding.JSON_GZIP
+                ? new GZIPInputStream(new ByteArrayInputStream(encoded))
+                : new ByteArrayInputStream(encoded)) {
+            return reader.readValue(input);
+        }
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream output = encoding == Encoding.JSON_GZIP ? new GZIPOutputStream(bytes) : bytes) {
+            mapper.writeValue(output, connectionConfigs);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ObjectMapper mapper(Encoding encoding) {
+        switch (encoding) {
+            case JSON:
+                return new ObjectMapper();
+            case SMILE:
+                return new ObjectMapper(new SmileFactory()).registerModule(new ConnectionConfigJacksonModule());
+            case CBOR:
+                return new ObjectMapper(new CBORFactory()).registerModule(new ConnectionConfigJacksonModule());
+            default:
+                return new ObjectMapper().registerModule(new ConnectionConfigJacksonModule());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.entando.connectionconfigconnector.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.reactivestreams.Publisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * Sidecar stand-in serving {@code GET /config} and {@code GET /config/{name}} on a loopback port, with the responses
+ * serialized once up front so that the benchmarks measure the connector rather than the server.
+ */
+public class StubSidecar implements Closeable {
+
+    private static final String CONFIG_ENDPOINT = "/config";
+
+    private final Map<String, byte[]> responses = new HashMap<>();
+    private final byte[] listResponse;
+    private final DisposableServer server;
+
+    public StubSidecar(List<ConnectionConfig> connectionConfigs) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (ConnectionConfig connectionConfig : connectionConfigs) {
+            responses.put(connectionConfig.getName(), objectMapper.writeValueAsBytes(connectionConfig));
+        }
+        listResponse = objectMapper.writeValueAsBytes(connectionConfigs);
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes
+                        .get(CONFIG_ENDPOINT, (request, response) -> json(response, listResponse))
+                        .get(CONFIG_ENDPOINT + "/{configName}", (request, response) -> {
+                            byte[] body = responses.get(request.param("configName"));
+                            return body == null ? response.status(404).send() : json(response, body);
+                        }))
+                .bindNow();
+    }
+
+    public int getPort() {
+        return server.port();
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    private static Publisher<Void> json(HttpServerResponse response, byte[] body) {
+        return response
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(body.length))
+                .sendByteArray(Mono.just(body));
+    }
+}
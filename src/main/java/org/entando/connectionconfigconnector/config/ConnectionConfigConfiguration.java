@@ -1,24 +1,39 @@
 package org.entando.connectionconfigconnector.config;
 
+import java.util.concurrent.TimeUnit;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigMetrics;
+import org.entando.connectionconfigconnector.service.impl.SidecarContentNegotiation;
+import org.entando.connectionconfigconnector.service.impl.SidecarDeadlineInterceptor;
+import org.entando.connectionconfigconnector.service.impl.SidecarRequestMetricsInterceptor;
 import org.keycloak.adapters.springsecurity.KeycloakSecurityComponents;
 import org.keycloak.adapters.springsecurity.client.KeycloakClientRequestFactory;
 import org.keycloak.adapters.springsecurity.client.KeycloakRestTemplate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.autoconfigure.AutoConfigurationExcludeFilter;
 import org.springframework.boot.web.client.RootUriTemplateHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Scope;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 @ComponentScan(basePackages = "org.entando.connectionconfigconnector",
-        basePackageClasses = KeycloakSecurityComponents.class)
+        basePackageClasses = KeycloakSecurityComponents.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.CUSTOM,
+                classes = AutoConfigurationExcludeFilter.class))
 public class ConnectionConfigConfiguration {
 
     public static final String CONFIG_REST_TEMPLATE = "connectionConfigRestTemplate";
+    public static final String CONFIG_HTTP_CLIENT = "connectionConfigHttpClient";
+    public static final String CONFIG_WEB_CLIENT = "connectionConfigWebClient";
 
     private final String sidecarPort;
     private final KeycloakClientRequestFactory keycloakClientRequestFactory;
@@ -29,12 +44,57 @@ public class ConnectionConfigConfiguration {
         this.keycloakClientRequestFactory = keycloakClientRequestFactory;
     }
 
+    /**
+     * HTTP client shared by every call to the sidecar. Connections to localhost are pooled and kept alive, so the TCP
+     * handshake is only paid once per pooled connection; idle and expired connections are evicted in the background.
+     * Requests sent on behalf of a caller with a {@link org.entando.connectionconfigconnector.service.Deadline} have
+     * their timeouts shortened to the time left.
+     */
+    @Bean(name = CONFIG_HTTP_CLIENT, destroyMethod = "close")
+    @SuppressWarnings("PMD.CloseResource") // the connection manager is shut down when the client is closed
+    public CloseableHttpClient httpClient(
+            @Value("${plugin.sidecar.pool.max-connections:50}") int maxConnections,
+            @Value("${plugin.sidecar.pool.keep-alive-millis:30000}") long keepAliveMillis,
+            @Value("${plugin.sidecar.pool.idle-eviction-millis:30000}") long idleEvictionMillis) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveMillis) : keepAliveMillis;
+        };
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .addInterceptorFirst(new SidecarDeadlineInterceptor())
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvictionMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Template calling the sidecar through the pooled HTTP client. It asks for the encoding set with
+     * {@code plugin.sidecar.encoding}, falling back to JSON, and gzips request bodies from
+     * {@code plugin.sidecar.compression.min-request-bytes} on; see {@link SidecarContentNegotiation}.
+     */
     @Bean
     @Qualifier(CONFIG_REST_TEMPLATE)
-    @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
-    public RestTemplate restTemplate() {
+    public RestTemplate restTemplate(@Qualifier(CONFIG_HTTP_CLIENT) CloseableHttpClient httpClient,
+            @Value("${plugin.sidecar.connect-timeout-millis:2000}") int connectTimeoutMillis,
+            @Value("${plugin.sidecar.read-timeout-millis:10000}") int readTimeoutMillis,
+            @Value("${plugin.sidecar.pool.acquire-timeout-millis:1000}") int acquireTimeoutMillis,
+            @Value("${plugin.sidecar.encoding:JSON}") String encoding,
+            @Value("${plugin.sidecar.compression.min-request-bytes:0}") int compressionMinRequestBytes,
+            ObjectProvider<ConnectionConfigMetrics> metrics) {
+        keycloakClientRequestFactory.setHttpClient(httpClient);
+        keycloakClientRequestFactory.setConnectTimeout(connectTimeoutMillis);
+        keycloakClientRequestFactory.setReadTimeout(readTimeoutMillis);
+        keycloakClientRequestFactory.setConnectionRequestTimeout(acquireTimeoutMillis);
         KeycloakRestTemplate keycloakRestTemplate = new KeycloakRestTemplate(keycloakClientRequestFactory);
         RootUriTemplateHandler.addTo(keycloakRestTemplate, "http://localhost:" + sidecarPort);
+        metrics.ifAvailable(available -> keycloakRestTemplate.getInterceptors()
+                .add(new SidecarRequestMetricsInterceptor(available)));
+        SidecarContentNegotiation.configure(keycloakRestTemplate, encoding, compressionMinRequestBytes);
         return keycloakRestTemplate;
     }
 }
@@ -0,0 +1,29 @@
+package org.entando.connectionconfigconnector.config;
+
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigPrewarmer;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Contributes the {@code connectionConfigPrewarm} health indicator when Spring Boot Actuator is on the classpath and
+ * {@code entando.connections.prewarm.health.enabled} is {@code true}, so that a readiness probe pointing to the health
+ * endpoint only succeeds once the connection configs are prewarmed. It is opt-in because it takes part in the
+ * aggregate health, which a liveness probe may also be pointing to.
+ */
+@Configuration
+@ConditionalOnClass(HealthIndicator.class)
+@ConditionalOnProperty(name = "entando.connections.prewarm.health.enabled", havingValue = "true")
+public class ConnectionConfigHealthAutoConfiguration {
+
+    @Bean
+    @ConditionalOnBean(ConnectionConfigPrewarmer.class)
+    @ConditionalOnMissingBean(name = "connectionConfigPrewarmHealthIndicator")
+    public HealthIndicator connectionConfigPrewarmHealthIndicator(ConnectionConfigPrewarmer prewarmer) {
+        return new ConnectionConfigPrewarmHealthIndicator(prewarmer);
+    }
+}
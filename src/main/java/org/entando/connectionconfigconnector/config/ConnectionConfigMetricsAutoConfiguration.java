@@ -0,0 +1,31 @@
+package org.entando.connectionconfigconnector.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigMetrics;
+import org.entando.connectionconfigconnector.service.impl.MicrometerConnectionConfigMetrics;
+import org.entando.connectionconfigconnector.service.impl.NoopConnectionConfigMetrics;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Records the connector metrics in the application {@link MeterRegistry} when there is one. Without Micrometer on
+ * the classpath, or without a registry, the connectors fall back to {@link NoopConnectionConfigMetrics}.
+ */
+@Configuration
+@ConditionalOnClass(MeterRegistry.class)
+@AutoConfigureAfter(name = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration",
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration"})
+public class ConnectionConfigMetricsAutoConfiguration {
+
+    @Bean
+    @ConditionalOnBean(MeterRegistry.class)
+    @ConditionalOnMissingBean
+    public ConnectionConfigMetrics connectionConfigMetrics(MeterRegistry meterRegistry) {
+        return new MicrometerConnectionConfigMetrics(meterRegistry);
+    }
+}
@@ -0,0 +1,28 @@
+package org.entando.connectionconfigconnector.config;
+
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigPrewarmer;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+/**
+ * Reports {@code OUT_OF_SERVICE} while the connection configs are being prewarmed and {@code UP} once the prewarm is
+ * over, skipped or disabled, with the progress of the prewarm as details.
+ */
+public class ConnectionConfigPrewarmHealthIndicator implements HealthIndicator {
+
+    private final ConnectionConfigPrewarmer prewarmer;
+
+    public ConnectionConfigPrewarmHealthIndicator(ConnectionConfigPrewarmer prewarmer) {
+        this.prewarmer = prewarmer;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = prewarmer.isDone() ? Health.up() : Health.outOfService();
+        return builder.withDetail("status", prewarmer.getStatus())
+                .withDetail("total", prewarmer.getTotal())
+                .withDetail("loaded", prewarmer.getLoaded())
+                .withDetail("failed", prewarmer.getFailed())
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package org.entando.connectionconfigconnector.config;
+
+import static org.entando.connectionconfigconnector.config.ConnectionConfigConfiguration.CONFIG_WEB_CLIENT;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import java.util.concurrent.TimeUnit;
+import org.keycloak.adapters.springsecurity.client.KeycloakRestTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Creates the non-blocking client of the asynchronous connector. Spring WebFlux and Reactor Netty are optional
+ * dependencies of the connector, so the client, like the asynchronous connector itself, only exists when the
+ * application has both on its classpath.
+ */
+@Configuration
+@ConditionalOnClass({WebClient.class, HttpClient.class})
+public class ConnectionConfigWebClientConfiguration {
+
+    private final String sidecarPort;
+
+    public ConnectionConfigWebClientConfiguration(@Value("${plugin.sidecar.port:8084}") String sidecarPort) {
+        this.sidecarPort = sidecarPort;
+    }
+
+    /**
+     * Non-blocking client used by the asynchronous connector. It shares the pool size and timeouts of the blocking
+     * client and, like {@link KeycloakRestTemplate}, forwards the bearer token of the authenticated user. The token is
+     * read when the request is built, i.e. on the calling thread where the security context is available.
+     */
+    @Bean
+    @Qualifier(CONFIG_WEB_CLIENT)
+    public WebClient webClient(
+            @Value("${plugin.sidecar.pool.max-connections:50}") int maxConnections,
+            @Value("${plugin.sidecar.pool.acquire-timeout-millis:1000}") long acquireTimeoutMillis,
+            @Value("${plugin.sidecar.connect-timeout-millis:2000}") int connectTimeoutMillis,
+            @Value("${plugin.sidecar.read-timeout-millis:10000}") long readTimeoutMillis) {
+        HttpClient httpClient = HttpClient
+                .create(ConnectionProvider.fixed(CONFIG_WEB_CLIENT, maxConnections, acquireTimeoutMillis))
+                .tcpConfiguration(tcpClient -> tcpClient
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+                        .doOnConnected(connection -> connection
+                                .addHandlerLast(new ReadTimeoutHandler(readTimeoutMillis, TimeUnit.MILLISECONDS))));
+        return WebClient.builder()
+                .baseUrl("http://localhost:" + sidecarPort)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(new KeycloakBearerTokenFilter())
+                .build();
+    }
+}
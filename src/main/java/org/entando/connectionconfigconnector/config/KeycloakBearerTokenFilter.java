@@ -0,0 +1,31 @@
+package org.entando.connectionconfigconnector.config;
+
+import org.keycloak.adapters.springsecurity.token.KeycloakAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * Adds the bearer token of the authenticated Keycloak user, if any, to the requests sent through a
+ * {@link org.springframework.web.reactive.function.client.WebClient}. The security context is read when the filter
+ * runs, which is on the thread building the request.
+ */
+public class KeycloakBearerTokenFilter implements ExchangeFilterFunction {
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!(authentication instanceof KeycloakAuthenticationToken)) {
+            return next.exchange(request);
+        }
+        String token = ((KeycloakAuthenticationToken) authentication).getAccount().getKeycloakSecurityContext()
+                .getTokenString();
+        return next.exchange(ClientRequest.from(request)
+                .headers(headers -> headers.setBearerAuth(token))
+                .build());
+    }
+}
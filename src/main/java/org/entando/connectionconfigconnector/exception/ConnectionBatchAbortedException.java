@@ -0,0 +1,16 @@
+package org.entando.connectionconfigconnector.exception;
+
+import org.entando.web.exception.ConflictException;
+
+/**
+ * Reported for the operations of an atomic batch of mutations that were not applied because another operation of the
+ * same batch failed.
+ */
+public class ConnectionBatchAbortedException extends ConflictException {
+
+    public static final String MESSAGE_KEY = "org.entando.error.connection.batchAborted";
+
+    public ConnectionBatchAbortedException() {
+        super(MESSAGE_KEY);
+    }
+}
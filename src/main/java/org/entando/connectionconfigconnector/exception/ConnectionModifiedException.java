@@ -0,0 +1,20 @@
+package org.entando.connectionconfigconnector.exception;
+
+import org.entando.web.exception.ConflictException;
+
+/**
+ * Thrown when a conditional change is rejected because the connection config was modified since the entity tag it
+ * was conditioned on was read.
+ */
+public class ConnectionModifiedException extends ConflictException {
+
+    public static final String MESSAGE_KEY = "org.entando.error.connection.modified";
+
+    public ConnectionModifiedException() {
+        super(MESSAGE_KEY);
+    }
+
+    public ConnectionModifiedException(Throwable throwable) {
+        super(MESSAGE_KEY, throwable);
+    }
+}
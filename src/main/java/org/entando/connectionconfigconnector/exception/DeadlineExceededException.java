@@ -0,0 +1,14 @@
+package org.entando.connectionconfigconnector.exception;
+
+public class DeadlineExceededException extends SidecarUnavailableException {
+
+    public static final String MESSAGE_KEY = "org.entando.error.sidecar.deadlineExceeded";
+
+    public DeadlineExceededException() {
+        super(MESSAGE_KEY);
+    }
+
+    public DeadlineExceededException(Throwable e) {
+        super(MESSAGE_KEY, e);
+    }
+}
@@ -0,0 +1,10 @@
+package org.entando.connectionconfigconnector.exception;
+
+public class SidecarBulkheadFullException extends SidecarUnavailableException {
+
+    public static final String MESSAGE_KEY = "org.entando.error.sidecar.bulkheadFull";
+
+    public SidecarBulkheadFullException() {
+        super(MESSAGE_KEY);
+    }
+}
@@ -0,0 +1,20 @@
+package org.entando.connectionconfigconnector.exception;
+
+import org.entando.web.exception.InternalServerException;
+
+public class SidecarUnavailableException extends InternalServerException {
+
+    public static final String MESSAGE_KEY = "org.entando.error.sidecar.unavailable";
+
+    public SidecarUnavailableException() {
+        super(MESSAGE_KEY);
+    }
+
+    protected SidecarUnavailableException(String messageKey) {
+        super(messageKey);
+    }
+
+    protected SidecarUnavailableException(String messageKey, Throwable e) {
+        super(messageKey, e);
+    }
+}
@@ -0,0 +1,22 @@
+package org.entando.connectionconfigconnector.model;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a bulk lookup: the connection configs that were found, keyed by the requested name and in request order,
+ * and the requested names that do not exist.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConnectionConfigBatchResult {
+
+    private Map<String, ConnectionConfig> connectionConfigs;
+    private List<String> notFound;
+}
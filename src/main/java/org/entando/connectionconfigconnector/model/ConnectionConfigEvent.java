@@ -0,0 +1,21 @@
+package org.entando.connectionconfigconnector.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change of a single connection config. The connection config holds the new version and is {@code null} when the
+ * connection was removed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConnectionConfigEvent {
+
+    private ConnectionConfigEventType type;
+    private String name;
+    private ConnectionConfig connectionConfig;
+}
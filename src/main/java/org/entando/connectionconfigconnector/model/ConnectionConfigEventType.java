@@ -0,0 +1,5 @@
+package org.entando.connectionconfigconnector.model;
+
+public enum ConnectionConfigEventType {
+    ADDED, UPDATED, REMOVED;
+}
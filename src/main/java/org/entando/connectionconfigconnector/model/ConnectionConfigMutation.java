@@ -0,0 +1,37 @@
+package org.entando.connectionconfigconnector.model;
+
+import static org.entando.connectionconfigconnector.model.ConnectionConfigMutationType.ADD;
+import static org.entando.connectionconfigconnector.model.ConnectionConfigMutationType.DELETE;
+import static org.entando.connectionconfigconnector.model.ConnectionConfigMutationType.EDIT;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single operation of a batch of mutations. The connection config holds the version to add or save and is
+ * {@code null} for a deletion, which only needs the name.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConnectionConfigMutation {
+
+    private ConnectionConfigMutationType type;
+    private String name;
+    private ConnectionConfig connectionConfig;
+
+    public static ConnectionConfigMutation add(ConnectionConfig connectionConfig) {
+        return new ConnectionConfigMutation(ADD, connectionConfig.getName(), connectionConfig);
+    }
+
+    public static ConnectionConfigMutation edit(ConnectionConfig connectionConfig) {
+        return new ConnectionConfigMutation(EDIT, connectionConfig.getName(), connectionConfig);
+    }
+
+    public static ConnectionConfigMutation delete(String configName) {
+        return new ConnectionConfigMutation(DELETE, configName, null);
+    }
+}
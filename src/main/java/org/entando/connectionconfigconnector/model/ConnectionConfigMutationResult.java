@@ -0,0 +1,25 @@
+package org.entando.connectionconfigconnector.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one operation of a batch of mutations. The connection config holds the version stored by an addition or
+ * an edit and is {@code null} for a deletion; the error is {@code null} when the operation succeeded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConnectionConfigMutationResult {
+
+    private ConnectionConfigMutation mutation;
+    private ConnectionConfig connectionConfig;
+    private RuntimeException error;
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
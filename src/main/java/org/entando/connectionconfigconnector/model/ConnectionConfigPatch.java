@@ -0,0 +1,60 @@
+package org.entando.connectionconfigconnector.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Singular;
+
+/**
+ * Change to some properties of a connection config, leaving the others untouched: the {@link #getProperties()} are
+ * set, replacing their current value if any, and the {@link #getRemovedProperties()} are removed. A property both set
+ * and removed is set.
+ *
+ * <p>The {@link #getIfMatch()} entity tag, when given, makes the patch conditional: it is only applied if the
+ * connection config still has that tag, e.g. the {@link VersionedConnectionConfig#getVersion()} of the config the
+ * change is based on.</p>
+ *
+ * <pre>
+ * ConnectionConfigPatch.builder().name("tenant-a-db").property("password", password).removedProperty("token").build();
+ * </pre>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConnectionConfigPatch {
+
+    private String name;
+    @Singular
+    private Map<String, String> properties;
+    @Singular
+    private Set<String> removedProperties;
+    private String ifMatch;
+
+    /**
+     * Tells whether the patch may be applied to the version of a connection config with the given entity tag, i.e.
+     * whether it has no {@link #getIfMatch()} tag or the same one.
+     */
+    public boolean isBasedOn(String version) {
+        return ifMatch == null || ifMatch.equals(version);
+    }
+
+    /**
+     * Returns a new connection config with the patch applied to the properties of the given one.
+     */
+    public ConnectionConfig applyTo(ConnectionConfig connectionConfig) {
+        HashMap<String, String> patched = connectionConfig.getProperties() == null ? new HashMap<>()
+                : new HashMap<>(connectionConfig.getProperties());
+        if (removedProperties != null) {
+            patched.keySet().removeAll(removedProperties);
+        }
+        if (properties != null) {
+            patched.putAll(properties);
+        }
+        return new ConnectionConfig(connectionConfig.getName(), patched);
+    }
+}
@@ -0,0 +1,44 @@
+package org.entando.connectionconfigconnector.model;
+
+import java.util.Map;
+import java.util.Objects;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.Singular;
+
+/**
+ * Filter on connection configs: a config matches when its name starts with {@link #getNamePrefix()}, if set, and it
+ * has every one of the {@link #getProperties()} with the same value.
+ *
+ * <pre>
+ * ConnectionConfigQuery.builder().namePrefix("tenant-a-").property("serviceType", "postgres").build();
+ * </pre>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConnectionConfigQuery {
+
+    private String namePrefix;
+    @Singular
+    private Map<String, String> properties;
+
+    public boolean matches(ConnectionConfig connectionConfig) {
+        if (namePrefix != null && (connectionConfig.getName() == null
+                || !connectionConfig.getName().startsWith(namePrefix))) {
+            return false;
+        }
+        if (properties == null || properties.isEmpty()) {
+            return true;
+        }
+        Map<String, String> actual = connectionConfig.getProperties();
+        if (actual == null) {
+            return false;
+        }
+        return properties.entrySet().stream().allMatch(property -> actual.containsKey(property.getKey())
+                && Objects.equals(actual.get(property.getKey()), property.getValue()));
+    }
+}
@@ -0,0 +1,22 @@
+package org.entando.connectionconfigconnector.model;
+
+/**
+ * What a tier of a tiered connector does when a connection config is written to the authoritative tier.
+ */
+public enum ConnectionConfigTierWritePolicy {
+
+    /**
+     * Stores the new version of the connection config, or removes it when it was deleted.
+     */
+    WRITE_THROUGH,
+
+    /**
+     * Removes the connection config, so the next read fetches the new version from a slower tier.
+     */
+    INVALIDATE,
+
+    /**
+     * Leaves the tier untouched.
+     */
+    NONE;
+}
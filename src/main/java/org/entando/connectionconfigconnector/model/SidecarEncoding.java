@@ -0,0 +1,22 @@
+package org.entando.connectionconfigconnector.model;
+
+/**
+ * Encoding in which the connector asks the sidecar for connection configs.
+ */
+public enum SidecarEncoding {
+
+    /**
+     * Plain JSON only.
+     */
+    JSON,
+
+    /**
+     * Jackson Smile, {@code application/x-jackson-smile}, with JSON as the fallback.
+     */
+    SMILE,
+
+    /**
+     * CBOR, {@code application/cbor}, with JSON as the fallback.
+     */
+    CBOR;
+}
@@ -0,0 +1,45 @@
+package org.entando.connectionconfigconnector.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.Map;
+
+/**
+ * A connection config served from the local cache because the sidecar could not be reached. It is equal to the
+ * {@link ConnectionConfig} it was copied from; {@link #getFetchedAt()} tells how old it is.
+ */
+public class StaleConnectionConfig extends ConnectionConfig {
+
+    @JsonIgnore
+    private final long fetchedAt;
+
+    public StaleConnectionConfig(String name, Map<String, String> properties, long fetchedAt) {
+        super(name, properties);
+        this.fetchedAt = fetchedAt;
+    }
+
+    /**
+     * Returns when the sidecar last confirmed this config, in milliseconds since the epoch.
+     */
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    /**
+     * Compares name and properties only, so that a stale copy stays equal to the config it was copied from.
+     */
+    @Override
+    @SuppressWarnings("PMD.UselessOverridingMethod") // declares that fetchedAt is deliberately left out
+    public boolean equals(Object o) {
+        return super.equals(o);
+    }
+
+    @Override
+    @SuppressWarnings("PMD.UselessOverridingMethod")
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    public static boolean isStale(ConnectionConfig connectionConfig) {
+        return connectionConfig instanceof StaleConnectionConfig;
+    }
+}
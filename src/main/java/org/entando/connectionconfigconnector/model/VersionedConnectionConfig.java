@@ -0,0 +1,60 @@
+package org.entando.connectionconfigconnector.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.Map;
+
+/**
+ * A connection config returned together with the entity tag the sidecar gave it. The tag can be passed back as the
+ * {@link ConnectionConfigPatch#getIfMatch()} of a patch, so that the patch is only applied to this version. It is
+ * equal to the {@link ConnectionConfig} it was copied from.
+ */
+public class VersionedConnectionConfig extends ConnectionConfig {
+
+    @JsonIgnore
+    private final String version;
+
+    public VersionedConnectionConfig(String name, Map<String, String> properties, String version) {
+        super(name, properties);
+        this.version = version;
+    }
+
+    /**
+     * Returns the entity tag of this version of the config.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Compares name and properties only, so that a versioned copy stays equal to the config it was copied from.
+     */
+    @Override
+    @SuppressWarnings("PMD.UselessOverridingMethod") // declares that version is deliberately left out
+    public boolean equals(Object o) {
+        return super.equals(o);
+    }
+
+    @Override
+    @SuppressWarnings("PMD.UselessOverridingMethod")
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * Returns the entity tag of the connection config, or {@code null} if it was returned without one.
+     */
+    public static String versionOf(ConnectionConfig connectionConfig) {
+        return connectionConfig instanceof VersionedConnectionConfig
+                ? ((VersionedConnectionConfig) connectionConfig).getVersion() : null;
+    }
+
+    /**
+     * Returns the connection config tagged with the given version, or the config itself when there is none.
+     */
+    public static ConnectionConfig withVersion(ConnectionConfig connectionConfig, String version) {
+        if (connectionConfig == null || version == null) {
+            return connectionConfig;
+        }
+        return new VersionedConnectionConfig(connectionConfig.getName(), connectionConfig.getProperties(), version);
+    }
+}
@@ -0,0 +1,22 @@
+package org.entando.connectionconfigconnector.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+
+/**
+ * Non-blocking companion of {@link ConnectionConfigConnector}. Every method returns immediately; failures complete the
+ * returned future exceptionally with the same exceptions the blocking connector throws.
+ */
+public interface AsyncConnectionConfigConnector {
+
+    CompletableFuture<ConnectionConfig> getConnectionConfig(String configName);
+
+    CompletableFuture<List<ConnectionConfig>> getConnectionConfigs();
+
+    CompletableFuture<ConnectionConfig> addConnectionConfig(ConnectionConfig connectionConfig);
+
+    CompletableFuture<Void> deleteConnectionConfig(String configName);
+
+    CompletableFuture<ConnectionConfig> editConnectionConfig(ConnectionConfig connectionConfig);
+}
@@ -1,17 +1,128 @@
 package org.entando.connectionconfigconnector.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
 import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigBatchResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutation;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigPatch;
+import org.entando.connectionconfigconnector.model.ConnectionConfigQuery;
 
+@SuppressWarnings("PMD.TooManyMethods")
 public interface ConnectionConfigConnector {
 
     ConnectionConfig getConnectionConfig(String configName);
 
     List<ConnectionConfig> getConnectionConfigs();
 
+    /**
+     * Looks up several connection configs at once. The default implementation looks them up one by one.
+     *
+     * @param configNames names of the connection configs to look up, duplicates are ignored
+     * @return the connection configs found, keyed by name, and the names that do not exist
+     */
+    default ConnectionConfigBatchResult getConnectionConfigs(Collection<String> configNames) {
+        LinkedHashMap<String, ConnectionConfig> found = new LinkedHashMap<>();
+        List<String> notFound = new ArrayList<>();
+        for (String configName : new LinkedHashSet<>(configNames)) {
+            try {
+                found.put(configName, getConnectionConfig(configName));
+            } catch (ConnectionNotFoundException e) {
+                notFound.add(configName);
+            }
+        }
+        return new ConnectionConfigBatchResult(found, notFound);
+    }
+
+    /**
+     * Passes every connection config to the action, on the calling thread, as it is read. Unlike
+     * {@link #getConnectionConfigs()} the configs are never all held in memory at once, so memory use stays flat
+     * however many connections there are. The default implementation iterates over {@link #getConnectionConfigs()}.
+     */
+    default void forEachConnectionConfig(Consumer<? super ConnectionConfig> action) {
+        getConnectionConfigs().forEach(action);
+    }
+
+    /**
+     * Returns the connection configs matching the query, sorted by name. Queries are answered from in-memory indexes
+     * where the connector keeps the configs in memory, and by filtering the configs as they are read otherwise. The
+     * default implementation filters {@link #getConnectionConfigs()}.
+     */
+    default List<ConnectionConfig> findConnectionConfigs(ConnectionConfigQuery query) {
+        return getConnectionConfigs().stream()
+                .filter(query::matches)
+                .sorted(Comparator.comparing(ConnectionConfig::getName))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Registers a listener notified, asynchronously, whenever a connection config is added, updated or removed.
+     * Connectors that cannot observe the store they read from, such as the LENIENT one, only report the changes made
+     * through them.
+     *
+     * @throws UnsupportedOperationException if the connector cannot report changes, the default
+     */
+    default void addConnectionConfigListener(ConnectionConfigListener listener) {
+        throw new UnsupportedOperationException();
+    }
+
+    default void removeConnectionConfigListener(ConnectionConfigListener listener) {
+        throw new UnsupportedOperationException();
+    }
+
     ConnectionConfig addConnectionConfig(ConnectionConfig connectionConfig);
 
     void deleteConnectionConfig(String configName);
 
     ConnectionConfig editConnectionConfig(ConnectionConfig connectionConfig);
+
+    /**
+     * Sets and removes some properties of a connection config, leaving the others as they are. The patch is applied
+     * only if the connection config still has the entity tag of the patch, when one is given.
+     *
+     * @throws org.entando.connectionconfigconnector.exception.ConnectionModifiedException if the connection config no
+     *         longer has the entity tag of the patch
+     * @throws UnsupportedOperationException if the connector cannot patch, the default, or has no entity tags to
+     *         check the one of the patch against
+     */
+    default ConnectionConfig patchConnectionConfig(ConnectionConfigPatch patch) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Applies a batch of additions, edits and deletions and returns one result per mutation, in batch order. The
+     * mutations of a given connection are applied in batch order. Unless the implementation documents the batch as
+     * atomic, a failed mutation is reported in its result and does not prevent the others from being applied.
+     *
+     * @throws UnsupportedOperationException if the connector cannot apply batches, the default
+     */
+    default List<ConnectionConfigMutationResult> applyMutations(List<ConnectionConfigMutation> mutations) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Tells whether the connection configs read through this connector are kept for the next reads, i.e. whether
+     * reading them ahead of time makes the next reads cheaper. The default is {@code false}.
+     */
+    default boolean keepsLoadedConfigs() {
+        return false;
+    }
+
+    /**
+     * Returns a view of this connector whose operations give up once the deadline has passed. Requests to the sidecar
+     * use the time left as their timeout and fail with
+     * {@link org.entando.connectionconfigconnector.exception.DeadlineExceededException} when it runs out. The default
+     * implementation ignores the deadline and returns this connector.
+     */
+    default ConnectionConfigConnector withDeadline(Deadline deadline) {
+        return this;
+    }
 }
@@ -0,0 +1,13 @@
+package org.entando.connectionconfigconnector.service;
+
+import org.entando.connectionconfigconnector.model.ConnectionConfigEvent;
+
+/**
+ * Receives the changes of the connection configs. Events are delivered asynchronously on a single thread per
+ * connector, and changes of the same connection occurring close together are merged into one event.
+ */
+@FunctionalInterface
+public interface ConnectionConfigListener {
+
+    void onConnectionConfigEvent(ConnectionConfigEvent event);
+}
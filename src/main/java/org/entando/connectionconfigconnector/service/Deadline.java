@@ -0,0 +1,69 @@
+package org.entando.connectionconfigconnector.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Point in time by which a caller needs an answer. While an operation runs with {@link #run(Supplier)} the deadline is
+ * bound to the current thread, and the requests it sends to the sidecar use the remaining time as their timeout. When
+ * deadlines are nested the earliest one wins.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> BOUND = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * Returns the deadline bound to the current thread, if any.
+     */
+    public static Optional<Deadline> current() {
+        return Optional.ofNullable(BOUND.get());
+    }
+
+    /**
+     * Tells whether the deadline bound to the current thread, if any, has expired.
+     */
+    public static boolean isCurrentExpired() {
+        Deadline current = BOUND.get();
+        return current != null && current.isExpired();
+    }
+
+    public long remainingMillis() {
+        return Math.max(0, Duration.ofNanos(expiresAtNanos - System.nanoTime()).toMillis());
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Runs the operation with this deadline bound to the current thread, or with the deadline already bound if that
+     * one expires first.
+     */
+    public <T> T run(Supplier<T> operation) {
+        Deadline previous = BOUND.get();
+        if (previous != null && previous.expiresAtNanos - expiresAtNanos <= 0) {
+            return operation.get();
+        }
+        BOUND.set(this);
+        try {
+            return operation.get();
+        } finally {
+            if (previous == null) {
+                BOUND.remove();
+            } else {
+                BOUND.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.entando.connectionconfigconnector.exception.InvalidStrictOperationException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.service.AsyncConnectionConfigConnector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Service;
+
+/**
+ * Dispatches the asynchronous operations like {@link ConnectionConfigConnectorImpl}: LENIENT calls go through the
+ * non-blocking sidecar client, STRICT reads run on a bounded pool dedicated to file system I/O so that they never
+ * occupy the caller's threads. When the file system connector serves reads from its in-memory snapshot the future is
+ * completed directly. Like the non-blocking client, the bean is only created when Spring WebFlux is on the classpath.
+ */
+@Service
+@ConditionalOnClass(name = "org.springframework.web.reactive.function.client.WebClient")
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class AsyncConnectionConfigConnectorImpl implements AsyncConnectionConfigConnector {
+
+    private final SecurityLevel securityLevel;
+
+    private final ConnectionConfigConnectorSidecarAsync connectionConfigConnectorSidecarAsync;
+
+    private final ConnectionConfigConnectorFileSystem connectionConfigConnectorFileSystem;
+
+    private final ExecutorService fileSystemExecutor;
+
+    /**
+     * Creates the asynchronous connector.
+     *
+     * @param securityLevel the security level, as for {@link ConnectionConfigConnectorImpl}
+     * @param connectionConfigConnectorSidecarAsync connector used on LENIENT
+     * @param connectionConfigConnectorFileSystem connector used on STRICT
+     * @param fileSystemThreads number of threads reading the file system
+     * @param fileSystemQueueCapacity number of reads waiting for a thread before new ones are rejected
+     */
+    public AsyncConnectionConfigConnectorImpl(
+            @Value("${entando.plugin.security.level:STRICT}") String securityLevel,
+            ConnectionConfigConnectorSidecarAsync connectionConfigConnectorSidecarAsync,
+            ConnectionConfigConnectorFileSystem connectionConfigConnectorFileSystem,
+            @Value("${entando.connections.async.threads:4}") int fileSystemThreads,
+            @Value("${entando.connections.async.queue-capacity:256}") int fileSystemQueueCapacity) {
+        this.securityLevel = SecurityLevel.valueOf(securityLevel);
+        this.connectionConfigConnectorSidecarAsync = connectionConfigConnectorSidecarAsync;
+        this.connectionConfigConnectorFileSystem = connectionConfigConnectorFileSystem;
+        this.fileSystemExecutor = DaemonThreadFactory.newThreadPool("connection-config-io-", fileSystemThreads,
+                fileSystemQueueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        fileSystemExecutor.shutdown();
+    }
+
+    @Override
+    public CompletableFuture<ConnectionConfig> getConnectionConfig(String configName) {
+        if (securityLevel == SecurityLevel.STRICT) {
+            return onFileSystem(() -> connectionConfigConnectorFileSystem.getConnectionConfig(configName));
+        } else {
+            return connectionConfigConnectorSidecarAsync.getConnectionConfig(configName);
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<ConnectionConfig>> getConnectionConfigs() {
+        if (securityLevel == SecurityLevel.STRICT) {
+            return onFileSystem(connectionConfigConnectorFileSystem::getConnectionConfigs);
+        } else {
+            return connectionConfigConnectorSidecarAsync.getConnectionConfigs();
+        }
+    }
+
+    @Override
+    public CompletableFuture<ConnectionConfig> addConnectionConfig(ConnectionConfig connectionConfig) {
+        if (securityLevel == SecurityLevel.STRICT) {
+            CompletableFuture<ConnectionConfig> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new InvalidStrictOperationException());
+            return rejected;
+        }
+        return connectionConfigConnectorSidecarAsync.addConnectionConfig(connectionConfig);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteConnectionConfig(String configName) {
+        if (securityLevel == SecurityLevel.STRICT) {
+            CompletableFuture<Void> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new InvalidStrictOperationException());
+            return rejected;
+        }
+        return connectionConfigConnectorSidecarAsync.deleteConnectionConfig(configName);
+    }
+
+    @Override
+    public CompletableFuture<ConnectionConfig> editConnectionConfig(ConnectionConfig connectionConfig) {
+        if (securityLevel == SecurityLevel.STRICT) {
+            CompletableFuture<ConnectionConfig> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new InvalidStrictOperationException());
+            return rejected;
+        }
+        return connectionConfigConnectorSidecarAsync.editConnectionConfig(connectionConfig);
+    }
+
+    /**
+     * Runs the read on the file system pool. Unlike {@link CompletableFuture#supplyAsync}, the future is completed
+     * with the exception thrown by the read itself rather than a wrapping {@code CompletionException}, as the sidecar
+     * futures are.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private <T> CompletableFuture<T> onFileSystem(Supplier<T> read) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                future.complete(read.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        };
+        if (connectionConfigConnectorFileSystem.isWatching()) {
+            task.run();
+            return future;
+        }
+        try {
+            fileSystemExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
@@ -0,0 +1,245 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.StaleConnectionConfig;
+import org.entando.connectionconfigconnector.model.VersionedConnectionConfig;
+
+/**
+ * Immutable, array-backed properties of a connection config, used wherever many configs are kept in memory.
+ *
+ * <p>Connection configs mostly share the same few keys ({@code url}, {@code username}, ...), so the ordered set of
+ * keys of a config (its shape) is interned and shared by every config with the same keys, and each config only holds
+ * the array of its values. Compared to a {@link java.util.HashMap} this saves the table and one entry object per
+ * property. Small shapes are searched linearly, larger ones through a sorted index shared by the shape.
+ */
+public final class CompactProperties extends AbstractMap<String, String> {
+
+    private static final int MAX_SHAPES = 4096;
+    private static final int MAX_KEYS = 16_384;
+    private static final int LINEAR_SCAN_LIMIT = 8;
+
+    private static final ConcurrentHashMap<Shape, Shape> SHAPES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, String> KEYS = new ConcurrentHashMap<>();
+
+    private final Shape shape;
+    private final String[] values;
+
+    private CompactProperties(Map<String, String> properties) {
+        super();
+        String[] keys = new String[properties.size()];
+        this.values = new String[properties.size()];
+        int i = 0;
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            keys[i] = property.getKey();
+            values[i] = property.getValue();
+            i++;
+        }
+        this.shape = shapeOf(keys);
+    }
+
+    /**
+     * Returns a compact, immutable copy of the given properties, iterating in the same order. Properties that are
+     * already compact are returned as they are, and {@link LazyProperties} get an immutable copy that does not read
+     * their files.
+     */
+    public static Map<String, String> copyOf(Map<String, String> properties) {
+        if (properties == null || properties instanceof CompactProperties) {
+            return properties;
+        }
+        if (properties instanceof LazyProperties) {
+            return ((LazyProperties) properties).copy(false);
+        }
+        return new CompactProperties(properties);
+    }
+
+    /**
+     * Returns a copy of the connection config holding compact properties, keeping it a {@link StaleConnectionConfig}
+     * or a {@link VersionedConnectionConfig} if it is one.
+     */
+    public static ConnectionConfig compact(ConnectionConfig connectionConfig) {
+        return withProperties(connectionConfig, copyOf(connectionConfig.getProperties()));
+    }
+
+    /**
+     * Returns a mutable copy of the properties, for a caller of a connector that keeps them in memory: callers own the
+     * configs they get and may modify them. {@link LazyProperties} get a lazy copy, since copying their values would
+     * read every file they refer to.
+     */
+    public static Map<String, String> mutableCopyOf(Map<String, String> properties) {
+        if (properties == null) {
+            return properties;
+        }
+        if (properties instanceof LazyProperties) {
+            return ((LazyProperties) properties).copy(true);
+        }
+        return new HashMap<>(properties);
+    }
+
+    /**
+     * Returns a copy of the connection config holding mutable properties, keeping it a {@link StaleConnectionConfig}
+     * or a {@link VersionedConnectionConfig} if it is one.
+     */
+    public static ConnectionConfig mutableCopy(ConnectionConfig connectionConfig) {
+        return withProperties(connectionConfig, mutableCopyOf(connectionConfig.getProperties()));
+    }
+
+    private static ConnectionConfig withProperties(ConnectionConfig connectionConfig, Map<String, String> properties) {
+        if (connectionConfig instanceof StaleConnectionConfig) {
+            return new StaleConnectionConfig(connectionConfig.getName(), properties,
+                    ((StaleConnectionConfig) connectionConfig).getFetchedAt());
+        }
+        return VersionedConnectionConfig.withVersion(new ConnectionConfig(connectionConfig.getName(), properties),
+                VersionedConnectionConfig.versionOf(connectionConfig));
+    }
+
+    @Override
+    public String get(Object key) {
+        int index = shape.indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return shape.indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        Shape entryShape = shape;
+        String[] entryValues = values;
+        return new AbstractSet<Map.Entry<String, String>>() {
+
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return new Iterator<Map.Entry<String, String>>() {
+
+                    private int position;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < entryValues.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, String> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Map.Entry<String, String> entry = new SimpleImmutableEntry<>(entryShape.keyAt(position),
+                                entryValues[position]);
+                        position++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return entryValues.length;
+            }
+        };
+    }
+
+    /**
+     * Returns the shared shape with the given keys. Once too many distinct shapes or keys have been seen, new ones are
+     * no longer shared, so that unusual data cannot make the dictionaries grow without bounds.
+     */
+    private static Shape shapeOf(String... keys) {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = internKey(keys[i]);
+        }
+        Shape candidate = new Shape(keys);
+        Shape shared = SHAPES.get(candidate);
+        if (shared != null || SHAPES.size() >= MAX_SHAPES) {
+            return shared == null ? candidate : shared;
+        }
+        Shape previous = SHAPES.putIfAbsent(candidate, candidate);
+        return previous == null ? candidate : previous;
+    }
+
+    private static String internKey(String key) {
+        if (key == null) {
+            return null;
+        }
+        String shared = KEYS.get(key);
+        if (shared != null || KEYS.size() >= MAX_KEYS) {
+            return shared == null ? key : shared;
+        }
+        String previous = KEYS.putIfAbsent(key, key);
+        return previous == null ? key : previous;
+    }
+
+    /**
+     * Ordered keys of a set of properties, shared by every {@link CompactProperties} having those keys.
+     */
+    private static final class Shape {
+
+        private final String[] keys;
+        private final String[] sortedKeys;
+        private final int[] sortedIndexes;
+        private final int hash;
+
+        public Shape(String... keys) {
+            this.keys = keys.clone();
+            this.hash = Arrays.hashCode(keys);
+            if (keys.length > LINEAR_SCAN_LIMIT && Arrays.stream(keys).allMatch(Objects::nonNull)) {
+                this.sortedIndexes = IntStream.range(0, keys.length).boxed()
+                        .sorted(Comparator.comparing(index -> keys[index]))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+                this.sortedKeys = Arrays.stream(sortedIndexes).mapToObj(index -> keys[index])
+                        .toArray(String[]::new);
+            } else {
+                this.sortedIndexes = new int[0];
+                this.sortedKeys = new String[0];
+            }
+        }
+
+        public int indexOf(Object key) {
+            if (sortedKeys.length == 0) {
+                for (int i = 0; i < keys.length; i++) {
+                    if (Objects.equals(keys[i], key)) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+            if (!(key instanceof String)) {
+                return -1;
+            }
+            int position = Arrays.binarySearch(sortedKeys, key);
+            return position < 0 ? -1 : sortedIndexes[position];
+        }
+
+        public String keyAt(int index) {
+            return keys[index];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Shape && hash == ((Shape) o).hash && Arrays.equals(keys, ((Shape) o).keys);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.experimental.UtilityClass;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigBatchResult;
+import org.entando.connectionconfigconnector.service.Deadline;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+
+/**
+ * Looks up several connection configs at once by running one single-name read per distinct name on the given
+ * executor, whose size bounds the fan-out. A name whose read throws {@link ConnectionNotFoundException} (or returns
+ * nothing) is reported as not found; any other error is rethrown, as it would be by the single-name read. The
+ * {@link Deadline} of the calling thread, if any, applies to every read, and the reads run with its Spring Security
+ * context, so that the sidecar requests carry the caller's token.
+ */
+@UtilityClass
+public class ConnectionConfigBatchLookup {
+
+    public static ConnectionConfigBatchResult lookup(Collection<String> configNames,
+            Function<String, ConnectionConfig> reader, Executor executor) {
+        List<String> distinctNames = new ArrayList<>(new LinkedHashSet<>(configNames));
+        Executor target = distinctNames.size() > 1 ? new DelegatingSecurityContextExecutor(executor) : Runnable::run;
+        Deadline deadline = Deadline.current().orElse(null);
+        Function<String, ConnectionConfig> boundReader = deadline == null ? reader
+                : configName -> deadline.run(() -> reader.apply(configName));
+        List<CompletableFuture<ConnectionConfig>> futures = distinctNames.stream()
+                .map(configName -> CompletableFuture.supplyAsync(() -> boundReader.apply(configName), target))
+                .collect(Collectors.toList());
+        LinkedHashMap<String, ConnectionConfig> found = new LinkedHashMap<>();
+        List<String> notFound = new ArrayList<>();
+        for (int i = 0; i < distinctNames.size(); i++) {
+            ConnectionConfig connectionConfig = join(futures.get(i));
+            if (connectionConfig == null) {
+                notFound.add(distinctNames.get(i));
+            } else {
+                found.put(distinctNames.get(i), connectionConfig);
+            }
+        }
+        return new ConnectionConfigBatchResult(found, notFound);
+    }
+
+    private static ConnectionConfig join(CompletableFuture<ConnectionConfig> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ConnectionNotFoundException) {
+                return null;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.experimental.UtilityClass;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutation;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationResult;
+import org.entando.connectionconfigconnector.service.Deadline;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+
+/**
+ * Applies a batch of mutations by running the single-operation writes on the given executor, whose size bounds the
+ * number of writes in flight. The mutations of a given connection are applied one after the other in batch order,
+ * those of different connections concurrently. Each operation ends with its own result: an error is recorded in the
+ * result instead of being thrown, and does not prevent the other operations from running. The {@link Deadline} of the
+ * calling thread, if any, applies to every write, and the writes run with its Spring Security context.
+ */
+@UtilityClass
+public class ConnectionConfigBatchMutation {
+
+    public static List<ConnectionConfigMutationResult> apply(List<ConnectionConfigMutation> mutations,
+            Function<ConnectionConfigMutation, ConnectionConfig> writer, Executor executor) {
+        Map<String, List<Integer>> positionsByName = IntStream.range(0, mutations.size()).boxed()
+                .collect(Collectors.groupingBy(position -> mutations.get(position).getName(), LinkedHashMap::new,
+                        Collectors.toList()));
+        Executor target = positionsByName.size() > 1 ? new DelegatingSecurityContextExecutor(executor) : Runnable::run;
+        Deadline deadline = Deadline.current().orElse(null);
+        ConnectionConfigMutationResult[] results = new ConnectionConfigMutationResult[mutations.size()];
+        CompletableFuture<?>[] futures = positionsByName.values().stream()
+                .map(positions -> CompletableFuture.runAsync(() -> positions.forEach(position ->
+                        results[position] = write(mutations.get(position), writer, deadline)), target))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).join();
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Returns a writer dispatching each mutation to the single-operation write matching its type.
+     */
+    public static Function<ConnectionConfigMutation, ConnectionConfig> writer(
+            UnaryOperator<ConnectionConfig> add, UnaryOperator<ConnectionConfig> edit, Consumer<String> delete) {
+        return mutation -> {
+            switch (mutation.getType()) {
+                case ADD:
+                    return add.apply(mutation.getConnectionConfig());
+                case EDIT:
+                    return edit.apply(mutation.getConnectionConfig());
+                default:
+                    delete.accept(mutation.getName());
+                    return null;
+            }
+        };
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException") // a failed operation must not stop the batch
+    private static ConnectionConfigMutationResult write(ConnectionConfigMutation mutation,
+            Function<ConnectionConfigMutation, ConnectionConfig> writer, Deadline deadline) {
+        try {
+            ConnectionConfig written = deadline == null ? writer.apply(mutation)
+                    : deadline.run(() -> writer.apply(mutation));
+            return new ConnectionConfigMutationResult(mutation, written, null);
+        } catch (RuntimeException e) {
+            return new ConnectionConfigMutationResult(mutation, null, e);
+        }
+    }
+}
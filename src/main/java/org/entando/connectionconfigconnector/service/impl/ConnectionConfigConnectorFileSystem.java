@@ -1,23 +1,32 @@
 package org.entando.connectionconfigconnector.service.impl;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
 import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigBatchResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigQuery;
+import org.entando.connectionconfigconnector.service.ConnectionConfigListener;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigDirectoryLoader.LoadResult;
 import org.entando.web.exception.InternalServerException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.yaml.snakeyaml.Yaml;
-import org.yaml.snakeyaml.constructor.Constructor;
 
 @Slf4j
 @Component
@@ -27,17 +36,164 @@ public class ConnectionConfigConnectorFileSystem {
 
     private final String rootDirectory;
 
+    private final boolean watch;
+
+    private final ConnectionConfigYamlDecoder yamlDecoder = new ConnectionConfigYamlDecoder();
+
+    private final int loaderParallelism;
+
+    private final Object loaderPoolLock = new Object();
+
+    private ForkJoinPool loaderPool;
+
+    private boolean stopped;
+
+    private final ConnectionConfigDirectoryLoader directoryLoader;
+
+    private final ConnectionConfigSnapshotWatcher snapshotWatcher;
+
+    private final ConnectionConfigEventPublisher eventPublisher;
+
+    private final ConnectionConfigMetrics metrics;
+
+    private final ConnectionConfigPackReader packReader;
+
+    private final boolean fileReferences;
+
+    public static final int DEFAULT_LOADER_PARALLELISM = 4;
+
+    public ConnectionConfigConnectorFileSystem(String rootDirectory) {
+        this(rootDirectory, false, 0);
+    }
+
+    public ConnectionConfigConnectorFileSystem(String rootDirectory, boolean watch, int loaderParallelism) {
+        this(rootDirectory, watch, loaderParallelism, ConnectionConfigEventPublisher.DEFAULT_COALESCE_MILLIS,
+                new NoopConnectionConfigMetrics());
+    }
+
+    @Autowired
     public ConnectionConfigConnectorFileSystem(
-            @Value("${entando.connections.root:/etc/entando/connectionconfigs}") String rootDirectory) {
+            @Value("${entando.connections.root:/etc/entando/connectionconfigs}") String rootDirectory,
+            @Value("${entando.connections.watch:false}") boolean watch,
+            @Value("${entando.connections.loader.parallelism:4}") int loaderParallelism,
+            @Value("${entando.connections.events.coalesce-millis:100}") long eventCoalesceMillis,
+            @Value("${entando.connections.pack.file:}") String packFile,
+            @Value("${entando.connections.file-references.enabled:false}") boolean fileReferences,
+            ObjectProvider<ConnectionConfigMetrics> metrics) {
+        this(rootDirectory, watch, loaderParallelism, eventCoalesceMillis, packFile, fileReferences,
+                metrics.getIfAvailable(NoopConnectionConfigMetrics::new));
+    }
+
+    public ConnectionConfigConnectorFileSystem(String rootDirectory, boolean watch, int loaderParallelism,
+            long eventCoalesceMillis, ConnectionConfigMetrics metrics) {
+        this(rootDirectory, watch, loaderParallelism, eventCoalesceMillis, "", metrics);
+    }
+
+    public ConnectionConfigConnectorFileSystem(String rootDirectory, boolean watch, int loaderParallelism,
+            long eventCoalesceMillis, String packFile, ConnectionConfigMetrics metrics) {
+        this(rootDirectory, watch, loaderParallelism, eventCoalesceMillis, packFile, false, metrics);
+    }
+
+    /**
+     * Creates the file system connector.
+     *
+     * @param rootDirectory directory holding one subdirectory per connection
+     * @param watch whether reads are served from a watched in-memory snapshot
+     * @param loaderParallelism number of threads of the pool parsing connection directories in bulk, {@code 0} for
+     *         {@link #DEFAULT_LOADER_PARALLELISM}; the common {@link ForkJoinPool} is never used, since the parsing
+     *         blocks on file reads
+     * @param eventCoalesceMillis how long change events are held and merged before being delivered to listeners
+     * @param packFile path of the {@link ConnectionConfigPackFile} connections are read from when it is up to date,
+     *         empty to always read the connection directories
+     * @param fileReferences whether property values starting with {@link LazyProperties#FILE_REFERENCE_PREFIX} are
+     *         read from the file of the connection directory they name, rather than returned as they are
+     * @param metrics records the time spent parsing files
+     */
+    public ConnectionConfigConnectorFileSystem(String rootDirectory, boolean watch, int loaderParallelism,
+            long eventCoalesceMillis, String packFile, boolean fileReferences, ConnectionConfigMetrics metrics) {
         this.rootDirectory = rootDirectory;
+        this.fileReferences = fileReferences;
+        this.packReader = new ConnectionConfigPackReader(packFile);
+        this.watch = watch;
+        this.metrics = metrics;
+        this.loaderParallelism = loaderParallelism > 0 ? loaderParallelism : DEFAULT_LOADER_PARALLELISM;
+        this.directoryLoader = new ConnectionConfigDirectoryLoader(Paths.get(rootDirectory),
+                this::readConnectionConfig, this::load);
+        this.eventPublisher = new ConnectionConfigEventPublisher("connection-config-events-", eventCoalesceMillis);
+        this.snapshotWatcher = new ConnectionConfigSnapshotWatcher(Paths.get(rootDirectory), CONFIG_YAML,
+                directoryLoader, eventPublisher);
+    }
+
+    @PostConstruct
+    public void startWatching() throws IOException {
+        if (watch) {
+            snapshotWatcher.start();
+        }
+    }
+
+    /**
+     * Stops the watcher and releases the event thread and the loader pool, which are only created once they are
+     * needed; bulk reads are rejected afterwards.
+     */
+    @PreDestroy
+    public void stopWatching() throws IOException {
+        snapshotWatcher.close();
+        eventPublisher.close();
+        synchronized (loaderPoolLock) {
+            stopped = true;
+            if (loaderPool != null) {
+                loaderPool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Registers a listener notified of the changes found by the file system watcher. Changes are only watched in
+     * watch mode, so listeners are rejected otherwise.
+     *
+     * @throws UnsupportedOperationException if reads are not served from the watched snapshot
+     */
+    public void addConnectionConfigListener(ConnectionConfigListener listener) {
+        if (!watch) {
+            throw new UnsupportedOperationException("Connection config changes are only reported in watch mode");
+        }
+        eventPublisher.addListener(listener);
+    }
+
+    public void removeConnectionConfigListener(ConnectionConfigListener listener) {
+        eventPublisher.removeListener(listener);
+    }
+
+    /**
+     * Tells whether reads are served from the in-memory snapshot, i.e. without any file system access.
+     */
+    public boolean isWatching() {
+        return watch;
     }
 
     public ConnectionConfig getConnectionConfig(String configName) {
-        try (InputStream inputStream = Files.newInputStream(Paths.get(rootDirectory, configName, CONFIG_YAML))) {
-            Yaml yaml = new Yaml(new Constructor(ConnectionConfig.class));
-            ConnectionConfig connectionConfig = yaml.load(inputStream);
+        if (!watch) {
+            return readConnectionConfig(configName);
+        }
+        ConnectionConfig connectionConfig = snapshotWatcher.get(configName);
+        if (connectionConfig == null) {
+            log.trace("Connection not found: {}", configName);
+            throw new ConnectionNotFoundException();
+        }
+        return CompactProperties.mutableCopy(connectionConfig);
+    }
+
+    private ConnectionConfig readConnectionConfig(String configName) {
+        Path configFile = Paths.get(rootDirectory, configName, CONFIG_YAML);
+        ConnectionConfig packed = packReader.read(configName, configFile);
+        if (packed != null) {
+            return deferFileReferences(packed, configFile);
+        }
+        try {
+            byte[] content = Files.readAllBytes(configFile);
+            ConnectionConfig connectionConfig = metrics.recordYamlParse(() -> yamlDecoder.decode(content));
             connectionConfig.setName(configName);
-            return connectionConfig;
+            return deferFileReferences(connectionConfig, configFile);
         } catch (NoSuchFileException e) {
             log.trace("Connection not found: {}", configName, e);
             throw new ConnectionNotFoundException(e);
@@ -47,18 +203,102 @@ public class ConnectionConfigConnectorFileSystem {
         }
     }
 
+    private ConnectionConfig deferFileReferences(ConnectionConfig connectionConfig, Path configFile) {
+        return fileReferences ? LazyProperties.deferFileReferences(connectionConfig, configFile.getParent())
+                : connectionConfig;
+    }
+
     public List<ConnectionConfig> getConnectionConfigs() {
-        try {
-            return Files.walk(Paths.get(rootDirectory))
-                    .map(Path::toFile)
-                    .filter(File::isDirectory)
-                    .filter(e -> !e.getAbsolutePath().equals(rootDirectory))
-                    .map(File::getName)
-                    .map(this::getConnectionConfig)
+        if (watch) {
+            return snapshotWatcher.getAll().stream()
+                    .map(CompactProperties::mutableCopy)
                     .collect(Collectors.toList());
+        }
+        try {
+            LoadResult result = directoryLoader.load();
+            result.getFailures().forEach((configName, error) ->
+                    log.warn("Error retrieving configuration with name {}", configName, error));
+            return result.getConnectionConfigs();
         } catch (IOException e) {
             log.debug("Error retrieving all configurations", e);
             return Collections.emptyList();
         }
     }
+
+    /**
+     * Looks up the given connection configs, reading their files in parallel on the loader pool or, in watch mode,
+     * straight from the snapshot.
+     */
+    public ConnectionConfigBatchResult getConnectionConfigs(Collection<String> configNames) {
+        if (watch) {
+            return ConnectionConfigBatchLookup.lookup(configNames, this::getConnectionConfig, Runnable::run);
+        }
+        return ConnectionConfigBatchLookup.lookup(configNames, this::readConnectionConfig, this::load);
+    }
+
+    /**
+     * Passes every connection config to the action, reading the connection directories one at a time as the root
+     * directory is listed or, in watch mode, walking the snapshot. Connections that cannot be read are logged and
+     * skipped, as by {@link #getConnectionConfigs()}.
+     */
+    public void forEachConnectionConfig(Consumer<? super ConnectionConfig> action) {
+        if (watch) {
+            snapshotWatcher.getAll().stream().map(CompactProperties::mutableCopy).forEach(action);
+            return;
+        }
+        try {
+            directoryLoader.forEachConnectionName(configName -> readForEach(configName, action));
+        } catch (IOException e) {
+            log.debug("Error streaming all configurations", e);
+        }
+    }
+
+    /**
+     * Returns the connection configs matching the query, from the snapshot index in watch mode or by filtering the
+     * connections as they are read otherwise.
+     */
+    public List<ConnectionConfig> findConnectionConfigs(ConnectionConfigQuery query) {
+        if (watch) {
+            return snapshotWatcher.find(query).stream()
+                    .map(CompactProperties::mutableCopy)
+                    .collect(Collectors.toList());
+        }
+        List<ConnectionConfig> found = new ArrayList<>();
+        forEachConnectionConfig(connectionConfig -> {
+            if (query.matches(connectionConfig)) {
+                found.add(connectionConfig);
+            }
+        });
+        return ConnectionConfigIndex.sortByName(found);
+    }
+
+    /**
+     * Runs a parsing task on the loader pool, created by the first bulk read.
+     */
+    @SuppressWarnings("PMD.DoNotUseThreads")
+    private void load(Runnable task) {
+        synchronized (loaderPoolLock) {
+            if (stopped) {
+                throw new RejectedExecutionException("Connection config loader pool stopped");
+            }
+            if (loaderPool == null) {
+                loaderPool = new ForkJoinPool(loaderParallelism);
+            }
+            loaderPool.execute(task);
+        }
+    }
+
+    private void readForEach(String configName, Consumer<? super ConnectionConfig> action) {
+        ConnectionConfig connectionConfig;
+        try {
+            connectionConfig = readConnectionConfig(configName);
+        } catch (ConnectionNotFoundException e) {
+            log.trace("Connection directory without {}: {}", CONFIG_YAML, configName, e);
+            return;
+        } catch (InternalServerException e) {
+            log.warn("Error retrieving configuration with name {}", configName, e);
+            return;
+        }
+        action.accept(connectionConfig);
+    }
 }
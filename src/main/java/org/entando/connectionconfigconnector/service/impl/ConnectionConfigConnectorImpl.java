@@ -1,150 +1,358 @@
 package org.entando.connectionconfigconnector.service.impl;
 
-import static org.entando.connectionconfigconnector.config.ConnectionConfigConfiguration.CONFIG_REST_TEMPLATE;
-
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.List;
-import lombok.extern.slf4j.Slf4j;
-import org.entando.connectionconfigconnector.exception.ConnectionAlreadyExistsException;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
 import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
 import org.entando.connectionconfigconnector.exception.InvalidStrictOperationException;
+import org.entando.connectionconfigconnector.exception.SidecarUnavailableException;
 import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigBatchResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutation;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationType;
+import org.entando.connectionconfigconnector.model.ConnectionConfigPatch;
+import org.entando.connectionconfigconnector.model.ConnectionConfigQuery;
 import org.entando.connectionconfigconnector.model.SecurityLevel;
 import org.entando.connectionconfigconnector.service.ConnectionConfigConnector;
-import org.entando.web.exception.InternalServerException;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.entando.connectionconfigconnector.service.ConnectionConfigListener;
+import org.entando.connectionconfigconnector.service.Deadline;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpClientErrorException.Conflict;
-import org.springframework.web.client.HttpClientErrorException.NotFound;
-import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 
-@Slf4j
 @Service
+@SuppressWarnings("PMD.TooManyMethods")
 public class ConnectionConfigConnectorImpl implements ConnectionConfigConnector {
 
-    private static final String CONFIG_ENDPOINT = "/config";
-
     private final SecurityLevel securityLevel;
 
-    private final RestTemplate restTemplate;
+    private final ConnectionConfigConnectorSidecar connectionConfigConnectorSidecar;
 
     private final ConnectionConfigConnectorFileSystem connectionConfigConnectorFileSystem;
 
+    private final ConnectionConfigMetrics metrics;
+
+    private final SidecarSnapshotStore snapshotStore;
+
+    // a deadline expiring, a full bulkhead or an open circuit only concern the caller that ran the load
+    private final SingleFlight<String, ConnectionConfig> connectionConfigFlights =
+            new SingleFlight<>(CompactProperties::mutableCopy, SidecarUnavailableException.class::isInstance);
+
+    private final SingleFlight<SecurityLevel, List<ConnectionConfig>> connectionConfigListFlights =
+            new SingleFlight<>(ConnectionConfigConnectorImpl::copyOf, SidecarUnavailableException.class::isInstance);
+
     public static final String INTERNAL_ERROR_KEY = "org.entando.error.internalServerError";
 
+    /**
+     * Creates the connector calling the sidecar through the given template, without cache, snapshot nor metrics.
+     */
+    public ConnectionConfigConnectorImpl(String securityLevel, RestTemplate restTemplate,
+            ConnectionConfigConnectorFileSystem connectionConfigConnectorFileSystem) {
+        this(securityLevel, new ConnectionConfigConnectorSidecar(restTemplate, 0),
+                connectionConfigConnectorFileSystem);
+    }
+
+    public ConnectionConfigConnectorImpl(String securityLevel,
+            ConnectionConfigConnectorSidecar connectionConfigConnectorSidecar,
+            ConnectionConfigConnectorFileSystem connectionConfigConnectorFileSystem) {
+        this(securityLevel, connectionConfigConnectorSidecar, connectionConfigConnectorFileSystem,
+                new NoopConnectionConfigMetrics());
+    }
+
+    @Autowired
     public ConnectionConfigConnectorImpl(
             @Value("${entando.plugin.security.level:STRICT}") String securityLevel,
-            @Qualifier(CONFIG_REST_TEMPLATE) RestTemplate restTemplate,
-            ConnectionConfigConnectorFileSystem connectionConfigConnectorFileSystem) {
+            ConnectionConfigConnectorSidecar connectionConfigConnectorSidecar,
+            ConnectionConfigConnectorFileSystem connectionConfigConnectorFileSystem,
+            ObjectProvider<ConnectionConfigMetrics> metrics, SidecarSnapshotStore snapshotStore) {
+        this(securityLevel, connectionConfigConnectorSidecar, connectionConfigConnectorFileSystem,
+                metrics.getIfAvailable(NoopConnectionConfigMetrics::new), snapshotStore);
+    }
+
+    public ConnectionConfigConnectorImpl(String securityLevel,
+            ConnectionConfigConnectorSidecar connectionConfigConnectorSidecar,
+            ConnectionConfigConnectorFileSystem connectionConfigConnectorFileSystem,
+            ConnectionConfigMetrics metrics) {
+        this(securityLevel, connectionConfigConnectorSidecar, connectionConfigConnectorFileSystem, metrics,
+                new SidecarSnapshotStore("", 0, 0));
+    }
+
+    /**
+     * Creates the connector.
+     *
+     * @param securityLevel {@code STRICT} to read the file system, {@code LENIENT} to call the sidecar
+     * @param connectionConfigConnectorSidecar connector used on the {@code LENIENT} level
+     * @param connectionConfigConnectorFileSystem connector used on the {@code STRICT} level
+     * @param metrics records the duration and outcome of every operation
+     * @param snapshotStore keeps a local copy of the configs fetched from the sidecar, loaded by {@link #start()}
+     */
+    public ConnectionConfigConnectorImpl(String securityLevel,
+            ConnectionConfigConnectorSidecar connectionConfigConnectorSidecar,
+            ConnectionConfigConnectorFileSystem connectionConfigConnectorFileSystem,
+            ConnectionConfigMetrics metrics, SidecarSnapshotStore snapshotStore) {
         this.securityLevel = SecurityLevel.valueOf(securityLevel);
-        this.restTemplate = restTemplate;
+        this.connectionConfigConnectorSidecar = connectionConfigConnectorSidecar;
         this.connectionConfigConnectorFileSystem = connectionConfigConnectorFileSystem;
+        this.metrics = metrics;
+        this.snapshotStore = snapshotStore;
+    }
+
+    /**
+     * On the {@code LENIENT} level, loads the local snapshot of the sidecar configs, if enabled. It is reconciled with
+     * the sidecar by the first read, which carries the credentials the sidecar needs.
+     */
+    @PostConstruct
+    public void start() {
+        if (securityLevel == SecurityLevel.LENIENT) {
+            snapshotStore.start();
+        }
     }
 
+    /**
+     * Returns the connection config with the given name. Concurrent lookups of the same name share a single read of
+     * the file system or request to the sidecar.
+     */
     @Override
-    @SuppressFBWarnings("OBL_UNSATISFIED_OBLIGATION")
     public ConnectionConfig getConnectionConfig(String configName) {
+        return metrics.recordOperation(ConnectionConfigMetrics.OPERATION_GET, securityLevel,
+                () -> connectionConfigFlights.load(configName, () -> loadConnectionConfig(configName)));
+    }
+
+    private ConnectionConfig loadConnectionConfig(String configName) {
         if (securityLevel == SecurityLevel.STRICT) {
             return connectionConfigConnectorFileSystem.getConnectionConfig(configName);
         } else {
-            return getConnectionConfigFromEndpoint(configName);
+            reconcileSnapshot();
+            return snapshotStore.getUnreconciled(configName)
+                    .orElseGet(() -> fetchConnectionConfig(configName));
         }
     }
 
-    private ConnectionConfig getConnectionConfigFromEndpoint(String configName) {
+    private ConnectionConfig fetchConnectionConfig(String configName) {
         try {
-            ResponseEntity<ConnectionConfig> response = restTemplate
-                    .getForEntity(CONFIG_ENDPOINT + "/" + configName, ConnectionConfig.class);
-            return response.getBody();
-        } catch (NotFound e) {
-            log.trace("Connection not found: {}", configName);
-            throw new ConnectionNotFoundException(e);
-        } catch (HttpClientErrorException e) {
-            log.debug("Error retrieving configuration with name {}", configName, e);
-            throw new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, e);
+            ConnectionConfig connectionConfig = connectionConfigConnectorSidecar.getConnectionConfig(configName);
+            snapshotStore.record(connectionConfig);
+            return connectionConfig;
+        } catch (ConnectionNotFoundException e) {
+            snapshotStore.forget(configName);
+            throw e;
         }
     }
 
+    /**
+     * Returns all the connection configs. Concurrent calls share a single listing.
+     */
     @Override
     public List<ConnectionConfig> getConnectionConfigs() {
+        return metrics.recordOperation(ConnectionConfigMetrics.OPERATION_LIST, securityLevel,
+                () -> connectionConfigListFlights.load(securityLevel, this::loadConnectionConfigs));
+    }
+
+    @Override
+    public ConnectionConfigBatchResult getConnectionConfigs(Collection<String> configNames) {
+        return metrics.recordOperation(ConnectionConfigMetrics.OPERATION_BATCH, securityLevel,
+                () -> loadConnectionConfigs(configNames));
+    }
+
+    private List<ConnectionConfig> loadConnectionConfigs() {
         if (securityLevel == SecurityLevel.STRICT) {
             return connectionConfigConnectorFileSystem.getConnectionConfigs();
         } else {
-            return getConnectionConfigsFromEndpoint();
+            reconcileSnapshot();
+            return snapshotStore.getAllUnreconciled().orElseGet(this::fetchConnectionConfigs);
         }
     }
 
-    private List<ConnectionConfig> getConnectionConfigsFromEndpoint() {
-        try {
-            ResponseEntity<List<ConnectionConfig>> response = restTemplate
-                    .exchange(CONFIG_ENDPOINT, HttpMethod.GET, null,
-                            new ParameterizedTypeReference<List<ConnectionConfig>>() {
-                            });
-            return response.getBody() == null ? Collections.emptyList() : response.getBody();
-        } catch (HttpClientErrorException e) {
-            log.debug("Error retrieving configurations", e);
-            return Collections.emptyList();
+    private ConnectionConfigBatchResult loadConnectionConfigs(Collection<String> configNames) {
+        if (securityLevel == SecurityLevel.STRICT) {
+            return connectionConfigConnectorFileSystem.getConnectionConfigs(configNames);
+        }
+        reconcileSnapshot();
+        if (snapshotStore.isReconciled()) {
+            ConnectionConfigBatchResult result = connectionConfigConnectorSidecar.getConnectionConfigs(configNames);
+            result.getConnectionConfigs().values().forEach(snapshotStore::record);
+            result.getNotFound().forEach(snapshotStore::forget);
+            return result;
+        } else {
+            return ConnectionConfigBatchLookup.lookup(configNames, this::loadConnectionConfig, Runnable::run);
         }
     }
 
+    private void reconcileSnapshot() {
+        snapshotStore.reconcile(connectionConfigConnectorSidecar::getConnectionConfigs);
+    }
+
+    private List<ConnectionConfig> fetchConnectionConfigs() {
+        List<ConnectionConfig> connectionConfigs = connectionConfigConnectorSidecar.getConnectionConfigs();
+        snapshotStore.recordAll(connectionConfigs);
+        return connectionConfigs;
+    }
+
+    /**
+     * Passes every connection config to the action as it is read from the file system or parsed from the sidecar
+     * response. While the local snapshot is not reconciled, its configs are passed instead.
+     */
     @Override
-    public ConnectionConfig addConnectionConfig(ConnectionConfig connectionConfig) {
+    public void forEachConnectionConfig(Consumer<? super ConnectionConfig> action) {
+        metrics.recordOperation(ConnectionConfigMetrics.OPERATION_STREAM, securityLevel, () -> {
+            if (securityLevel == SecurityLevel.STRICT) {
+                connectionConfigConnectorFileSystem.forEachConnectionConfig(action);
+                return null;
+            }
+            reconcileSnapshot();
+            Optional<List<ConnectionConfig>> unreconciled = snapshotStore.getAllUnreconciled();
+            if (unreconciled.isPresent()) {
+                unreconciled.get().stream().map(CompactProperties::mutableCopy).forEach(action);
+            } else {
+                connectionConfigConnectorSidecar.forEachConnectionConfig(action);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Returns the connection configs matching the query. While the local snapshot is not reconciled, its configs are
+     * filtered instead of the sidecar listing.
+     */
+    @Override
+    public List<ConnectionConfig> findConnectionConfigs(ConnectionConfigQuery query) {
+        return metrics.recordOperation(ConnectionConfigMetrics.OPERATION_FIND, securityLevel, () -> {
+            if (securityLevel == SecurityLevel.STRICT) {
+                return connectionConfigConnectorFileSystem.findConnectionConfigs(query);
+            }
+            reconcileSnapshot();
+            Optional<List<ConnectionConfig>> unreconciled = snapshotStore.getAllUnreconciled();
+            return unreconciled.isPresent()
+                    ? copyOf(ConnectionConfigIndex.filter(unreconciled.get(), query))
+                    : connectionConfigConnectorSidecar.findConnectionConfigs(query);
+        });
+    }
+
+    @Override
+    public void addConnectionConfigListener(ConnectionConfigListener listener) {
         if (securityLevel == SecurityLevel.STRICT) {
-            throw new InvalidStrictOperationException();
-        }
-        try {
-            ResponseEntity<ConnectionConfig> response = restTemplate
-                    .postForEntity(CONFIG_ENDPOINT, connectionConfig, ConnectionConfig.class);
-            return response.getBody();
-        } catch (Conflict e) {
-            log.trace("Connection already exists: {}", connectionConfig.getName());
-            throw new ConnectionAlreadyExistsException(e);
-        } catch (HttpServerErrorException e) {
-            log.error("Error adding connection config {}!", connectionConfig.getName(), e);
-            throw new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, e);
+            connectionConfigConnectorFileSystem.addConnectionConfigListener(listener);
+        } else {
+            connectionConfigConnectorSidecar.addConnectionConfigListener(listener);
         }
     }
 
     @Override
-    public void deleteConnectionConfig(String configName) {
+    public void removeConnectionConfigListener(ConnectionConfigListener listener) {
         if (securityLevel == SecurityLevel.STRICT) {
-            throw new InvalidStrictOperationException();
-        }
-        try {
-            restTemplate.delete(CONFIG_ENDPOINT + "/" + configName);
-        } catch (NotFound e) {
-            log.trace("Connection not found: {}", configName);
-            throw new ConnectionNotFoundException(e);
-        } catch (HttpServerErrorException e) {
-            log.error("Error deleting connection config {}!", configName, e);
-            throw new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, e);
+            connectionConfigConnectorFileSystem.removeConnectionConfigListener(listener);
+        } else {
+            connectionConfigConnectorSidecar.removeConnectionConfigListener(listener);
         }
     }
 
+    @Override
+    public ConnectionConfig addConnectionConfig(ConnectionConfig connectionConfig) {
+        return metrics.recordOperation(ConnectionConfigMetrics.OPERATION_ADD, securityLevel, () -> {
+            if (securityLevel == SecurityLevel.STRICT) {
+                throw new InvalidStrictOperationException();
+            }
+            ConnectionConfig added = connectionConfigConnectorSidecar.addConnectionConfig(connectionConfig);
+            snapshotStore.record(added);
+            return added;
+        });
+    }
+
+    @Override
+    public void deleteConnectionConfig(String configName) {
+        metrics.recordOperation(ConnectionConfigMetrics.OPERATION_DELETE, securityLevel, () -> {
+            if (securityLevel == SecurityLevel.STRICT) {
+                throw new InvalidStrictOperationException();
+            }
+            connectionConfigConnectorSidecar.deleteConnectionConfig(configName);
+            snapshotStore.forget(configName);
+            return null;
+        });
+    }
+
     @Override
     public ConnectionConfig editConnectionConfig(ConnectionConfig connectionConfig) {
-        if (securityLevel == SecurityLevel.STRICT) {
-            throw new InvalidStrictOperationException();
-        }
-        try {
-            HttpEntity<ConnectionConfig> request = new HttpEntity<>(connectionConfig);
-            ResponseEntity<ConnectionConfig> response = restTemplate
-                    .exchange(CONFIG_ENDPOINT, HttpMethod.PUT, request, ConnectionConfig.class);
-            return response.getBody();
-        } catch (NotFound e) {
-            log.trace("Connection not found: {}", connectionConfig.getName());
-            throw new ConnectionNotFoundException(e);
-        } catch (HttpServerErrorException e) {
-            log.error("Error editing connection config {}!", connectionConfig.getName(), e);
-            throw new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, e);
-        }
+        return metrics.recordOperation(ConnectionConfigMetrics.OPERATION_EDIT, securityLevel, () -> {
+            if (securityLevel == SecurityLevel.STRICT) {
+                throw new InvalidStrictOperationException();
+            }
+            ConnectionConfig edited = connectionConfigConnectorSidecar.editConnectionConfig(connectionConfig);
+            snapshotStore.record(edited);
+            return edited;
+        });
+    }
+
+    /**
+     * Sets and removes some properties of a connection config without sending the others.
+     */
+    @Override
+    public ConnectionConfig patchConnectionConfig(ConnectionConfigPatch patch) {
+        return metrics.recordOperation(ConnectionConfigMetrics.OPERATION_PATCH, securityLevel, () -> {
+            if (securityLevel == SecurityLevel.STRICT) {
+                throw new InvalidStrictOperationException();
+            }
+            ConnectionConfig patched = connectionConfigConnectorSidecar.patchConnectionConfig(patch);
+            snapshotStore.record(patched);
+            return patched;
+        });
+    }
+
+    @Override
+    public List<ConnectionConfigMutationResult> applyMutations(List<ConnectionConfigMutation> mutations) {
+        return metrics.recordOperation(ConnectionConfigMetrics.OPERATION_MUTATE, securityLevel, () -> {
+            if (securityLevel == SecurityLevel.STRICT) {
+                throw new InvalidStrictOperationException();
+            }
+            List<ConnectionConfigMutationResult> results = connectionConfigConnectorSidecar.applyMutations(mutations);
+            results.stream().filter(ConnectionConfigMutationResult::isSuccessful).forEach(result -> {
+                if (result.getMutation().getType() == ConnectionConfigMutationType.DELETE) {
+                    snapshotStore.forget(result.getMutation().getName());
+                } else {
+                    snapshotStore.record(result.getConnectionConfig());
+                }
+            });
+            return results;
+        });
+    }
+
+    /**
+     * Returns the number of lookups actually sent to the file system or to the sidecar.
+     */
+    public long getLoads() {
+        return connectionConfigFlights.getLoads() + connectionConfigListFlights.getLoads();
+    }
+
+    /**
+     * Returns the number of lookups served by an identical lookup already in progress.
+     */
+    public long getCollapsedCalls() {
+        return connectionConfigFlights.getCollapsedCalls() + connectionConfigListFlights.getCollapsedCalls();
+    }
+
+    /**
+     * Only the {@code LENIENT} level keeps what it reads, in the sidecar response cache when it is enabled: on
+     * {@code STRICT} the files are either read on every call or all loaded at startup, and the local snapshot is
+     * loaded at startup as well.
+     */
+    @Override
+    public boolean keepsLoadedConfigs() {
+        return securityLevel == SecurityLevel.LENIENT && connectionConfigConnectorSidecar.isCaching();
+    }
+
+    @Override
+    public ConnectionConfigConnector withDeadline(Deadline deadline) {
+        return new DeadlineConnectionConfigConnector(this, deadline);
+    }
+
+    private static List<ConnectionConfig> copyOf(List<ConnectionConfig> connectionConfigs) {
+        return connectionConfigs.stream()
+                .map(CompactProperties::mutableCopy)
+                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,442 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import static org.entando.connectionconfigconnector.config.ConnectionConfigConfiguration.CONFIG_REST_TEMPLATE;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.connectionconfigconnector.exception.ConnectionAlreadyExistsException;
+import org.entando.connectionconfigconnector.exception.ConnectionModifiedException;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigBatchResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigEvent;
+import org.entando.connectionconfigconnector.model.ConnectionConfigEventType;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutation;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigPatch;
+import org.entando.connectionconfigconnector.model.ConnectionConfigQuery;
+import org.entando.connectionconfigconnector.model.VersionedConnectionConfig;
+import org.entando.connectionconfigconnector.service.ConnectionConfigListener;
+import org.entando.connectionconfigconnector.service.impl.SidecarResponseCache.Entry;
+import org.entando.web.exception.InternalServerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+@Slf4j
+@Component
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.ExcessiveImports"})
+public class ConnectionConfigConnectorSidecar {
+
+    private static final String CONFIG_ENDPOINT = "/config";
+    private static final String NOT_FOUND_MESSAGE = "Connection not found: {}";
+    private static final int DEFAULT_BATCH_PARALLELISM = 8;
+
+    private static final ParameterizedTypeReference<List<ConnectionConfig>> CONFIG_LIST_TYPE =
+            new ParameterizedTypeReference<List<ConnectionConfig>>() {
+            };
+
+    private final RestTemplate restTemplate;
+
+    private final SidecarResponseCache cache;
+
+    private final ExecutorService batchExecutor;
+
+    private final ConnectionConfigEventPublisher eventPublisher;
+
+    private final SidecarCircuitBreaker circuitBreaker;
+
+    private final SidecarBulkhead bulkhead;
+
+    public ConnectionConfigConnectorSidecar(RestTemplate restTemplate, long cacheTtlMillis) {
+        this(restTemplate, cacheTtlMillis, DEFAULT_BATCH_PARALLELISM,
+                ConnectionConfigEventPublisher.DEFAULT_COALESCE_MILLIS);
+    }
+
+    public ConnectionConfigConnectorSidecar(RestTemplate restTemplate, long cacheTtlMillis, int batchParallelism,
+            long eventCoalesceMillis) {
+        this(restTemplate, cacheTtlMillis, 0, batchParallelism, eventCoalesceMillis,
+                new SidecarCircuitBreaker(0, 0));
+    }
+
+    public ConnectionConfigConnectorSidecar(RestTemplate restTemplate, long cacheTtlMillis, long maxStaleMillis,
+            int batchParallelism, long eventCoalesceMillis, SidecarCircuitBreaker circuitBreaker) {
+        this(restTemplate, cacheTtlMillis, maxStaleMillis, batchParallelism, eventCoalesceMillis,
+                circuitBreaker, new SidecarBulkhead(0, 0));
+    }
+
+    /**
+     * Creates the sidecar connector.
+     *
+     * @param restTemplate template pointing to the sidecar
+     * @param cacheTtlMillis how long a response is served from the cache before being revalidated, {@code 0}
+     *         disables the cache
+     * @param maxStaleMillis how long past its TTL a cached response is still served while the sidecar is
+     *         unavailable, {@code 0} disables the fallback
+     * @param batchParallelism maximum number of concurrent requests sent for a bulk lookup
+     * @param eventCoalesceMillis how long change events are held and merged before being delivered to listeners
+     * @param circuitBreaker circuit breaker guarding every call to the sidecar
+     * @param bulkhead bulkhead capping the number of calls to the sidecar in flight
+     */
+    @Autowired
+    public ConnectionConfigConnectorSidecar(@Qualifier(CONFIG_REST_TEMPLATE) RestTemplate restTemplate,
+            @Value("${plugin.sidecar.cache.ttl-millis:0}") long cacheTtlMillis,
+            @Value("${plugin.sidecar.cache.max-stale-millis:0}") long maxStaleMillis,
+            @Value("${plugin.sidecar.batch.parallelism:8}") int batchParallelism,
+            @Value("${entando.connections.events.coalesce-millis:100}") long eventCoalesceMillis,
+            SidecarCircuitBreaker circuitBreaker, SidecarBulkhead bulkhead) {
+        this.restTemplate = restTemplate;
+        this.cache = new SidecarResponseCache(cacheTtlMillis, maxStaleMillis);
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.batchExecutor = DaemonThreadFactory.newThreadPool("connection-config-batch-", batchParallelism,
+                Integer.MAX_VALUE);
+        this.eventPublisher = new ConnectionConfigEventPublisher("connection-config-events-", eventCoalesceMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        batchExecutor.shutdown();
+        eventPublisher.close();
+    }
+
+    /**
+     * Registers a listener notified of the mutations made through this connector. The sidecar has no change feed and
+     * can only be called on behalf of an authenticated caller, so the changes made by others are not reported.
+     */
+    public void addConnectionConfigListener(ConnectionConfigListener listener) {
+        eventPublisher.addListener(listener);
+    }
+
+    public void removeConnectionConfigListener(ConnectionConfigListener listener) {
+        eventPublisher.removeListener(listener);
+    }
+
+    /**
+     * Tells whether the responses of the sidecar are cached.
+     */
+    public boolean isCaching() {
+        return cache.isEnabled();
+    }
+
+    /**
+     * Returns the connection config with the given name, as a {@link VersionedConnectionConfig} when the sidecar
+     * tagged it. If the sidecar cannot be reached and the config was fetched recently enough, the cached version is
+     * returned as a {@code StaleConnectionConfig}.
+     */
+    public ConnectionConfig getConnectionConfig(String configName) {
+        if (!cache.isEnabled()) {
+            return send(() -> fetchConnectionConfig(configName, null)).getValue();
+        }
+        Entry<ConnectionConfig> cached = cache.get(configName);
+        if (cached != null && cache.isFresh(cached)) {
+            return cached.getValue() == null ? null : SidecarResponseCache.copyOf(cached.getValue());
+        }
+        return send(() -> refreshConnectionConfig(configName, cached),
+                () -> staleConnectionConfig(configName, cached));
+    }
+
+    private ConnectionConfig refreshConnectionConfig(String configName, Entry<ConnectionConfig> cached) {
+        Entry<ConnectionConfig> fetched = fetchConnectionConfig(configName, cached);
+        cache.put(configName, fetched);
+        return fetched.getValue() == null ? null : SidecarResponseCache.copyOf(fetched.getValue());
+    }
+
+    private ConnectionConfig staleConnectionConfig(String configName, Entry<ConnectionConfig> cached) {
+        if (!cache.isUsableWhenStale(cached)) {
+            return null;
+        }
+        log.warn("Sidecar unavailable, serving stale connection config {}", configName);
+        return SidecarResponseCache.staleCopyOf(cached.getValue(), cached.getStoredAt());
+    }
+
+    private Entry<ConnectionConfig> fetchConnectionConfig(String configName, Entry<ConnectionConfig> cached) {
+        try {
+            ResponseEntity<ConnectionConfig> response = restTemplate
+                    .exchange(CONFIG_ENDPOINT + "/" + configName, HttpMethod.GET,
+                            Entry.conditionalRequest(cached), ConnectionConfig.class);
+            if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+                return cached.revalidated();
+            }
+            ConnectionConfig body = response.getBody();
+            return Entry.fromResponse(response, VersionedConnectionConfig.withVersion(
+                    body == null || !cache.isEnabled() ? body : SidecarResponseCache.freeze(body),
+                    response.getHeaders().getETag()));
+        } catch (HttpClientErrorException.NotFound e) {
+            log.trace(NOT_FOUND_MESSAGE, configName);
+            cache.remove(configName);
+            throw new ConnectionNotFoundException(e);
+        } catch (HttpClientErrorException e) {
+            log.debug("Error retrieving configuration with name {}", configName, e);
+            throw new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, e);
+        }
+    }
+
+    /**
+     * Returns all the connection configs, falling back to the cached list as {@code StaleConnectionConfig} instances
+     * like {@link #getConnectionConfig(String)}.
+     */
+    public List<ConnectionConfig> getConnectionConfigs() {
+        try {
+            if (!cache.isEnabled()) {
+                return send(() -> fetchConnectionConfigs(null)).getValue();
+            }
+            Entry<List<ConnectionConfig>> cached = cache.getList();
+            if (cached != null && cache.isFresh(cached)) {
+                return SidecarResponseCache.copyOf(cached.getValue());
+            }
+            return send(() -> refreshConnectionConfigs(cached), () -> staleConnectionConfigs(cached));
+        } catch (HttpClientErrorException e) {
+            log.debug("Error retrieving configurations", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Looks up the given connection configs with one request per name, at most {@code plugin.sidecar.batch.parallelism}
+     * of them running at the same time. Fresh cached entries are served without contacting the sidecar.
+     */
+    public ConnectionConfigBatchResult getConnectionConfigs(Collection<String> configNames) {
+        return ConnectionConfigBatchLookup.lookup(configNames, this::getConnectionConfig, batchExecutor);
+    }
+
+    private List<ConnectionConfig> refreshConnectionConfigs(Entry<List<ConnectionConfig>> cached) {
+        Entry<List<ConnectionConfig>> fetched = fetchConnectionConfigs(cached);
+        cache.putList(fetched);
+        return SidecarResponseCache.copyOf(fetched.getValue());
+    }
+
+    private List<ConnectionConfig> staleConnectionConfigs(Entry<List<ConnectionConfig>> cached) {
+        if (!cache.isUsableWhenStale(cached)) {
+            return null;
+        }
+        log.warn("Sidecar unavailable, serving stale connection configs");
+        return SidecarResponseCache.staleCopyOf(cached.getValue(), cached.getStoredAt());
+    }
+
+    private Entry<List<ConnectionConfig>> fetchConnectionConfigs(Entry<List<ConnectionConfig>> cached) {
+        ResponseEntity<List<ConnectionConfig>> response = restTemplate
+                .exchange(CONFIG_ENDPOINT, HttpMethod.GET, Entry.conditionalRequest(cached),
+                        CONFIG_LIST_TYPE);
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+            return cached.revalidated();
+        }
+        List<ConnectionConfig> body = response.getBody();
+        if (body == null) {
+            return Entry.fromResponse(response, Collections.emptyList());
+        }
+        return Entry.fromResponse(response, cache.isEnabled() ? SidecarResponseCache.freeze(body) : body);
+    }
+
+    /**
+     * Passes every connection config of the sidecar to the action as it is parsed from the response, so that the
+     * listing is never held in memory as a whole. The cache is bypassed, and the call holds a bulkhead slot until the
+     * last config has been handed over.
+     */
+    public void forEachConnectionConfig(Consumer<? super ConnectionConfig> action) {
+        try {
+            send(() -> restTemplate.execute(CONFIG_ENDPOINT, HttpMethod.GET, ConnectionConfigJsonStream::acceptJson,
+                    ConnectionConfigJsonStream.extractor(action)));
+        } catch (HttpClientErrorException e) {
+            log.debug("Error streaming configurations", e);
+        }
+    }
+
+    /**
+     * Returns the connection configs matching the query. The sidecar has no query endpoint, so the listing is filtered
+     * here: a fresh cached listing is looked up through its index, otherwise the listing is fetched as by
+     * {@link #getConnectionConfigs()} or, with the cache disabled, streamed and filtered as it is parsed.
+     */
+    public List<ConnectionConfig> findConnectionConfigs(ConnectionConfigQuery query) {
+        if (!cache.isEnabled()) {
+            List<ConnectionConfig> found = new ArrayList<>();
+            forEachConnectionConfig(connectionConfig -> {
+                if (query.matches(connectionConfig)) {
+                    found.add(connectionConfig);
+                }
+            });
+            return ConnectionConfigIndex.sortByName(found);
+        }
+        Entry<List<ConnectionConfig>> cached = cache.getList();
+        if (cached != null && cache.isFresh(cached)) {
+            return SidecarResponseCache.copyOf(cache.indexOf(cached).find(query));
+        }
+        return ConnectionConfigIndex.filter(getConnectionConfigs(), query);
+    }
+
+    public ConnectionConfig addConnectionConfig(ConnectionConfig connectionConfig) {
+        try {
+            ConnectionConfig added = versioned(send(() -> restTemplate
+                    .postForEntity(CONFIG_ENDPOINT, connectionConfig, ConnectionConfig.class)));
+            onConnectionConfigSaved(ConnectionConfigEventType.ADDED, added);
+            return added;
+        } catch (HttpClientErrorException.Conflict e) {
+            log.trace("Connection already exists: {}", connectionConfig.getName());
+            throw new ConnectionAlreadyExistsException(e);
+        } catch (HttpServerErrorException e) {
+            log.error("Error adding connection config {}!", connectionConfig.getName(), e);
+            throw new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, e);
+        }
+    }
+
+    public void deleteConnectionConfig(String configName) {
+        try {
+            send(() -> {
+                restTemplate.delete(CONFIG_ENDPOINT + "/" + configName);
+                return null;
+            });
+            onConnectionConfigRemoved(configName);
+        } catch (HttpClientErrorException.NotFound e) {
+            log.trace(NOT_FOUND_MESSAGE, configName);
+            cache.remove(configName);
+            throw new ConnectionNotFoundException(e);
+        } catch (HttpServerErrorException e) {
+            log.error("Error deleting connection config {}!", configName, e);
+            throw new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, e);
+        }
+    }
+
+    public ConnectionConfig editConnectionConfig(ConnectionConfig connectionConfig) {
+        try {
+            HttpEntity<ConnectionConfig> request = new HttpEntity<>(connectionConfig);
+            ConnectionConfig edited = versioned(send(() -> restTemplate
+                    .exchange(CONFIG_ENDPOINT, HttpMethod.PUT, request, ConnectionConfig.class)));
+            onConnectionConfigSaved(ConnectionConfigEventType.UPDATED, edited);
+            return edited;
+        } catch (HttpClientErrorException.NotFound e) {
+            log.trace(NOT_FOUND_MESSAGE, connectionConfig.getName());
+            cache.remove(connectionConfig.getName());
+            throw new ConnectionNotFoundException(e);
+        } catch (HttpServerErrorException e) {
+            log.error("Error editing connection config {}!", connectionConfig.getName(), e);
+            throw new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, e);
+        }
+    }
+
+    /**
+     * Sets and removes some properties of a connection config. The sidecar has no patch endpoint, so the delta cannot
+     * be sent alone: the patch is applied to the current version and the result sent back as an edit
+     * ({@code PUT /config}), always conditioned through {@code If-Match} on the entity tag of that version, so that a
+     * change made in between fails the patch instead of being overwritten. The current version is the cached one when
+     * it has the entity tag of the patch, and is read otherwise. A version the sidecar did not tag cannot be patched
+     * safely, so the patch then fails rather than being sent unconditionally.
+     *
+     * @throws ConnectionModifiedException if the current version does not have the entity tag of the patch, or was
+     *         changed before the edit
+     * @throws InternalServerException if the sidecar did not tag the current version
+     */
+    public ConnectionConfig patchConnectionConfig(ConnectionConfigPatch patch) {
+        ConnectionConfig current = cache.getVersion(patch.getName(), patch.getIfMatch())
+                .orElseGet(() -> send(() -> fetchConnectionConfig(patch.getName(), null)).getValue());
+        String version = Optional.ofNullable(VersionedConnectionConfig.versionOf(current)).orElseThrow(() -> {
+            log.error("No entity tag for connection config {}, refusing to patch it unconditionally", patch.getName());
+            return new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY);
+        });
+        if (!patch.isBasedOn(version)) {
+            throw connectionModified(patch.getName(), patch.getIfMatch(), null);
+        }
+        HttpEntity<ConnectionConfig> request = Entry.conditionalEdit(version, patch.applyTo(current));
+        try {
+            ConnectionConfig patched = versioned(send(() -> restTemplate
+                    .exchange(CONFIG_ENDPOINT, HttpMethod.PUT, request, ConnectionConfig.class)));
+            onConnectionConfigSaved(ConnectionConfigEventType.UPDATED, patched);
+            return patched;
+        } catch (HttpStatusCodeException e) {
+            throw patchFailed(patch.getName(), version, e);
+        }
+    }
+
+    /**
+     * Maps the error response to an edit sent for a patch, conditioned on the given entity tag.
+     */
+    private RuntimeException patchFailed(String configName, String version, HttpStatusCodeException error) {
+        if (error.getStatusCode() == HttpStatus.NOT_FOUND) {
+            log.trace(NOT_FOUND_MESSAGE, configName);
+            cache.remove(configName);
+            return new ConnectionNotFoundException(error);
+        }
+        if (error.getStatusCode() == HttpStatus.PRECONDITION_FAILED) {
+            return connectionModified(configName, version, error);
+        }
+        log.error("Error patching connection config {}!", configName, error);
+        return new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, error);
+    }
+
+    private ConnectionModifiedException connectionModified(String configName, String version, Throwable cause) {
+        log.trace("Connection modified since {}: {}", version, configName);
+        cache.remove(configName);
+        return new ConnectionModifiedException(cause);
+    }
+
+    private static ConnectionConfig versioned(ResponseEntity<ConnectionConfig> response) {
+        return VersionedConnectionConfig.withVersion(response.getBody(), response.getHeaders().getETag());
+    }
+
+    /**
+     * Applies a batch of mutations, returning one result per mutation in batch order. The sidecar has no bulk
+     * endpoint, so each mutation is sent as its own request: at most {@code plugin.sidecar.batch.parallelism} of them
+     * are in flight at the same time, and the mutations of a given connection are sent one after the other.
+     */
+    public List<ConnectionConfigMutationResult> applyMutations(List<ConnectionConfigMutation> mutations) {
+        return ConnectionConfigBatchMutation.apply(mutations, ConnectionConfigBatchMutation.writer(
+                this::addConnectionConfig, this::editConnectionConfig, this::deleteConnectionConfig), batchExecutor);
+    }
+
+    /**
+     * Records a configuration returned by a successful add or edit, also used by
+     * {@link ConnectionConfigConnectorSidecarAsync}: the cache is updated and the change published to listeners.
+     */
+    public void onConnectionConfigSaved(ConnectionConfigEventType type, ConnectionConfig connectionConfig) {
+        if (connectionConfig == null || connectionConfig.getName() == null) {
+            return;
+        }
+        if (cache.isEnabled()) {
+            cache.update(connectionConfig);
+        }
+        if (eventPublisher.hasListeners()) {
+            eventPublisher.publish(new ConnectionConfigEvent(type, connectionConfig.getName(),
+                    SidecarResponseCache.freeze(connectionConfig)));
+        }
+    }
+
+    /**
+     * Records a successful delete, also used by {@link ConnectionConfigConnectorSidecarAsync}.
+     */
+    public void onConnectionConfigRemoved(String configName) {
+        cache.remove(configName);
+        eventPublisher.publish(new ConnectionConfigEvent(ConnectionConfigEventType.REMOVED, configName, null));
+    }
+
+    public void evictCache(String configName) {
+        cache.remove(configName);
+    }
+
+    /**
+     * Sends a request to the sidecar through the circuit breaker and the bulkhead.
+     */
+    private <T> T send(Supplier<T> request) {
+        return circuitBreaker.call(() -> bulkhead.call(request));
+    }
+
+    private <T> T send(Supplier<T> request, Supplier<T> fallback) {
+        return circuitBreaker.call(() -> bulkhead.call(request), fallback);
+    }
+}
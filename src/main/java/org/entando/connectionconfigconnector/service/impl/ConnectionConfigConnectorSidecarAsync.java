@@ -0,0 +1,159 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import static org.entando.connectionconfigconnector.config.ConnectionConfigConfiguration.CONFIG_WEB_CLIENT;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.connectionconfigconnector.exception.ConnectionAlreadyExistsException;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigEventType;
+import org.entando.web.exception.InternalServerException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link ConnectionConfigConnectorSidecar}, sending the same requests through a
+ * {@link WebClient}. Responses are not cached, but mutations keep the cache of the blocking connector up to date and
+ * are published to its listeners. Like the blocking reads and mutations of {@link ConnectionConfigConnectorImpl},
+ * every config returned by the sidecar is recorded in the {@link SidecarSnapshotStore}. The bean is only created
+ * when Spring WebFlux is on the classpath.
+ */
+@Slf4j
+@Component
+@ConditionalOnClass(WebClient.class)
+public class ConnectionConfigConnectorSidecarAsync {
+
+    private static final String CONFIG_ENDPOINT = "/config";
+    private static final String CONFIG_NAME_ENDPOINT = CONFIG_ENDPOINT + "/{configName}";
+
+    private static final ParameterizedTypeReference<List<ConnectionConfig>> CONFIG_LIST_TYPE =
+            new ParameterizedTypeReference<List<ConnectionConfig>>() {
+            };
+
+    private final WebClient webClient;
+
+    private final ConnectionConfigConnectorSidecar connectionConfigConnectorSidecar;
+
+    private final SidecarSnapshotStore snapshotStore;
+
+    public ConnectionConfigConnectorSidecarAsync(@Qualifier(CONFIG_WEB_CLIENT) WebClient webClient,
+            ConnectionConfigConnectorSidecar connectionConfigConnectorSidecar, SidecarSnapshotStore snapshotStore) {
+        this.webClient = webClient;
+        this.connectionConfigConnectorSidecar = connectionConfigConnectorSidecar;
+        this.snapshotStore = snapshotStore;
+    }
+
+    public CompletableFuture<ConnectionConfig> getConnectionConfig(String configName) {
+        return webClient.get()
+                .uri(CONFIG_NAME_ENDPOINT, configName)
+                .retrieve()
+                .bodyToMono(ConnectionConfig.class)
+                .doOnNext(snapshotStore::record)
+                .onErrorMap(e -> hasStatus(e, HttpStatus.NOT_FOUND), e -> notFound(configName, e))
+                .onErrorMap(ConnectionConfigConnectorSidecarAsync::isClientError, e -> {
+                    log.debug("Error retrieving configuration with name {}", configName, e);
+                    return new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, e);
+                })
+                .toFuture();
+    }
+
+    public CompletableFuture<List<ConnectionConfig>> getConnectionConfigs() {
+        return webClient.get()
+                .uri(CONFIG_ENDPOINT)
+                .retrieve()
+                .bodyToMono(CONFIG_LIST_TYPE)
+                .defaultIfEmpty(Collections.emptyList())
+                .doOnNext(snapshotStore::recordAll)
+                .onErrorResume(ConnectionConfigConnectorSidecarAsync::isClientError, e -> {
+                    log.debug("Error retrieving configurations", e);
+                    return Mono.just(Collections.emptyList());
+                })
+                .toFuture();
+    }
+
+    public CompletableFuture<ConnectionConfig> addConnectionConfig(ConnectionConfig connectionConfig) {
+        return webClient.post()
+                .uri(CONFIG_ENDPOINT)
+                .syncBody(connectionConfig)
+                .retrieve()
+                .bodyToMono(ConnectionConfig.class)
+                .doOnNext(added -> saved(ConnectionConfigEventType.ADDED, added))
+                .onErrorMap(e -> hasStatus(e, HttpStatus.CONFLICT), e -> {
+                    log.trace("Connection already exists: {}", connectionConfig.getName());
+                    return new ConnectionAlreadyExistsException(e);
+                })
+                .onErrorMap(ConnectionConfigConnectorSidecarAsync::isServerError, e -> {
+                    log.error("Error adding connection config {}!", connectionConfig.getName(), e);
+                    return new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, e);
+                })
+                .toFuture();
+    }
+
+    public CompletableFuture<Void> deleteConnectionConfig(String configName) {
+        return webClient.delete()
+                .uri(CONFIG_NAME_ENDPOINT, configName)
+                .retrieve()
+                .bodyToMono(Void.class)
+                .doOnSuccess(empty -> {
+                    connectionConfigConnectorSidecar.onConnectionConfigRemoved(configName);
+                    snapshotStore.forget(configName);
+                })
+                .onErrorMap(e -> hasStatus(e, HttpStatus.NOT_FOUND), e -> notFound(configName, e))
+                .onErrorMap(ConnectionConfigConnectorSidecarAsync::isServerError, e -> {
+                    log.error("Error deleting connection config {}!", configName, e);
+                    return new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, e);
+                })
+                .toFuture();
+    }
+
+    public CompletableFuture<ConnectionConfig> editConnectionConfig(ConnectionConfig connectionConfig) {
+        return webClient.put()
+                .uri(CONFIG_ENDPOINT)
+                .syncBody(connectionConfig)
+                .retrieve()
+                .bodyToMono(ConnectionConfig.class)
+                .doOnNext(edited -> saved(ConnectionConfigEventType.UPDATED, edited))
+                .onErrorMap(e -> hasStatus(e, HttpStatus.NOT_FOUND), e -> notFound(connectionConfig.getName(), e))
+                .onErrorMap(ConnectionConfigConnectorSidecarAsync::isServerError, e -> {
+                    log.error("Error editing connection config {}!", connectionConfig.getName(), e);
+                    return new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, e);
+                })
+                .toFuture();
+    }
+
+    private void saved(ConnectionConfigEventType type, ConnectionConfig connectionConfig) {
+        connectionConfigConnectorSidecar.onConnectionConfigSaved(type, connectionConfig);
+        snapshotStore.record(connectionConfig);
+    }
+
+    private ConnectionNotFoundException notFound(String configName, Throwable error) {
+        log.trace("Connection not found: {}", configName);
+        connectionConfigConnectorSidecar.evictCache(configName);
+        snapshotStore.forget(configName);
+        return new ConnectionNotFoundException(error);
+    }
+
+    private static boolean hasStatus(Throwable error, HttpStatus status) {
+        return error instanceof WebClientResponseException
+                && ((WebClientResponseException) error).getRawStatusCode() == status.value();
+    }
+
+    private static boolean isClientError(Throwable error) {
+        return error instanceof WebClientResponseException
+                && ((WebClientResponseException) error).getRawStatusCode() / 100 == 4;
+    }
+
+    private static boolean isServerError(Throwable error) {
+        return error instanceof WebClientResponseException
+                && ((WebClientResponseException) error).getRawStatusCode() / 100 == 5;
+    }
+}
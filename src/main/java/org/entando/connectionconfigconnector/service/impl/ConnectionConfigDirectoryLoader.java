@@ -0,0 +1,92 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+
+/**
+ * Loads the connection configs found in the direct subdirectories of the root directory, parsing each one as a
+ * separate task on the given executor. Nested directories are never visited and entries whose name starts with
+ * {@code ..} (Kubernetes volume bookkeeping) are skipped.
+ */
+@RequiredArgsConstructor
+public class ConnectionConfigDirectoryLoader {
+
+    public static final String HIDDEN_PREFIX = "..";
+
+    private final Path rootDirectory;
+    private final Function<String, ConnectionConfig> reader;
+    private final Executor executor;
+
+    public List<String> listConnectionNames() throws IOException {
+        List<String> configNames = new ArrayList<>();
+        forEachConnectionName(configNames::add);
+        return configNames;
+    }
+
+    /**
+     * Passes the name of every connection directory to the action while the root directory is being read, without
+     * collecting them first.
+     */
+    public void forEachConnectionName(Consumer<String> action) throws IOException {
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(rootDirectory,
+                path -> Files.isDirectory(path) && !path.toFile().getName().startsWith(HIDDEN_PREFIX))) {
+            for (Path directory : directories) {
+                action.accept(directory.toFile().getName());
+            }
+        }
+    }
+
+    public LoadResult load() throws IOException {
+        return load(listConnectionNames());
+    }
+
+    public LoadResult load(Collection<String> configNames) {
+        List<CompletableFuture<ConnectionConfig>> futures = configNames.stream()
+                .map(configName -> CompletableFuture.supplyAsync(() -> reader.apply(configName), executor))
+                .collect(Collectors.toList());
+        List<ConnectionConfig> connectionConfigs = new ArrayList<>(futures.size());
+        Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        int index = 0;
+        for (String configName : configNames) {
+            try {
+                connectionConfigs.add(futures.get(index++).join());
+            } catch (CompletionException e) {
+                failures.put(configName, e.getCause());
+            }
+        }
+        return new LoadResult(connectionConfigs, failures);
+    }
+
+    /**
+     * Outcome of a bulk load: the connection configs that could be read plus, for every entry that could not, the
+     * error raised while reading it.
+     */
+    @Getter
+    public static class LoadResult {
+
+        private final List<ConnectionConfig> connectionConfigs;
+        private final Map<String, Throwable> failures;
+
+        public LoadResult(List<ConnectionConfig> connectionConfigs, Map<String, Throwable> failures) {
+            this.connectionConfigs = Collections.unmodifiableList(connectionConfigs);
+            this.failures = Collections.unmodifiableMap(failures);
+        }
+    }
+}
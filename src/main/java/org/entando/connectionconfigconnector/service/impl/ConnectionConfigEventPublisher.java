@@ -0,0 +1,148 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigEvent;
+import org.entando.connectionconfigconnector.model.ConnectionConfigEventType;
+import org.entando.connectionconfigconnector.service.ConnectionConfigListener;
+
+/**
+ * Delivers connection config events to the registered listeners on a dedicated thread.
+ *
+ * <p>Events are not delivered one by one as they are published: they are kept per connection name for
+ * {@code coalesceMillis} and merged, so a connection added then edited within the window is reported once as added
+ * with its last version, and one added then removed is not reported at all. Nothing is recorded while no listener is
+ * registered. The delivery thread is only created when the first event is scheduled.</p>
+ * */
+@Slf4j
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class ConnectionConfigEventPublisher implements Closeable {
+
+    public static final long DEFAULT_COALESCE_MILLIS = 100;
+
+    private final long coalesceMillis;
+    private final List<ConnectionConfigListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, ConnectionConfigEvent> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final String threadNamePrefix;
+    private final Object executorLock = new Object();
+    private ScheduledThreadPoolExecutor executor;
+    private boolean closed;
+
+    public ConnectionConfigEventPublisher(String threadNamePrefix, long coalesceMillis) {
+        this.threadNamePrefix = threadNamePrefix;
+        this.coalesceMillis = coalesceMillis;
+    }
+
+    public void addListener(ConnectionConfigListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ConnectionConfigListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    public void publish(ConnectionConfigEvent event) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        pending.compute(event.getName(), (configName, previous) -> merge(previous, event));
+        if (flushScheduled.compareAndSet(false, true)) {
+            schedule(this::flush, coalesceMillis);
+        }
+    }
+
+    /**
+     * Publishes the differences between two versions of the connection configs, keyed by name.
+     */
+    public void publishChanges(Map<String, ConnectionConfig> previous, Map<String, ConnectionConfig> next) {
+        previous.forEach((configName, connectionConfig) -> {
+            if (!next.containsKey(configName)) {
+                publish(new ConnectionConfigEvent(ConnectionConfigEventType.REMOVED, configName, null));
+            }
+        });
+        next.forEach((configName, connectionConfig) -> {
+            ConnectionConfig old = previous.get(configName);
+            if (old == null) {
+                publish(new ConnectionConfigEvent(ConnectionConfigEventType.ADDED, configName, connectionConfig));
+            } else if (!old.equals(connectionConfig)) {
+                publish(new ConnectionConfigEvent(ConnectionConfigEventType.UPDATED, configName, connectionConfig));
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        synchronized (executorLock) {
+            closed = true;
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        for (String configName : pending.keySet()) {
+            ConnectionConfigEvent event = pending.remove(configName);
+            if (event != null) {
+                deliver(event);
+            }
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void deliver(ConnectionConfigEvent event) {
+        for (ConnectionConfigListener listener : listeners) {
+            try {
+                listener.onConnectionConfigEvent(event);
+            } catch (RuntimeException e) {
+                log.warn("Connection config listener {} failed on {}", listener, event, e);
+            }
+        }
+    }
+
+    private void schedule(Runnable task, long delayMillis) {
+        synchronized (executorLock) {
+            if (closed) {
+                log.trace("Connection config event publisher closed");
+                return;
+            }
+            if (executor == null) {
+                executor = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory(threadNamePrefix));
+                executor.setKeepAliveTime(1, TimeUnit.MINUTES);
+                executor.allowCoreThreadTimeOut(true);
+            }
+            executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Merges an event with the one still pending for the same connection, returning {@code null} when they cancel
+     * each other out.
+     */
+    private static ConnectionConfigEvent merge(ConnectionConfigEvent previous, ConnectionConfigEvent event) {
+        if (previous == null) {
+            return event;
+        }
+        boolean addedInWindow = previous.getType() == ConnectionConfigEventType.ADDED;
+        if (event.getType() == ConnectionConfigEventType.REMOVED) {
+            return addedInWindow ? null : event;
+        }
+        ConnectionConfigEventType type = addedInWindow ? ConnectionConfigEventType.ADDED
+                : ConnectionConfigEventType.UPDATED;
+        return new ConnectionConfigEvent(type, event.getName(), event.getConnectionConfig());
+    }
+}
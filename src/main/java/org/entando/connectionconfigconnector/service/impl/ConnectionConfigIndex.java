@@ -0,0 +1,212 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigQuery;
+
+/**
+ * In-memory secondary indexes answering {@link ConnectionConfigQuery} without scanning every config: a sorted name
+ * index serves prefix filters as a range, and an inverted index maps each property key and value to the names having
+ * it. A query starts from the shortest list of candidates and checks each one against the whole query.
+ *
+ * <p>Updates are serialized, queries are lock-free. A query running concurrently with an update sees every config
+ * either before or after the update, never a config that does not match.</p>
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public class ConnectionConfigIndex {
+
+    private static final Comparator<ConnectionConfig> BY_NAME = Comparator.comparing(ConnectionConfig::getName);
+
+    private final ConcurrentSkipListMap<String, ConnectionConfig> byName = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Set<String>>> byProperty =
+            new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> deferred = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+
+    public ConnectionConfigIndex() {
+        // empty index
+    }
+
+    public ConnectionConfigIndex(Collection<ConnectionConfig> connectionConfigs) {
+        connectionConfigs.forEach(this::put);
+    }
+
+    /**
+     * Indexes the config, replacing the one with the same name if any. The config is stored as is, so it should be
+     * immutable.
+     */
+    public void put(ConnectionConfig connectionConfig) {
+        synchronized (writeLock) {
+            ConnectionConfig previous = byName.put(connectionConfig.getName(), connectionConfig);
+            if (previous != null) {
+                updatePostings(previous, false);
+            }
+            updatePostings(connectionConfig, true);
+        }
+    }
+
+    public void remove(String configName) {
+        synchronized (writeLock) {
+            ConnectionConfig previous = byName.remove(configName);
+            if (previous != null) {
+                updatePostings(previous, false);
+            }
+        }
+    }
+
+    /**
+     * Brings the index in line with the given configs, only touching the entries that changed.
+     */
+    public void sync(Map<String, ConnectionConfig> connectionConfigs) {
+        synchronized (writeLock) {
+            new ArrayList<>(byName.keySet()).stream()
+                    .filter(configName -> !connectionConfigs.containsKey(configName))
+                    .forEach(this::remove);
+            connectionConfigs.values().stream()
+                    .filter(connectionConfig -> byName.get(connectionConfig.getName()) != connectionConfig)
+                    .forEach(this::put);
+        }
+    }
+
+    /**
+     * Returns the indexed configs matching the query, sorted by name.
+     */
+    public List<ConnectionConfig> find(ConnectionConfigQuery query) {
+        Set<String> candidates = null;
+        if (query.getProperties() != null) {
+            for (Map.Entry<String, String> property : query.getProperties().entrySet()) {
+                if (property.getKey() == null || property.getValue() == null) {
+                    continue;
+                }
+                Set<String> names = postings(property.getKey(), property.getValue());
+                if (names.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                if (candidates == null || names.size() < candidates.size()) {
+                    candidates = names;
+                }
+            }
+        }
+        return candidates == null ? findByPrefix(query) : findAmong(candidates, query);
+    }
+
+    /**
+     * Returns the configs matching the query, sorted by name, for callers holding no index.
+     */
+    public static List<ConnectionConfig> filter(Collection<ConnectionConfig> connectionConfigs,
+            ConnectionConfigQuery query) {
+        List<ConnectionConfig> found = new ArrayList<>();
+        for (ConnectionConfig connectionConfig : connectionConfigs) {
+            if (query.matches(connectionConfig)) {
+                found.add(connectionConfig);
+            }
+        }
+        return sortByName(found);
+    }
+
+    public static List<ConnectionConfig> sortByName(List<ConnectionConfig> connectionConfigs) {
+        connectionConfigs.sort(BY_NAME);
+        return connectionConfigs;
+    }
+
+    private List<ConnectionConfig> findByPrefix(ConnectionConfigQuery query) {
+        String prefix = query.getNamePrefix() == null ? "" : query.getNamePrefix();
+        List<ConnectionConfig> found = new ArrayList<>();
+        for (ConnectionConfig connectionConfig : byName.tailMap(prefix).values()) {
+            if (!connectionConfig.getName().startsWith(prefix)) {
+                break;
+            }
+            if (query.matches(connectionConfig)) {
+                found.add(connectionConfig);
+            }
+        }
+        return found;
+    }
+
+    private List<ConnectionConfig> findAmong(Set<String> candidates, ConnectionConfigQuery query) {
+        List<ConnectionConfig> found = new ArrayList<>();
+        for (String configName : candidates) {
+            ConnectionConfig connectionConfig = byName.get(configName);
+            if (connectionConfig != null && query.matches(connectionConfig)) {
+                found.add(connectionConfig);
+            }
+        }
+        return sortByName(found);
+    }
+
+    /**
+     * Returns the names of the configs that have the property, or may have it because its value is a file reference
+     * that has not been read.
+     */
+    private Set<String> postings(String key, String value) {
+        Map<String, Set<String>> values = byProperty.get(key);
+        Set<String> names = values == null ? Collections.emptySet()
+                : values.getOrDefault(value, Collections.emptySet());
+        Set<String> unread = deferred.get(key);
+        if (unread == null) {
+            return names;
+        }
+        Set<String> candidates = new HashSet<>(unread);
+        candidates.addAll(names);
+        return candidates;
+    }
+
+    /**
+     * Indexes or unindexes the properties of the config as declared, so that indexing never reads the values of
+     * {@link LazyProperties}: those are only read when a query on their key checks the config.
+     */
+    private void updatePostings(ConnectionConfig connectionConfig, boolean add) {
+        if (connectionConfig.getProperties() == null) {
+            return;
+        }
+        Map<String, String> properties = connectionConfig.getProperties();
+        LazyProperties.declared(properties).forEach((key, value) -> {
+            if (key == null || value == null) {
+                return;
+            }
+            if (LazyProperties.isDeferred(properties, key)) {
+                updateDeferred(key, connectionConfig.getName(), add);
+            } else if (add) {
+                byProperty.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(value, v -> ConcurrentHashMap.newKeySet())
+                        .add(connectionConfig.getName());
+            } else {
+                removePosting(key, value, connectionConfig.getName());
+            }
+        });
+    }
+
+    private void updateDeferred(String key, String configName, boolean add) {
+        if (add) {
+            deferred.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(configName);
+            return;
+        }
+        Set<String> names = deferred.get(key);
+        if (names != null && names.remove(configName) && names.isEmpty()) {
+            deferred.remove(key);
+        }
+    }
+
+    private void removePosting(String key, String value, String configName) {
+        ConcurrentHashMap<String, Set<String>> values = byProperty.get(key);
+        if (values == null) {
+            return;
+        }
+        Set<String> names = values.get(value);
+        if (names != null && names.remove(configName) && names.isEmpty()) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                byProperty.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+
+/**
+ * Jackson module binding {@link ConnectionConfig} with hand-written streaming code instead of bean introspection and
+ * reflection, in the spirit of Afterburner. A connection config is only a name and a map of strings, so reading it
+ * token by token skips the generic bean and map deserializers that dominate the cost of large listings.
+ *
+ * <p>The format is the one of the default binding: unknown fields are skipped, a {@code null} name or properties map
+ * is kept as {@code null}, and scalar property values are read as their text. It works with every Jackson format,
+ * JSON as well as Smile and CBOR.</p>
+ */
+public class ConnectionConfigJacksonModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String NAME = "name";
+    private static final String PROPERTIES = "properties";
+
+    public ConnectionConfigJacksonModule() {
+        super(ConnectionConfigJacksonModule.class.getSimpleName());
+        addDeserializer(ConnectionConfig.class, new ConnectionConfigDeserializer());
+        addSerializer(ConnectionConfig.class, new ConnectionConfigSerializer());
+    }
+
+    /**
+     * Reads a connection config from the current object of the parser.
+     */
+    public static class ConnectionConfigDeserializer extends StdDeserializer<ConnectionConfig> {
+
+        private static final long serialVersionUID = 1L;
+
+        public ConnectionConfigDeserializer() {
+            super(ConnectionConfig.class);
+        }
+
+        @Override
+        public ConnectionConfig deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            String field;
+            if (parser.currentToken() == JsonToken.START_OBJECT) {
+                field = parser.nextFieldName();
+            } else if (parser.currentToken() == JsonToken.FIELD_NAME) {
+                field = parser.getCurrentName();
+            } else {
+                return (ConnectionConfig) context.handleUnexpectedToken(ConnectionConfig.class, parser);
+            }
+            ConnectionConfig connectionConfig = new ConnectionConfig();
+            for (; field != null; field = parser.nextFieldName()) {
+                JsonToken token = parser.nextToken();
+                if (NAME.equals(field)) {
+                    connectionConfig.setName(readString(parser, context, token));
+                } else if (PROPERTIES.equals(field)) {
+                    connectionConfig.setProperties(readProperties(parser, context, token));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return connectionConfig;
+        }
+
+        private static Map<String, String> readProperties(JsonParser parser, DeserializationContext context,
+                JsonToken token) throws IOException {
+            if (token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                context.handleUnexpectedToken(Map.class, parser);
+            }
+            LinkedHashMap<String, String> properties = new LinkedHashMap<>();
+            for (String key = parser.nextFieldName(); key != null; key = parser.nextFieldName()) {
+                properties.put(key, readString(parser, context, parser.nextToken()));
+            }
+            return properties;
+        }
+
+        private static String readString(JsonParser parser, DeserializationContext context, JsonToken token)
+                throws IOException {
+            if (!token.isScalarValue()) {
+                return (String) context.handleUnexpectedToken(String.class, parser);
+            }
+            return parser.getValueAsString();
+        }
+    }
+
+    /**
+     * Writes a connection config as an object with its name and properties.
+     */
+    public static class ConnectionConfigSerializer extends StdSerializer<ConnectionConfig> {
+
+        private static final long serialVersionUID = 1L;
+
+        public ConnectionConfigSerializer() {
+            super(ConnectionConfig.class);
+        }
+
+        @Override
+        public void serialize(ConnectionConfig connectionConfig, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField(NAME, connectionConfig.getName());
+            Map<String, String> properties = connectionConfig.getProperties();
+            if (properties == null) {
+                generator.writeNullField(PROPERTIES);
+            } else {
+                generator.writeObjectFieldStart(PROPERTIES);
+                for (Map.Entry<String, String> property : properties.entrySet()) {
+                    generator.writeStringField(property.getKey(), property.getValue());
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndObject();
+        }
+    }
+}
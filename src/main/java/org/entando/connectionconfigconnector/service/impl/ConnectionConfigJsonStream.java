@@ -0,0 +1,70 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.function.Consumer;
+import lombok.experimental.UtilityClass;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.web.client.ResponseExtractor;
+
+/**
+ * Reads a JSON array of connection configs with Jackson's streaming parser, binding and handing over one element at a
+ * time, so that memory use does not depend on the size of the array.
+ */
+@UtilityClass
+public class ConnectionConfigJsonStream {
+
+    private static final ObjectReader CONFIG_READER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .registerModule(new ConnectionConfigJacksonModule())
+            .readerFor(ConnectionConfig.class);
+
+    /**
+     * Passes every element of the JSON array to the action, skipping {@code null} ones. An empty body is read as an
+     * empty array.
+     *
+     * @return the number of connection configs read
+     */
+    public static int forEach(InputStream json, Consumer<? super ConnectionConfig> action) throws IOException {
+        try (JsonParser parser = CONFIG_READER.getFactory().createParser(json)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return 0;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of connection configs");
+            }
+            int count = 0;
+            for (token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == null) {
+                    throw new JsonParseException(parser, "Unterminated array of connection configs");
+                }
+                if (token != JsonToken.VALUE_NULL) {
+                    action.accept(CONFIG_READER.readValue(parser));
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Returns a response extractor streaming the response body to the action.
+     */
+    public static ResponseExtractor<Integer> extractor(Consumer<? super ConnectionConfig> action) {
+        return response -> forEach(response.getBody(), action);
+    }
+
+    public static void acceptJson(ClientHttpRequest request) {
+        request.getHeaders().setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+    }
+}
@@ -0,0 +1,42 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.function.Supplier;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+
+/**
+ * Records how long the connector operations take and how they end. {@link NoopConnectionConfigMetrics} is used unless
+ * a meter registry is available, so applications without one pay nothing but a method call.
+ */
+public interface ConnectionConfigMetrics {
+
+    String OPERATION_GET = "get";
+    String OPERATION_LIST = "list";
+    String OPERATION_BATCH = "batch";
+    String OPERATION_STREAM = "stream";
+    String OPERATION_FIND = "find";
+    String OPERATION_ADD = "add";
+    String OPERATION_EDIT = "edit";
+    String OPERATION_PATCH = "patch";
+    String OPERATION_DELETE = "delete";
+    String OPERATION_MUTATE = "mutate";
+
+    /**
+     * Runs and times a connector operation, tagging it with the outcome: {@code hit} when it completes,
+     * {@code not_found} or {@code conflict} for the matching exceptions and {@code error} for any other one.
+     */
+    <T> T recordOperation(String operation, SecurityLevel securityLevel, Supplier<T> call);
+
+    /**
+     * Runs and times the parsing of a {@code config.yaml} file.
+     */
+    <T> T recordYamlParse(Supplier<T> parse);
+
+    /**
+     * Records an HTTP request sent to the sidecar.
+     *
+     * @param method the HTTP method
+     * @param status the response status code, or {@code IO_ERROR} when no response was received
+     * @param durationNanos the time taken by the exchange
+     */
+    void recordSidecarRequest(String method, String status, long durationNanos);
+}
@@ -0,0 +1,72 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigDirectoryLoader.LoadResult;
+
+/**
+ * Packs the {@code config.yaml} file of every connection directory into a {@link ConnectionConfigPackFile}. It is
+ * meant to be run at build or deploy time, e.g.
+ *
+ * <pre>
+ * java -cp ... org.entando.connectionconfigconnector.service.impl.ConnectionConfigPackBuilder \
+ *     /etc/entando/connectionconfigs /var/lib/entando/connections.pack
+ * </pre>
+ *
+ * <p>Connections that cannot be parsed are left out of the pack, so the connector keeps reading (and reporting) their
+ * directory.</p>
+ */
+@Slf4j
+@UtilityClass
+public class ConnectionConfigPackBuilder {
+
+    private static final String CONFIG_YAML = "config.yaml";
+    private static final int ARGUMENT_COUNT = 2;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != ARGUMENT_COUNT) {
+            throw new IllegalArgumentException("Usage: ConnectionConfigPackBuilder <root directory> <pack file>");
+        }
+        build(Paths.get(args[0]), Paths.get(args[1]));
+    }
+
+    /**
+     * Parses every connection directory under the root directory and writes the pack file.
+     *
+     * @return the number of connection configs packed
+     */
+    public static int build(Path rootDirectory, Path packFile) throws IOException {
+        // file systems may store modification times with a one second resolution: a source modified during the
+        // second the build started must not look older than the pack
+        long builtAt = TimeUnit.SECONDS.toMillis(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+        ConnectionConfigYamlDecoder yamlDecoder = new ConnectionConfigYamlDecoder();
+        LoadResult result = new ConnectionConfigDirectoryLoader(rootDirectory,
+                configName -> parse(rootDirectory, configName, yamlDecoder), ForkJoinPool.commonPool()).load();
+        result.getFailures().forEach((configName, error) ->
+                log.warn("Leaving connection config {} out of the pack", configName, error));
+        ConnectionConfigPackFile.write(packFile, result.getConnectionConfigs(), builtAt);
+        log.info("Packed {} connection configs from {} into {}", result.getConnectionConfigs().size(), rootDirectory,
+                packFile);
+        return result.getConnectionConfigs().size();
+    }
+
+    private static ConnectionConfig parse(Path rootDirectory, String configName,
+            ConnectionConfigYamlDecoder yamlDecoder) {
+        try {
+            ConnectionConfig connectionConfig = yamlDecoder
+                    .decode(Files.readAllBytes(rootDirectory.resolve(configName).resolve(CONFIG_YAML)));
+            connectionConfig.setName(configName);
+            return connectionConfig;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
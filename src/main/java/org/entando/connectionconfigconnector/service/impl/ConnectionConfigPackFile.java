@@ -0,0 +1,233 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+
+/**
+ * Read-only binary file packing many connection configs, built by {@link ConnectionConfigPackBuilder} and memory-mapped
+ * by the file system connector so that a connection can be read without opening and parsing its {@code config.yaml}.
+ *
+ * <p>The file starts with a magic number, a format version, the time the pack was built, the number of entries and
+ * the CRC-32 of the rest of the file. An offset table follows, pointing to the entries sorted by name: a lookup is a
+ * binary search over the table that only decodes the names it compares and the entry it finds. A file that is
+ * truncated, fails its checksum or has an unknown version cannot be opened.</p>
+ */
+public final class ConnectionConfigPackFile {
+
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x45434350;
+    private static final int HEADER_SIZE = 28;
+    private static final int OFFSET_SIZE = 4;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final ByteBuffer buffer;
+    private final long builtAt;
+    private final int count;
+
+    private ConnectionConfigPackFile(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        checkHeader(buffer);
+        this.builtAt = buffer.getLong(8);
+        this.count = buffer.getInt(16);
+        if (count < 0 || HEADER_SIZE + (long) count * OFFSET_SIZE > buffer.capacity()) {
+            throw new IOException("truncated offset table");
+        }
+        ByteBuffer content = buffer.duplicate();
+        content.position(HEADER_SIZE);
+        CRC32 checksum = new CRC32();
+        checksum.update(content);
+        if (buffer.getLong(20) != checksum.getValue()) {
+            throw new IOException("checksum mismatch");
+        }
+    }
+
+    /**
+     * Maps the pack file into memory and validates it.
+     *
+     * @throws IOException if the file cannot be read or is not a valid pack
+     */
+    public static ConnectionConfigPackFile map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("pack larger than 2 GB");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new ConnectionConfigPackFile(mapped);
+        }
+    }
+
+    /**
+     * Atomically replaces the pack file with one holding the given connection configs.
+     *
+     * @param builtAt time the sources were read from; a source modified at or after this time is newer than the pack
+     */
+    public static void write(Path file, Collection<ConnectionConfig> connectionConfigs, long builtAt)
+            throws IOException {
+        List<ConnectionConfig> sorted = connectionConfigs.stream()
+                .filter(connectionConfig -> connectionConfig.getName() != null)
+                .sorted(Comparator.comparing(ConnectionConfig::getName))
+                .collect(Collectors.toList());
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        int[] offsets = new int[sorted.size()];
+        int base = HEADER_SIZE + sorted.size() * OFFSET_SIZE;
+        try (DataOutputStream out = new DataOutputStream(entries)) {
+            for (int i = 0; i < sorted.size(); i++) {
+                offsets[i] = base + out.size();
+                writeConnectionConfig(out, sorted.get(i));
+            }
+        }
+        if ((long) base + entries.size() > Integer.MAX_VALUE) {
+            throw new IOException("pack larger than 2 GB");
+        }
+        ByteBuffer content = ByteBuffer.allocate(base + entries.size());
+        content.position(HEADER_SIZE);
+        for (int offset : offsets) {
+            content.putInt(offset);
+        }
+        content.put(entries.toByteArray());
+        content.position(HEADER_SIZE);
+        CRC32 checksum = new CRC32();
+        checksum.update(content);
+        content.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, builtAt).putInt(16, sorted.size())
+                .putLong(20, checksum.getValue());
+        content.rewind();
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the packed connection config with the given name, or {@code null} if the pack has none.
+     */
+    public ConnectionConfig get(String configName) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            ByteBuffer entry = entry(middle);
+            int comparison = readString(entry).compareTo(configName);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return new ConnectionConfig(configName, readProperties(entry));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the names of the packed connection configs, sorted.
+     */
+    public List<String> getNames() {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(readString(entry(i)));
+        }
+        return names;
+    }
+
+    private ByteBuffer entry(int index) {
+        int offset = buffer.getInt(HEADER_SIZE + index * OFFSET_SIZE);
+        if (offset < HEADER_SIZE || offset >= buffer.capacity()) {
+            throw new IllegalStateException("Corrupt connection config pack: invalid offset " + offset);
+        }
+        ByteBuffer entry = buffer.duplicate();
+        entry.position(offset);
+        return entry;
+    }
+
+    private static void checkHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a connection config pack");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("unsupported version " + version);
+        }
+    }
+
+    private static void writeConnectionConfig(DataOutputStream out, ConnectionConfig connectionConfig)
+            throws IOException {
+        writeString(out, connectionConfig.getName());
+        Map<String, String> properties = LazyProperties.declared(connectionConfig.getProperties());
+        out.writeInt(properties == null ? -1 : properties.size());
+        if (properties != null) {
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                writeString(out, property.getKey());
+                writeString(out, property.getValue());
+            }
+        }
+    }
+
+    private static Map<String, String> readProperties(ByteBuffer entry) {
+        int size = entry.getInt();
+        if (size < 0) {
+            return null;
+        }
+        HashMap<String, String> properties = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            properties.put(readString(entry), readString(entry));
+        }
+        return properties;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer entry) {
+        int length = entry.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > entry.remaining()) {
+            throw new IllegalStateException("Corrupt connection config pack: truncated string");
+        }
+        byte[] bytes = new byte[length];
+        entry.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
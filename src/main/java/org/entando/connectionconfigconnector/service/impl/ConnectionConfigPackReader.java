@@ -0,0 +1,126 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import static org.entando.connectionconfigconnector.service.impl.ConnectionConfigPackFile.map;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+
+/**
+ * Serves connection configs from the optional {@link ConnectionConfigPackFile}, as long as they have not changed
+ * since the pack was built. A connection whose {@code config.yaml} was modified after the pack was built, or which is
+ * not in the pack, is not served, and neither is anything when there is no valid pack file: the caller then reads the
+ * connection directory as usual.
+ *
+ * <p>The pack file is mapped when first needed, and mapped again when it has been replaced; whether it has been
+ * replaced is checked at most every few seconds.</p>
+ */
+@Slf4j
+public class ConnectionConfigPackReader {
+
+    private static final long RECHECK_MILLIS = 5000;
+
+    private final boolean enabled;
+    private final Path packFile;
+    private final AtomicReference<State> state = new AtomicReference<>();
+    private final Object openLock = new Object();
+
+    /**
+     * Creates the reader.
+     *
+     * @param packFile path of the pack file, empty to never serve anything
+     */
+    public ConnectionConfigPackReader(String packFile) {
+        this.enabled = !packFile.isEmpty();
+        this.packFile = Paths.get(packFile);
+    }
+
+    /**
+     * Returns the packed version of the connection, or {@code null} if it has to be read from its directory.
+     *
+     * @param configName name of the connection
+     * @param configFile {@code config.yaml} file of the connection, whose modification time tells whether the pack
+     *         is up to date
+     */
+    public ConnectionConfig read(String configName, Path configFile) {
+        ConnectionConfigPackFile pack = currentPack();
+        if (pack == null) {
+            return null;
+        }
+        try {
+            if (Files.getLastModifiedTime(configFile).toMillis() >= pack.getBuiltAt()) {
+                log.trace("Connection config {} changed since the pack was built", configName);
+                return null;
+            }
+        } catch (IOException e) {
+            log.trace("Cannot check the modification time of {}", configFile, e);
+            return null;
+        }
+        return pack.get(configName);
+    }
+
+    private ConnectionConfigPackFile currentPack() {
+        if (!enabled) {
+            return null;
+        }
+        State current = state.get();
+        if (current != null && System.currentTimeMillis() - current.getCheckedAt() < RECHECK_MILLIS) {
+            return current.getPack();
+        }
+        synchronized (openLock) {
+            current = state.get();
+            if (current == null || System.currentTimeMillis() - current.getCheckedAt() >= RECHECK_MILLIS) {
+                current = refresh(current);
+                state.set(current);
+            }
+            return current.getPack();
+        }
+    }
+
+    private State refresh(State previous) {
+        long modified = lastModified();
+        long now = System.currentTimeMillis();
+        if (previous != null && previous.getModified() == modified) {
+            return new State(previous.getPack(), modified, now);
+        }
+        if (modified < 0) {
+            return new State(null, modified, now);
+        }
+        try {
+            ConnectionConfigPackFile pack = map(packFile);
+            log.info("Serving {} connection configs from pack {}", pack.size(), packFile);
+            return new State(pack, modified, now);
+        } catch (IOException e) {
+            log.warn("Ignoring connection config pack {}: {}", packFile, e.getMessage());
+            return new State(null, modified, now);
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return Files.getLastModifiedTime(packFile).toMillis();
+        } catch (NoSuchFileException e) {
+            log.trace("No connection config pack at {}", packFile);
+            return -1;
+        } catch (IOException e) {
+            log.warn("Cannot read connection config pack {}", packFile, e);
+            return -1;
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class State {
+
+        private final ConnectionConfigPackFile pack;
+        private final long modified;
+        private final long checkedAt;
+    }
+}
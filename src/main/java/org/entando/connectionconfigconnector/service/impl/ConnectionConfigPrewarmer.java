@@ -0,0 +1,208 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import static org.entando.connectionconfigconnector.service.impl.ConnectionConfigPrewarmer.Status.DISABLED;
+import static org.entando.connectionconfigconnector.service.impl.ConnectionConfigPrewarmer.Status.DONE;
+import static org.entando.connectionconfigconnector.service.impl.ConnectionConfigPrewarmer.Status.PENDING;
+import static org.entando.connectionconfigconnector.service.impl.ConnectionConfigPrewarmer.Status.RUNNING;
+import static org.entando.connectionconfigconnector.service.impl.ConnectionConfigPrewarmer.Status.SKIPPED;
+import static org.entando.connectionconfigconnector.service.impl.ConnectionConfigPrewarmer.Trigger.READY;
+import static org.entando.connectionconfigconnector.service.impl.ConnectionConfigPrewarmer.Trigger.STARTUP;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
+import org.entando.connectionconfigconnector.service.ConnectionConfigConnector;
+import org.entando.connectionconfigconnector.service.Deadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads the connection configs through the connector once at startup, so that the first requests after a deploy find
+ * them in the connector caches. Every connection is loaded with a single listing, or only the names listed in
+ * {@code entando.connections.prewarm.names}, with {@code entando.connections.prewarm.parallelism} loads running at the
+ * same time.
+ *
+ * <p>The prewarm is skipped with a warning when the connector does not
+ * {@link ConnectionConfigConnector#keepsLoadedConfigs() keep} what it reads, as nothing would be left warm. It starts
+ * on {@link ApplicationReadyEvent}, or as soon as the context is refreshed when
+ * {@code entando.connections.prewarm.trigger} is {@code STARTUP}, and runs without any authenticated user. Its progress
+ * is exposed for the readiness health indicator. A connection that does not exist is logged and counted; any other
+ * failure, such as the sidecar refusing a call without a user, is logged once and the remaining loads are counted as
+ * failed without being attempted.</p>
+ */
+@Slf4j
+@Component
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class ConnectionConfigPrewarmer {
+
+    public enum Trigger {
+        STARTUP, READY
+    }
+
+    public enum Status {
+        DISABLED, SKIPPED, PENDING, RUNNING, DONE
+    }
+
+    private final ConnectionConfigConnector connectionConfigConnector;
+    private final Trigger trigger;
+    private final List<String> configNames;
+    private final int parallelism;
+    private final long timeoutMillis;
+    private final AtomicReference<Status> status;
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger loaded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicBoolean aborted = new AtomicBoolean();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    /**
+     * Creates the prewarmer.
+     *
+     * @param connectionConfigConnector connector whose configs are loaded
+     * @param enabled whether the configs are loaded at startup
+     * @param trigger {@code READY} to start once the application is ready, {@code STARTUP} to start as soon as the
+     *         context is refreshed
+     * @param configNames comma separated names of the connections to load, empty to load every connection
+     * @param parallelism number of connections loaded at the same time
+     * @param timeoutMillis deadline of the whole prewarm, after which the remaining loads fail
+     */
+    public ConnectionConfigPrewarmer(ConnectionConfigConnector connectionConfigConnector,
+            @Value("${entando.connections.prewarm.enabled:false}") boolean enabled,
+            @Value("${entando.connections.prewarm.trigger:READY}") String trigger,
+            @Value("${entando.connections.prewarm.names:}") String configNames,
+            @Value("${entando.connections.prewarm.parallelism:4}") int parallelism,
+            @Value("${entando.connections.prewarm.timeout-millis:60000}") long timeoutMillis) {
+        this.connectionConfigConnector = connectionConfigConnector;
+        this.trigger = Enum.valueOf(Trigger.class, trigger.toUpperCase(Locale.ROOT));
+        this.configNames = Arrays.stream(configNames.split(","))
+                .map(String::trim)
+                .filter(configName -> !configName.isEmpty())
+                .collect(Collectors.toList());
+        this.parallelism = Math.max(1, parallelism);
+        this.timeoutMillis = timeoutMillis;
+        this.status = new AtomicReference<>(enabled ? PENDING : DISABLED);
+        if (!enabled) {
+            completion.complete(null);
+        }
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed() {
+        if (trigger == STARTUP) {
+            start();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (trigger == READY) {
+            start();
+        }
+    }
+
+    /**
+     * Starts the prewarm in the background unless it has already been started or is disabled, and returns a future
+     * completed once it is done.
+     */
+    public CompletableFuture<Void> start() {
+        if (!status.compareAndSet(PENDING, RUNNING)) {
+            return completion;
+        }
+        if (!connectionConfigConnector.keepsLoadedConfigs()) {
+            log.warn("Skipping the connection config prewarm: the connector does not keep the configs it reads");
+            status.set(SKIPPED);
+            completion.complete(null);
+            return completion;
+        }
+        log.info("Prewarming connection configs");
+        ExecutorService executor = DaemonThreadFactory.newThreadPool("connection-config-prewarm-", parallelism,
+                Integer.MAX_VALUE);
+        ConnectionConfigConnector connector = connectionConfigConnector
+                .withDeadline(Deadline.after(Duration.ofMillis(timeoutMillis)));
+        total.set(configNames.size());
+        CompletableFuture<Void> loads = configNames.isEmpty()
+                ? CompletableFuture.runAsync(() -> loadAll(connector), executor)
+                : CompletableFuture.allOf(configNames.stream()
+                        .map(configName -> CompletableFuture.runAsync(() -> load(connector, configName), executor))
+                        .toArray(CompletableFuture[]::new));
+        loads.whenComplete((result, error) -> {
+            executor.shutdown();
+            finish(error);
+        });
+        return completion;
+    }
+
+    public Status getStatus() {
+        return status.get();
+    }
+
+    /**
+     * Tells whether the prewarm is over, skipped or disabled, and traffic can be routed to the application.
+     */
+    public boolean isDone() {
+        Status current = status.get();
+        return current == DONE || current == SKIPPED || current == DISABLED;
+    }
+
+    public int getTotal() {
+        return total.get();
+    }
+
+    public int getLoaded() {
+        return loaded.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Loads every connection with a single listing, which the connector keeps for the lookups by name as well.
+     */
+    private void loadAll(ConnectionConfigConnector connector) {
+        int count = connector.getConnectionConfigs().size();
+        total.set(count);
+        loaded.set(count);
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException") // a failed load must not stop the prewarm
+    private void load(ConnectionConfigConnector connector, String configName) {
+        if (aborted.get()) {
+            failed.incrementAndGet();
+            return;
+        }
+        try {
+            connector.getConnectionConfig(configName);
+            loaded.incrementAndGet();
+        } catch (ConnectionNotFoundException e) {
+            failed.incrementAndGet();
+            log.warn("Connection config {} to prewarm not found", configName);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            if (aborted.compareAndSet(false, true)) {
+                log.warn("Error prewarming connection config {}, giving up the remaining ones", configName, e);
+            }
+        }
+    }
+
+    private void finish(Throwable error) {
+        if (error != null) {
+            log.warn("Error listing the connection configs to prewarm", error);
+        }
+        status.set(DONE);
+        log.info("Prewarmed {} of {} connection configs, {} failed", loaded.get(), total.get(), failed.get());
+        completion.complete(null);
+    }
+}
@@ -0,0 +1,219 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static org.entando.connectionconfigconnector.service.impl.ConnectionConfigDirectoryLoader.HIDDEN_PREFIX;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigQuery;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigDirectoryLoader.LoadResult;
+
+/**
+ * Keeps an immutable in-memory snapshot of every connection under the root directory and refreshes it from
+ * {@link WatchService} events.
+ *
+ * <p>Kubernetes mounts ConfigMaps and Secrets through a {@code ..data} symlink that is swapped atomically once the
+ * new timestamped directory has been fully written. Only the swap itself and direct writes to the files of a connection
+ * directory, {@code config.yaml} or the files its properties refer to, trigger a reload, so the intermediate
+ * {@code ..<timestamp>} entries are never read. Each refresh builds a new map and publishes it with a single reference
+ * swap: readers see either the previous or the next snapshot. A refresh that fails is logged and the watcher goes on
+ * with the next events.</p>
+ */
+@Slf4j
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class ConnectionConfigSnapshotWatcher implements Closeable {
+
+    private static final String DATA_LINK = "..data";
+    private static final long DEBOUNCE_MILLIS = 50;
+
+    private final Path rootDirectory;
+    private final String configFileName;
+    private final ConnectionConfigDirectoryLoader loader;
+    private final ConnectionConfigEventPublisher eventPublisher;
+    private final AtomicReference<Map<String, ConnectionConfig>> snapshot =
+            new AtomicReference<>(Collections.emptyMap());
+    private final ConnectionConfigIndex index = new ConnectionConfigIndex();
+    private final Map<WatchKey, String> watchKeys = new ConcurrentHashMap<>();
+    private final Object lifecycleLock = new Object();
+
+    private WatchService watchService;
+    private WatchKey rootKey;
+    private Thread watcherThread;
+    private final AtomicBoolean loaded = new AtomicBoolean();
+
+    public ConnectionConfigSnapshotWatcher(Path rootDirectory, String configFileName,
+            ConnectionConfigDirectoryLoader loader, ConnectionConfigEventPublisher eventPublisher) {
+        this.rootDirectory = rootDirectory;
+        this.configFileName = configFileName;
+        this.loader = loader;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public void start() throws IOException {
+        synchronized (lifecycleLock) {
+            if (watchService != null) {
+                return;
+            }
+            watchService = rootDirectory.getFileSystem().newWatchService();
+            rootKey = register(rootDirectory);
+            rescan();
+            watcherThread = new Thread(this::watch, "connection-config-watcher");
+            watcherThread.setDaemon(true);
+            watcherThread.start();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lifecycleLock) {
+            if (watchService != null) {
+                watcherThread.interrupt();
+                watchService.close();
+            }
+        }
+    }
+
+    public ConnectionConfig get(String configName) {
+        return snapshot.get().get(configName);
+    }
+
+    public Collection<ConnectionConfig> getAll() {
+        return snapshot.get().values();
+    }
+
+    public List<ConnectionConfig> find(ConnectionConfigQuery query) {
+        return index.find(query);
+    }
+
+    private void watch() {
+        Set<String> dirty = new HashSet<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                dirty.clear();
+                boolean fullRescan = drain(watchService.take(), dirty);
+                WatchKey next = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                while (next != null) {
+                    fullRescan |= drain(next, dirty);
+                    next = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                reload(fullRescan, dirty);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.trace("Connection config watcher closed", e);
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException") // the watcher thread must outlive a failed refresh
+    private void reload(boolean fullRescan, Set<String> dirty) {
+        try {
+            if (fullRescan) {
+                rescan();
+            } else {
+                refresh(dirty);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Error refreshing connection configs in {}, keeping previous snapshot", rootDirectory, e);
+        }
+    }
+
+    /**
+     * Collects the connection names affected by the events of a key and returns {@code true} when the set of
+     * connection directories itself may have changed.
+     */
+    private boolean drain(WatchKey key, Set<String> dirty) {
+        boolean root = key.equals(rootKey);
+        String configName = watchKeys.get(key);
+        boolean fullRescan = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                fullRescan = true;
+                continue;
+            }
+            String entry = event.context().toString();
+            if (root) {
+                fullRescan |= !entry.startsWith(HIDDEN_PREFIX) || DATA_LINK.equals(entry);
+            } else if (configName != null && (DATA_LINK.equals(entry) || !entry.startsWith(HIDDEN_PREFIX))) {
+                dirty.add(configName);
+            }
+        }
+        if (!key.reset()) {
+            watchKeys.remove(key);
+            fullRescan |= !root;
+        }
+        return fullRescan;
+    }
+
+    private void rescan() {
+        try {
+            List<String> configNames = loader.listConnectionNames();
+            for (String configName : configNames) {
+                watchKeys.put(register(rootDirectory.resolve(configName)), configName);
+            }
+            publish(Collections.emptyMap(), configNames);
+        } catch (IOException e) {
+            log.warn("Error scanning connection configs in {}, keeping previous snapshot", rootDirectory, e);
+        }
+    }
+
+    private void refresh(Set<String> configNames) {
+        if (!configNames.isEmpty()) {
+            publish(snapshot.get(), configNames);
+        }
+    }
+
+    /**
+     * Reloads the given connections on top of {@code base} and swaps the result in. A connection that can no
+     * longer be parsed keeps its previous version; one whose {@code config.yaml} disappeared is dropped. Every
+     * snapshot but the initial one is compared with the previous one to publish the change events.
+     */
+    private void publish(Map<String, ConnectionConfig> base, Collection<String> configNames) {
+        Map<String, ConnectionConfig> current = snapshot.get();
+        Map<String, ConnectionConfig> next = new ConcurrentHashMap<>(base);
+        configNames.forEach(next::remove);
+        LoadResult result = loader.load(configNames);
+        result.getConnectionConfigs().forEach(connectionConfig ->
+                next.put(connectionConfig.getName(), CompactProperties.compact(connectionConfig)));
+        result.getFailures().forEach((configName, error) -> {
+            if (error instanceof ConnectionNotFoundException) {
+                log.trace("Connection directory without {}: {}", configFileName, configName, error);
+            } else if (current.containsKey(configName)) {
+                log.warn("Error reloading connection config {}, keeping previous version", configName, error);
+                next.put(configName, current.get(configName));
+            } else {
+                log.warn("Error loading connection config {}", configName, error);
+            }
+        });
+        snapshot.set(Collections.unmodifiableMap(next));
+        index.sync(next);
+        if (loaded.getAndSet(true) && eventPublisher.hasListeners()) {
+            eventPublisher.publishChanges(current, next);
+        }
+    }
+
+    private WatchKey register(Path directory) throws IOException {
+        return directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+    }
+}
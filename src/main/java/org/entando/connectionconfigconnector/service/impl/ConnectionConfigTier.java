@@ -0,0 +1,129 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.connectionconfigconnector.exception.ConnectionAlreadyExistsException;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigTierWritePolicy;
+import org.entando.connectionconfigconnector.service.ConnectionConfigConnector;
+
+/**
+ * One level of a {@link TieredConnectionConfigConnector}.
+ *
+ * <p>A tier with a positive TTL is a cache, typically an {@link InMemoryConnectionConfigConnector}: it only serves
+ * the connection configs promoted into it from a slower tier, or written through it, and only until they are older
+ * than the TTL. Any other tier is a source, such as the file system or the sidecar, that is always asked and never
+ * written to except when it is the authoritative tier, so only a cache may have a write policy. A tier keeps track of
+ * what it caches, so it belongs to a single tiered connector.</p>
+ */
+@Slf4j
+@Getter
+public class ConnectionConfigTier {
+
+    private final ConnectionConfigConnector connector;
+    private final long ttlMillis;
+    private final ConnectionConfigTierWritePolicy writePolicy;
+    private final boolean authoritative;
+
+    @Getter(AccessLevel.NONE)
+    private final ConcurrentHashMap<String, Long> expiresAt = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the tier.
+     *
+     * @param connector connector holding the connection configs of this tier
+     * @param ttlMillis how long connection configs are cached in this tier, 0 for a source tier
+     * @param writePolicy what this tier does when a connection config is written to the authoritative tier,
+     *         {@link ConnectionConfigTierWritePolicy#NONE} by default, the only policy of a source tier
+     * @param authoritative whether the writes go to this tier
+     * @throws IllegalArgumentException if a source tier is given a write policy
+     */
+    @Builder
+    public ConnectionConfigTier(ConnectionConfigConnector connector, long ttlMillis,
+            ConnectionConfigTierWritePolicy writePolicy, boolean authoritative) {
+        if (ttlMillis <= 0 && writePolicy != null && writePolicy != ConnectionConfigTierWritePolicy.NONE) {
+            throw new IllegalArgumentException("Only a cache tier can have a write policy, not " + connector);
+        }
+        this.connector = connector;
+        this.ttlMillis = ttlMillis;
+        this.writePolicy = writePolicy == null ? ConnectionConfigTierWritePolicy.NONE : writePolicy;
+        this.authoritative = authoritative;
+    }
+
+    public boolean isCache() {
+        return ttlMillis > 0;
+    }
+
+    /**
+     * Returns the connection config held by this tier, or {@code null} if it has none or, for a cache, if it has
+     * expired.
+     */
+    public ConnectionConfig lookup(String configName) {
+        if (isCache()) {
+            Long expiry = expiresAt.get(configName);
+            if (expiry == null) {
+                return null;
+            }
+            if (expiry <= System.currentTimeMillis()) {
+                evict(configName);
+                return null;
+            }
+        }
+        try {
+            return connector.getConnectionConfig(configName);
+        } catch (ConnectionNotFoundException e) {
+            expiresAt.remove(configName);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the connection config in this tier, replacing the version it holds if any, and restarts its TTL. A
+     * failure to store it is logged: it only means the next read goes to a slower tier.
+     */
+    public void store(ConnectionConfig connectionConfig) {
+        try {
+            try {
+                connector.addConnectionConfig(connectionConfig);
+            } catch (ConnectionAlreadyExistsException e) {
+                connector.editConnectionConfig(connectionConfig);
+            }
+            if (isCache()) {
+                expiresAt.put(connectionConfig.getName(), System.currentTimeMillis() + ttlMillis);
+            }
+        } catch (ConnectionNotFoundException e) {
+            log.debug("Connection config {} removed while being stored in a tier", connectionConfig.getName(), e);
+        }
+    }
+
+    /**
+     * Removes the connection config from this tier, if it holds it.
+     */
+    public void evict(String configName) {
+        expiresAt.remove(configName);
+        try {
+            connector.deleteConnectionConfig(configName);
+        } catch (ConnectionNotFoundException e) {
+            log.trace("Connection config {} already evicted", configName);
+        }
+    }
+
+    /**
+     * Applies the write policy of this tier after a write to a slower tier.
+     *
+     * @param configName name of the connection config written
+     * @param connectionConfig new version of the connection config, {@code null} if it was deleted or if this tier
+     *         must not take it, in which case the policy drops the version held
+     */
+    public void written(String configName, ConnectionConfig connectionConfig) {
+        if (writePolicy == ConnectionConfigTierWritePolicy.WRITE_THROUGH && connectionConfig != null) {
+            store(connectionConfig);
+        } else if (writePolicy != ConnectionConfigTierWritePolicy.NONE) {
+            evict(configName);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+
+/**
+ * Decodes {@code config.yaml} files into {@link ConnectionConfig} instances.
+ *
+ * <p>The files written for a connection only hold a {@code name} and a flat {@code properties} map, so the common
+ * case is handled by a single pass over the content that allocates nothing but the resulting strings and map.
+ * Anything outside that subset (anchors, tags other than the {@code ConnectionConfig} one, block scalars, escapes,
+ * multiple documents, unknown keys...) is handed to SnakeYAML, whose instances are not thread safe and are therefore
+ * kept one per thread.</p>
+ */
+public class ConnectionConfigYamlDecoder {
+
+    private static final ThreadLocal<Yaml> SNAKE_YAML = ThreadLocal
+            .withInitial(() -> new Yaml(new Constructor(ConnectionConfig.class)));
+
+    public ConnectionConfig decode(byte[] content) {
+        ConnectionConfig connectionConfig = decodeFastPath(content);
+        return connectionConfig == null ? decodeWithSnakeYaml(content) : connectionConfig;
+    }
+
+    /**
+     * Decodes the content with the fast path only.
+     *
+     * @return the decoded connection config or {@code null} when the content uses YAML features the fast path does
+     *         not support
+     */
+    public ConnectionConfig decodeFastPath(byte[] content) {
+        if (content.length > 0 && (content[0] == 0 || (content[0] & 0xFE) == 0xFE)) {
+            return null;
+        }
+        return new FastPathParser(new String(content, StandardCharsets.UTF_8)).parse();
+    }
+
+    public ConnectionConfig decodeWithSnakeYaml(byte[] content) {
+        return SNAKE_YAML.get().load(new ByteArrayInputStream(content));
+    }
+
+    /**
+     * Line based parser for the {@code ConnectionConfig} subset of YAML. Every method returns {@code false} (or
+     * {@code null}) as soon as it meets a construct it does not understand.
+     */
+    @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.NPathComplexity", "PMD.TooManyMethods",
+            "PMD.AvoidLiteralsInIfCondition", "PMD.AvoidReassigningLoopVariables", "PMD.UseConcurrentHashMap"})
+    private static final class FastPathParser {
+
+        private static final String CLASS_TAG = "!!" + ConnectionConfig.class.getName();
+        private static final String NAME_KEY = "name";
+        private static final String PROPERTIES_KEY = "properties";
+        private static final String PLAIN_INDICATORS = "-?:,[]{}#&*!|>'\"%@`";
+        private static final String FLOW_INDICATORS = ",[]{}";
+
+        private final String text;
+        private int position;
+        private int lineStart;
+        private int lineEnd;
+
+        private String name;
+        private boolean nameSet;
+        private final Map<String, String> properties = new LinkedHashMap<>();
+        private boolean propertiesSet;
+        private boolean propertiesPresent;
+        private boolean contentSeen;
+
+        public FastPathParser(String text) {
+            this.text = text;
+            this.position = !text.isEmpty() && text.charAt(0) == '\uFEFF' ? 1 : 0;
+        }
+
+        public ConnectionConfig parse() {
+            while (nextLine()) {
+                int indent = indentation();
+                if (indent < 0) {
+                    return null;
+                }
+                if (isBlankOrComment(lineStart + indent)) {
+                    continue;
+                }
+                if (indent > 0 || !parseTopLevelLine()) {
+                    return null;
+                }
+            }
+            if (!contentSeen) {
+                return null;
+            }
+            ConnectionConfig connectionConfig = new ConnectionConfig();
+            connectionConfig.setName(name);
+            if (propertiesPresent) {
+                connectionConfig.setProperties(properties);
+            }
+            return connectionConfig;
+        }
+
+        private boolean parseTopLevelLine() {
+            String line = text.substring(lineStart, lineEnd).trim();
+            if (!contentSeen && ("---".equals(line) || CLASS_TAG.equals(line))) {
+                return true;
+            }
+            contentSeen = true;
+            int colon = keySeparator(lineStart, lineEnd);
+            if (colon < 0) {
+                return false;
+            }
+            String key = text.substring(lineStart, colon);
+            if (NAME_KEY.equals(key) && !nameSet) {
+                nameSet = true;
+                name = scalar(colon + 1, lineEnd, false);
+                return name != null || isNullValue(colon + 1, lineEnd);
+            }
+            if (PROPERTIES_KEY.equals(key) && !propertiesSet) {
+                propertiesSet = true;
+                int valueStart = skipSpaces(colon + 1, lineEnd);
+                if (isBlankOrComment(valueStart)) {
+                    return parseBlockMap();
+                }
+                if (text.charAt(valueStart) == '{') {
+                    return parseFlowMap(valueStart + 1);
+                }
+                return isNullValue(valueStart, lineEnd) && !peekIndentedLine();
+            }
+            return false;
+        }
+
+        /**
+         * Reads the indented {@code key: value} lines following {@code properties:}. A block map with no entries
+         * leaves the properties {@code null}, which is what SnakeYAML does for an empty value.
+         */
+        private boolean parseBlockMap() {
+            int entryIndent = -1;
+            while (peekIndentedLine()) {
+                nextLine();
+                int indent = indentation();
+                if (indent < 0) {
+                    return false;
+                }
+                int start = lineStart + indent;
+                if (isBlankOrComment(start)) {
+                    continue;
+                }
+                if (entryIndent < 0) {
+                    entryIndent = indent;
+                }
+                if (indent != entryIndent || !parseEntry(start, lineEnd, false)) {
+                    return false;
+                }
+            }
+            propertiesPresent = !properties.isEmpty();
+            return true;
+        }
+
+        private boolean parseFlowMap(int start) {
+            propertiesPresent = true;
+            int cursor = skipSpaces(start, lineEnd);
+            if (cursor < lineEnd && text.charAt(cursor) == '}') {
+                return isBlankOrComment(skipSpaces(cursor + 1, lineEnd));
+            }
+            while (cursor < lineEnd) {
+                int entryEnd = flowEntryEnd(cursor);
+                if (entryEnd < 0 || !parseEntry(cursor, entryEnd, true)) {
+                    return false;
+                }
+                if (text.charAt(entryEnd) == '}') {
+                    return isBlankOrComment(skipSpaces(entryEnd + 1, lineEnd));
+                }
+                cursor = skipSpaces(entryEnd + 1, lineEnd);
+            }
+            return false;
+        }
+
+        private boolean parseEntry(int start, int end, boolean flow) {
+            int colon;
+            String key;
+            if (isQuote(text.charAt(start))) {
+                int close = closingQuote(start, end);
+                colon = close + 1;
+                if (close < 0 || colon >= end || text.charAt(colon) != ':') {
+                    return false;
+                }
+                key = scalar(start, colon, flow);
+            } else {
+                colon = keySeparator(start, end);
+                if (colon < 0) {
+                    return false;
+                }
+                key = scalar(start, colon, flow);
+            }
+            if (key == null) {
+                return false;
+            }
+            String value = scalar(colon + 1, end, flow);
+            if (value == null && !isNullValue(colon + 1, end)) {
+                return false;
+            }
+            properties.put(key, value);
+            return true;
+        }
+
+        /**
+         * Returns the decoded plain, single quoted or double quoted scalar between {@code start} and {@code end}, or
+         * {@code null} if it is empty, a YAML null or not supported by the fast path.
+         */
+        private String scalar(int start, int end, boolean flow) {
+            int first = skipSpaces(start, end);
+            if (first >= end || text.charAt(first) == '#') {
+                return null;
+            }
+            char quote = text.charAt(first);
+            if (isQuote(quote)) {
+                int close = closingQuote(first, end);
+                int rest = close < 0 ? end : skipSpaces(close + 1, end);
+                if (close < 0 || rest < end && (rest == close + 1 || text.charAt(rest) != '#')) {
+                    return null;
+                }
+                String value = text.substring(first + 1, close);
+                return quote == '\'' ? value.replace("''", "'") : value;
+            }
+            if (PLAIN_INDICATORS.indexOf(quote) >= 0) {
+                return null;
+            }
+            int last = end;
+            for (int i = first; i < end; i++) {
+                char c = text.charAt(i);
+                if (c == '#' && text.charAt(i - 1) == ' ') {
+                    last = i;
+                    break;
+                }
+                if (c == ':' && (i + 1 == end || text.charAt(i + 1) == ' ')
+                        || flow && FLOW_INDICATORS.indexOf(c) >= 0) {
+                    return null;
+                }
+            }
+            String value = text.substring(first, last).trim();
+            return isNullLiteral(value) ? null : value;
+        }
+
+        private int closingQuote(int open, int end) {
+            char quote = text.charAt(open);
+            for (int i = open + 1; i < end; i++) {
+                char c = text.charAt(i);
+                if (quote == '"' && c == '\\') {
+                    return -1;
+                }
+                if (c == quote) {
+                    if (quote == '\'' && i + 1 < end && text.charAt(i + 1) == '\'') {
+                        i++;
+                    } else {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Finds the {@code :} ending a plain key, i.e. the first one followed by a space or the end of the segment.
+         */
+        private int keySeparator(int start, int end) {
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (c == ':' && (i + 1 == end || text.charAt(i + 1) == ' ')) {
+                    return i;
+                }
+                if (c == '#' || c == '"' || c == '\'' || c == '{' || c == '}') {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the index of the {@code ,} or {@code }} closing the flow map entry starting at {@code start}.
+         */
+        private int flowEntryEnd(int start) {
+            for (int i = start; i < lineEnd; i++) {
+                char c = text.charAt(i);
+                if (isQuote(c)) {
+                    i = closingQuote(i, lineEnd);
+                    if (i < 0) {
+                        return -1;
+                    }
+                } else if (c == ',' || c == '}') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean isNullValue(int start, int end) {
+            int first = skipSpaces(start, end);
+            if (isBlankOrComment(first, end)) {
+                return true;
+            }
+            int last = end;
+            int comment = text.indexOf(" #", first);
+            if (comment >= 0 && comment < end) {
+                last = comment;
+            }
+            return isNullLiteral(text.substring(first, last).trim());
+        }
+
+        private static boolean isNullLiteral(String value) {
+            return "~".equals(value) || "null".equals(value) || "Null".equals(value) || "NULL".equals(value);
+        }
+
+        private static boolean isQuote(char c) {
+            return c == '\'' || c == '"';
+        }
+
+        private boolean nextLine() {
+            if (position > text.length()) {
+                return false;
+            }
+            lineStart = position;
+            int newLine = text.indexOf('\n', lineStart);
+            lineEnd = newLine < 0 ? text.length() : newLine;
+            position = lineEnd + 1;
+            if (lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            return true;
+        }
+
+        /**
+         * Tells whether the line after the current one is indented, blank or a comment, i.e. still belongs to a
+         * block map.
+         */
+        private boolean peekIndentedLine() {
+            if (position >= text.length()) {
+                return false;
+            }
+            char c = text.charAt(position);
+            return c == ' ' || c == '\n' || c == '\r' || c == '#';
+        }
+
+        /**
+         * Returns the number of leading spaces of the current line, or {@code -1} when it contains a tab.
+         */
+        private int indentation() {
+            int indent = 0;
+            for (int i = lineStart; i < lineEnd; i++) {
+                char c = text.charAt(i);
+                if (c == '\t') {
+                    return -1;
+                }
+                if (c == ' ' && indent == i - lineStart) {
+                    indent++;
+                }
+            }
+            return indent;
+        }
+
+        private int skipSpaces(int start, int end) {
+            int position = start;
+            while (position < end && text.charAt(position) == ' ') {
+                position++;
+            }
+            return position;
+        }
+
+        private boolean isBlankOrComment(int position) {
+            return isBlankOrComment(position, lineEnd);
+        }
+
+        private boolean isBlankOrComment(int position, int end) {
+            return position >= end || text.charAt(position) == '#';
+        }
+    }
+}
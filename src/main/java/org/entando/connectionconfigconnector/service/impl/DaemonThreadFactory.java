@@ -0,0 +1,43 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates daemon threads named after the given prefix followed by a sequence number, so that the pools owned by the
+ * connectors never prevent the JVM from exiting and are easy to spot in thread dumps.
+ */
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class DaemonThreadFactory implements ThreadFactory {
+
+    private final String namePrefix;
+    private final AtomicInteger count = new AtomicInteger();
+
+    public DaemonThreadFactory(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    /**
+     * Creates a fixed size pool of daemon threads whose idle threads are released after a minute.
+     *
+     * @param namePrefix prefix of the thread names
+     * @param threads number of threads
+     * @param queueCapacity number of tasks waiting for a thread before new ones are rejected
+     */
+    public static ThreadPoolExecutor newThreadPool(String namePrefix, int threads, int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(queueCapacity), new DaemonThreadFactory(namePrefix));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,108 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigBatchResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutation;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigPatch;
+import org.entando.connectionconfigconnector.model.ConnectionConfigQuery;
+import org.entando.connectionconfigconnector.service.ConnectionConfigConnector;
+import org.entando.connectionconfigconnector.service.ConnectionConfigListener;
+import org.entando.connectionconfigconnector.service.Deadline;
+
+/**
+ * View of a connector running every operation with a {@link Deadline} bound to the calling thread.
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public class DeadlineConnectionConfigConnector implements ConnectionConfigConnector {
+
+    private final ConnectionConfigConnector delegate;
+    private final Deadline deadline;
+
+    public DeadlineConnectionConfigConnector(ConnectionConfigConnector delegate, Deadline deadline) {
+        this.delegate = delegate;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public ConnectionConfig getConnectionConfig(String configName) {
+        return deadline.run(() -> delegate.getConnectionConfig(configName));
+    }
+
+    @Override
+    public List<ConnectionConfig> getConnectionConfigs() {
+        return deadline.run(delegate::getConnectionConfigs);
+    }
+
+    @Override
+    public ConnectionConfigBatchResult getConnectionConfigs(Collection<String> configNames) {
+        return deadline.run(() -> delegate.getConnectionConfigs(configNames));
+    }
+
+    @Override
+    public void forEachConnectionConfig(Consumer<? super ConnectionConfig> action) {
+        deadline.run(() -> {
+            delegate.forEachConnectionConfig(action);
+            return null;
+        });
+    }
+
+    @Override
+    public List<ConnectionConfig> findConnectionConfigs(ConnectionConfigQuery query) {
+        return deadline.run(() -> delegate.findConnectionConfigs(query));
+    }
+
+    @Override
+    public void addConnectionConfigListener(ConnectionConfigListener listener) {
+        delegate.addConnectionConfigListener(listener);
+    }
+
+    @Override
+    public void removeConnectionConfigListener(ConnectionConfigListener listener) {
+        delegate.removeConnectionConfigListener(listener);
+    }
+
+    @Override
+    public ConnectionConfig addConnectionConfig(ConnectionConfig connectionConfig) {
+        return deadline.run(() -> delegate.addConnectionConfig(connectionConfig));
+    }
+
+    @Override
+    public void deleteConnectionConfig(String configName) {
+        deadline.run(() -> {
+            delegate.deleteConnectionConfig(configName);
+            return null;
+        });
+    }
+
+    @Override
+    public ConnectionConfig editConnectionConfig(ConnectionConfig connectionConfig) {
+        return deadline.run(() -> delegate.editConnectionConfig(connectionConfig));
+    }
+
+    @Override
+    public ConnectionConfig patchConnectionConfig(ConnectionConfigPatch patch) {
+        return deadline.run(() -> delegate.patchConnectionConfig(patch));
+    }
+
+    @Override
+    public List<ConnectionConfigMutationResult> applyMutations(List<ConnectionConfigMutation> mutations) {
+        return deadline.run(() -> delegate.applyMutations(mutations));
+    }
+
+    @Override
+    public boolean keepsLoadedConfigs() {
+        return delegate.keepsLoadedConfigs();
+    }
+
+    /**
+     * Returns a view whose operations run with the earlier of the two deadlines.
+     */
+    @Override
+    public ConnectionConfigConnector withDeadline(Deadline deadline) {
+        return new DeadlineConnectionConfigConnector(this, deadline);
+    }
+}
@@ -1,56 +1,357 @@
 package org.entando.connectionconfigconnector.service.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.annotation.PreDestroy;
 import org.entando.connectionconfigconnector.exception.ConnectionAlreadyExistsException;
+import org.entando.connectionconfigconnector.exception.ConnectionBatchAbortedException;
 import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
 import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigBatchResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutation;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationType;
+import org.entando.connectionconfigconnector.model.ConnectionConfigPatch;
+import org.entando.connectionconfigconnector.model.ConnectionConfigQuery;
 import org.entando.connectionconfigconnector.service.ConnectionConfigConnector;
+import org.entando.connectionconfigconnector.service.ConnectionConfigListener;
+import org.entando.connectionconfigconnector.service.Deadline;
 
+/**
+ * Connector keeping the connection configs in memory, with their properties stored as {@link CompactProperties} and
+ * indexed by a {@link ConnectionConfigIndex} for {@link #findConnectionConfigs(ConnectionConfigQuery)}.
+ *
+ * <p>The configs live in an immutable snapshot that every write replaces, copy-on-write, with a compare-and-set:
+ * writes are swapped in without locking and retried when another one got in first, and reads never lock. Like the
+ * file system and sidecar connectors, every config returned is a mutable copy the caller owns, so modifying it never
+ * changes the snapshot. Each snapshot has a {@link #getGeneration() generation}, incremented by every write, that
+ * tells cheaply whether anything changed. A write copies the whole snapshot, which suits the small and read-mostly
+ * sets this connector is meant for.</p>
+ *
+ * <p>Listeners are notified of the differences between the last snapshot published and the current one, which the
+ * writers publish one at a time once their snapshot is swapped in. The events therefore always go from an older
+ * generation to a newer one: a write finishing late can no longer publish a value that a newer write replaced. The
+ * delivery thread is released by {@link #stop()}.</p>
+ */
+@SuppressWarnings("PMD.TooManyMethods")
 public class InMemoryConnectionConfigConnector implements ConnectionConfigConnector {
 
-    private final Map<String, ConnectionConfig> connectionConfigMap = new ConcurrentHashMap<>();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(Collections.emptyMap(), 0));
+    private final ConnectionConfigIndex index = new ConnectionConfigIndex();
+    private final Object indexLock = new Object();
+    private long indexedGeneration;
+    private final Object eventLock = new Object();
+    private Snapshot publishedSnapshot = snapshot.get();
+
+    private final ConnectionConfigEventPublisher eventPublisher = new ConnectionConfigEventPublisher(
+            "in-memory-connection-config-events-", ConnectionConfigEventPublisher.DEFAULT_COALESCE_MILLIS);
+
+    @PreDestroy
+    public void stop() {
+        eventPublisher.close();
+    }
+
+    /**
+     * Returns the generation of the current snapshot: two equal values mean that no write happened in between.
+     */
+    public long getGeneration() {
+        return snapshot.get().getGeneration();
+    }
 
     @Override
     public ConnectionConfig getConnectionConfig(String configName) {
-        ConnectionConfig connectionConfig = connectionConfigMap.get(configName);
+        ConnectionConfig connectionConfig = snapshot.get().get(configName);
         if (connectionConfig == null) {
             throw new ConnectionNotFoundException();
         }
-        return connectionConfig;
+        return CompactProperties.mutableCopy(connectionConfig);
     }
 
     @Override
     public List<ConnectionConfig> getConnectionConfigs() {
-        return new ArrayList<>(connectionConfigMap.values());
+        return copies(snapshot.get().getConnectionConfigs());
     }
 
     @Override
-    public ConnectionConfig addConnectionConfig(ConnectionConfig connectionConfig) {
-        ConnectionConfig retrieved = connectionConfigMap.get(connectionConfig.getName());
-        if (retrieved != null) {
-            throw new ConnectionAlreadyExistsException();
+    public ConnectionConfigBatchResult getConnectionConfigs(Collection<String> configNames) {
+        Snapshot current = snapshot.get();
+        LinkedHashMap<String, ConnectionConfig> found = new LinkedHashMap<>();
+        List<String> notFound = new ArrayList<>();
+        for (String configName : new LinkedHashSet<>(configNames)) {
+            ConnectionConfig connectionConfig = current.get(configName);
+            if (connectionConfig == null) {
+                notFound.add(configName);
+            } else {
+                found.put(configName, CompactProperties.mutableCopy(connectionConfig));
+            }
         }
-        return connectionConfigMap.put(connectionConfig.getName(), connectionConfig);
+        return new ConnectionConfigBatchResult(found, notFound);
     }
 
     @Override
-    public void deleteConnectionConfig(String configName) {
-        ConnectionConfig retrieved = connectionConfigMap.get(configName);
-        if (retrieved == null) {
-            throw new ConnectionNotFoundException();
+    public void forEachConnectionConfig(Consumer<? super ConnectionConfig> action) {
+        snapshot.get().getConnectionConfigs().stream().map(CompactProperties::mutableCopy).forEach(action);
+    }
+
+    /**
+     * Brings the index up to date with the current snapshot if needed, then queries it.
+     */
+    @Override
+    public List<ConnectionConfig> findConnectionConfigs(ConnectionConfigQuery query) {
+        Snapshot current = snapshot.get();
+        synchronized (indexLock) {
+            if (current.getGeneration() > indexedGeneration) {
+                index.sync(current.getConnectionConfigMap());
+                indexedGeneration = current.getGeneration();
+            }
         }
-        connectionConfigMap.remove(configName);
+        return copies(index.find(query));
+    }
+
+    @Override
+    public void addConnectionConfigListener(ConnectionConfigListener listener) {
+        eventPublisher.addListener(listener);
+    }
+
+    @Override
+    public void removeConnectionConfigListener(ConnectionConfigListener listener) {
+        eventPublisher.removeListener(listener);
+    }
+
+    @Override
+    public ConnectionConfig addConnectionConfig(ConnectionConfig connectionConfig) {
+        ConnectionConfig stored = CompactProperties.compact(connectionConfig);
+        ConnectionConfig previous = compute(stored.getName(), retrieved -> {
+            if (retrieved != null) {
+                throw new ConnectionAlreadyExistsException();
+            }
+            return stored;
+        });
+        publishChanges();
+        return copy(previous);
+    }
+
+    @Override
+    public void deleteConnectionConfig(String configName) {
+        compute(configName, retrieved -> {
+            if (retrieved == null) {
+                throw new ConnectionNotFoundException();
+            }
+            return null;
+        });
+        publishChanges();
     }
 
     @Override
     public ConnectionConfig editConnectionConfig(ConnectionConfig connectionConfig) {
-        ConnectionConfig retrieved = connectionConfigMap.get(connectionConfig.getName());
-        if (retrieved == null) {
-            throw new ConnectionNotFoundException();
+        ConnectionConfig stored = CompactProperties.compact(connectionConfig);
+        ConnectionConfig previous = compute(stored.getName(), retrieved -> {
+            if (retrieved == null) {
+                throw new ConnectionNotFoundException();
+            }
+            return stored;
+        });
+        publishChanges();
+        return copy(previous);
+    }
+
+    /**
+     * Applies the patch atomically. Connection configs kept in memory have no entity tag, so a patch conditioned on one
+     * is rejected rather than applied unconditionally.
+     */
+    @Override
+    public ConnectionConfig patchConnectionConfig(ConnectionConfigPatch patch) {
+        if (patch.getIfMatch() != null) {
+            throw new UnsupportedOperationException("Connection configs kept in memory have no entity tag");
+        }
+        AtomicReference<ConnectionConfig> patched = new AtomicReference<>();
+        compute(patch.getName(), retrieved -> {
+            if (retrieved == null) {
+                throw new ConnectionNotFoundException();
+            }
+            patched.set(CompactProperties.compact(patch.applyTo(retrieved)));
+            return patched.get();
+        });
+        publishChanges();
+        return CompactProperties.mutableCopy(patched.get());
+    }
+
+    /**
+     * Applies the batch as one atomic unit: every mutation is checked against the state the previous ones leave
+     * behind and, if any of them would fail, none is applied. The failing mutations then report their error and the
+     * others a {@link ConnectionBatchAbortedException}. Otherwise the whole batch is swapped in as a single snapshot,
+     * so no reader sees part of it.
+     */
+    @Override
+    public List<ConnectionConfigMutationResult> applyMutations(List<ConnectionConfigMutation> mutations) {
+        List<ConnectionConfig> stored = mutations.stream()
+                .map(mutation -> mutation.getType() == ConnectionConfigMutationType.DELETE ? null
+                        : CompactProperties.compact(mutation.getConnectionConfig()))
+                .collect(Collectors.toList());
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = snapshot.get();
+            List<RuntimeException> errors = check(mutations, current);
+            if (errors.stream().anyMatch(error -> error != null)) {
+                return aborted(mutations, errors);
+            }
+            next = current.with(connectionConfigs -> IntStream.range(0, mutations.size())
+                    .forEach(position -> apply(connectionConfigs, mutations.get(position), stored.get(position))));
+        } while (!snapshot.compareAndSet(current, next));
+        publishChanges();
+        return IntStream.range(0, mutations.size())
+                .mapToObj(position -> new ConnectionConfigMutationResult(mutations.get(position),
+                        copy(stored.get(position)), null))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Swaps in a snapshot where the config with the given name is replaced by what the remapping function returns
+     * ({@code null} removes it), retrying with the newer snapshot if another write got in first. The function may run
+     * more than once, and an exception it throws leaves the snapshot unchanged.
+     *
+     * @return the config replaced
+     */
+    private ConnectionConfig compute(String configName, UnaryOperator<ConnectionConfig> remapping) {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = snapshot.get();
+            next = current.with(connectionConfigs -> connectionConfigs.compute(configName,
+                    (name, retrieved) -> remapping.apply(retrieved)));
+        } while (!snapshot.compareAndSet(current, next));
+        return current.get(configName);
+    }
+
+    /**
+     * Returns the error each mutation would fail with when applied after the previous ones to the snapshot.
+     */
+    private static List<RuntimeException> check(List<ConnectionConfigMutation> mutations, Snapshot current) {
+        HashMap<String, Boolean> existing = new HashMap<>();
+        return mutations.stream()
+                .map(mutation -> check(mutation, current, existing))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the error the mutation would fail with, given the existence of the connections touched by the previous
+     * mutations of the batch, and records the effect of the mutation.
+     */
+    private static RuntimeException check(ConnectionConfigMutation mutation, Snapshot current,
+            Map<String, Boolean> existing) {
+        boolean exists = existing.getOrDefault(mutation.getName(), current.get(mutation.getName()) != null);
+        if (mutation.getType() == ConnectionConfigMutationType.ADD) {
+            existing.put(mutation.getName(), true);
+            return exists ? new ConnectionAlreadyExistsException() : null;
+        }
+        if (!exists) {
+            return new ConnectionNotFoundException();
+        }
+        existing.put(mutation.getName(), mutation.getType() != ConnectionConfigMutationType.DELETE);
+        return null;
+    }
+
+    private static ConnectionConfig copy(ConnectionConfig connectionConfig) {
+        return connectionConfig == null ? null : CompactProperties.mutableCopy(connectionConfig);
+    }
+
+    private static List<ConnectionConfig> copies(List<ConnectionConfig> connectionConfigs) {
+        return connectionConfigs.stream().map(CompactProperties::mutableCopy).collect(Collectors.toList());
+    }
+
+    private static List<ConnectionConfigMutationResult> aborted(List<ConnectionConfigMutation> mutations,
+            List<RuntimeException> errors) {
+        return IntStream.range(0, mutations.size())
+                .mapToObj(position -> new ConnectionConfigMutationResult(mutations.get(position), null,
+                        errors.get(position) == null ? new ConnectionBatchAbortedException() : errors.get(position)))
+                .collect(Collectors.toList());
+    }
+
+    private static void apply(Map<String, ConnectionConfig> connectionConfigs, ConnectionConfigMutation mutation,
+            ConnectionConfig stored) {
+        if (stored == null) {
+            connectionConfigs.remove(mutation.getName());
+        } else {
+            connectionConfigs.put(mutation.getName(), stored);
+        }
+    }
+
+    /**
+     * Publishes the changes made since the last snapshot published, unless a newer write already did. Only the events
+     * are serialized: the snapshots are swapped in without waiting for them.
+     */
+    private void publishChanges() {
+        synchronized (eventLock) {
+            Snapshot current = snapshot.get();
+            if (current.getGeneration() <= publishedSnapshot.getGeneration()) {
+                return;
+            }
+            if (eventPublisher.hasListeners()) {
+                eventPublisher.publishChanges(publishedSnapshot.getConnectionConfigMap(),
+                        current.getConnectionConfigMap());
+            }
+            publishedSnapshot = current;
+        }
+    }
+
+    /**
+     * Returns this connector: it never blocks, so there is nothing to time out.
+     */
+    @Override
+    public ConnectionConfigConnector withDeadline(Deadline deadline) {
+        return this;
+    }
+
+    /**
+     * Immutable state of the connector at a given generation.
+     */
+    private static final class Snapshot {
+
+        private final Map<String, ConnectionConfig> connectionConfigMap;
+        private final List<ConnectionConfig> connectionConfigs;
+        private final long generation;
+
+        public Snapshot(Map<String, ConnectionConfig> connectionConfigMap, long generation) {
+            this.connectionConfigMap = Collections.unmodifiableMap(connectionConfigMap);
+            this.connectionConfigs = Collections.unmodifiableList(new ArrayList<>(connectionConfigMap.values()));
+            this.generation = generation;
+        }
+
+        public ConnectionConfig get(String configName) {
+            return connectionConfigMap.get(configName);
+        }
+
+        /**
+         * Returns the next generation, made of a copy of this one changed by the given function.
+         */
+        public Snapshot with(Consumer<Map<String, ConnectionConfig>> change) {
+            HashMap<String, ConnectionConfig> next = new HashMap<>(connectionConfigMap);
+            change.accept(next);
+            return new Snapshot(next, generation + 1);
+        }
+
+        public Map<String, ConnectionConfig> getConnectionConfigMap() {
+            return connectionConfigMap;
+        }
+
+        public List<ConnectionConfig> getConnectionConfigs() {
+            return connectionConfigs;
+        }
+
+        public long getGeneration() {
+            return generation;
         }
-        return connectionConfigMap.put(connectionConfig.getName(), connectionConfig);
     }
 }
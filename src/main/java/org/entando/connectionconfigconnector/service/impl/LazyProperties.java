@@ -0,0 +1,319 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.web.exception.InternalServerException;
+
+/**
+ * Properties of a connection config read from the file system, whose values may be references to other files of the
+ * connection directory, e.g. {@code caChain: $file:ca-chain.pem}. Such a value is only read when it is first accessed,
+ * then kept with these properties, so that large values such as certificate chains cost nothing to the readers that do
+ * not need them. Iterating over the keys or checking their presence does not read any file, and neither does comparing
+ * two such property maps: the referenced files are compared by size and modification time.
+ *
+ * <p>The references are checked when the connection config is loaded, which fails if one of them is not a readable
+ * file directly inside the connection directory, or is a symbolic link to a file outside of it. Links within the
+ * directory, such as those of a mounted Kubernetes volume to its {@code ..data} directory, are followed, and the file
+ * they lead to is the one read. A file that can no longer be read afterwards is logged and reads as
+ * a {@code null} value: the {@link Map} methods never throw. The instances held by a snapshot are immutable; callers
+ * get their own {@link #copy(boolean) mutable copy}, which shares the values already read.</p>
+ */
+@Slf4j
+@SuppressWarnings("PMD.TooManyMethods")
+public final class LazyProperties extends AbstractMap<String, String> {
+
+    public static final String FILE_REFERENCE_PREFIX = "$file:";
+
+    private final Map<String, String> declaredProperties;
+    private final Map<String, FileReference> references;
+    private final ConcurrentHashMap<Path, String> loaded;
+    private final boolean mutable;
+
+    private LazyProperties(Map<String, String> declared, Map<String, FileReference> references,
+            ConcurrentHashMap<Path, String> loaded, boolean mutable) {
+        super();
+        this.declaredProperties = declared;
+        this.references = references;
+        this.loaded = loaded;
+        this.mutable = mutable;
+    }
+
+    /**
+     * Returns the connection config with its file references resolved lazily against the connection directory, or
+     * the connection config itself if it has none.
+     *
+     * @throws InternalServerException if a reference does not designate a readable file directly inside the directory
+     */
+    @SuppressWarnings("PMD.UseConcurrentHashMap") // filled by this thread only, then never modified concurrently
+    public static ConnectionConfig deferFileReferences(ConnectionConfig connectionConfig, Path directory) {
+        Map<String, String> properties = connectionConfig.getProperties();
+        if (properties == null || !properties.values().stream().anyMatch(LazyProperties::isReference)) {
+            return connectionConfig;
+        }
+        Path normalized = directory.normalize();
+        Map<String, FileReference> references = new HashMap<>();
+        properties.forEach((key, value) -> {
+            if (isReference(value)) {
+                references.put(key, checkReference(normalized, value));
+            }
+        });
+        return new ConnectionConfig(connectionConfig.getName(),
+                new LazyProperties(new HashMap<>(properties), references, new ConcurrentHashMap<>(), true));
+    }
+
+    /**
+     * Returns the properties as declared, with file references left unresolved.
+     */
+    public static Map<String, String> declared(Map<String, String> properties) {
+        return properties instanceof LazyProperties ? ((LazyProperties) properties).declaredProperties : properties;
+    }
+
+    /**
+     * Tells whether the value of the given key is only read from its file when accessed.
+     */
+    public static boolean isDeferred(Map<String, String> properties, String key) {
+        return properties instanceof LazyProperties && ((LazyProperties) properties).references.containsKey(key);
+    }
+
+    public static boolean isReference(String value) {
+        return value != null && value.startsWith(FILE_REFERENCE_PREFIX);
+    }
+
+    /**
+     * Returns a copy of these properties sharing the values already read, or these properties themselves when they
+     * are immutable and an immutable copy is asked for.
+     */
+    public LazyProperties copy(boolean mutableCopy) {
+        if (!mutable && !mutableCopy) {
+            return this;
+        }
+        return new LazyProperties(new HashMap<>(declaredProperties), new HashMap<>(references), loaded, mutableCopy);
+    }
+
+    @Override
+    public String get(Object key) {
+        FileReference reference = references.get(key);
+        return reference == null ? declaredProperties.get(key)
+                : loaded.computeIfAbsent(reference.getFile(), this::read);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return declaredProperties.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return declaredProperties.size();
+    }
+
+    @Override
+    public String put(String key, String value) {
+        checkMutable();
+        String previous = get(key);
+        declaredProperties.put(key, value);
+        references.remove(key);
+        return previous;
+    }
+
+    @Override
+    public String remove(Object key) {
+        checkMutable();
+        String previous = get(key);
+        declaredProperties.remove(key);
+        references.remove(key);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        checkMutable();
+        declaredProperties.clear();
+        references.clear();
+    }
+
+    @Override
+    @SuppressWarnings("PMD.AccessorMethodGeneration")
+    public Set<Entry<String, String>> entrySet() {
+        Set<String> keys = declaredProperties.keySet();
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                Iterator<String> iterator = keys.iterator();
+                return new Iterator<Entry<String, String>>() {
+                    private String current;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        current = iterator.next();
+                        return new LazyEntry(current);
+                    }
+
+                    @Override
+                    public void remove() {
+                        checkMutable();
+                        iterator.remove();
+                        references.remove(current);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.size();
+            }
+        };
+    }
+
+    /**
+     * Compares two lazy property maps without reading their files: they are equal when they declare the same values
+     * and their references designate the same files, with the same size and modification time as when loaded.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof LazyProperties) {
+            LazyProperties properties = (LazyProperties) other;
+            return declaredProperties.equals(properties.declaredProperties) && references.equals(properties.references);
+        }
+        return super.equals(other);
+    }
+
+    /**
+     * Hashes what {@link #equals(Object)} compares two lazy property maps on, the declared values and the referenced
+     * files with their size and modification time, so that no file is read.
+     */
+    @Override
+    public int hashCode() {
+        return declaredProperties.hashCode() * 31 + references.hashCode();
+    }
+
+    private void checkMutable() {
+        if (!mutable) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static FileReference checkReference(Path directory, String reference) {
+        Path file = directory.resolve(reference.substring(FILE_REFERENCE_PREFIX.length())).normalize();
+        if (!directory.equals(file.getParent())) {
+            log.warn("Reference to {}, outside of the connection directory {}", file, directory);
+            throw new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY);
+        }
+        Path realFile;
+        BasicFileAttributes attributes;
+        try {
+            realFile = toRealPathWithin(directory, file);
+            attributes = Files.readAttributes(realFile, BasicFileAttributes.class);
+        } catch (IOException e) {
+            log.warn("Error checking property file {}", file, e);
+            throw new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY, e);
+        }
+        if (!attributes.isRegularFile() || !Files.isReadable(realFile)) {
+            log.warn("Reference to {}, which is not a readable file", file);
+            throw new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY);
+        }
+        return new FileReference(realFile, attributes.size(), attributes.lastModifiedTime());
+    }
+
+    /**
+     * Returns the real path of the file, after following every symbolic link, provided it is still inside the real
+     * path of the directory.
+     */
+    private static Path toRealPathWithin(Path directory, Path file) throws IOException {
+        Path realDirectory = directory.toRealPath();
+        Path realFile = file.toRealPath();
+        if (!realFile.startsWith(realDirectory)) {
+            log.warn("Reference to {}, linked to {} outside of the connection directory {}", file, realFile,
+                    realDirectory);
+            throw new InternalServerException(ConnectionConfigConnectorImpl.INTERNAL_ERROR_KEY);
+        }
+        return realFile;
+    }
+
+    private String read(Path file) {
+        try {
+            return new String(Files.readAllBytes(file), UTF_8);
+        } catch (IOException e) {
+            log.warn("Error reading property file {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * File a property refers to, as found when the connection config was loaded.
+     */
+    @Value
+    private static class FileReference {
+
+        private Path file;
+        private long size;
+        private FileTime lastModifiedTime;
+    }
+
+    /**
+     * Entry whose value is only resolved when asked for.
+     */
+    private final class LazyEntry implements Entry<String, String> {
+
+        private final String key;
+
+        LazyEntry(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public String getValue() {
+            return get(key);
+        }
+
+        @Override
+        public String setValue(String value) {
+            return put(key, value);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> entry = (Entry<?, ?>) other;
+            return Objects.equals(key, entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.web.exception.ConflictException;
+import org.entando.web.exception.NotFoundException;
+
+/**
+ * Records the connector metrics in a Micrometer {@link MeterRegistry}:
+ * <ul>
+ * <li>{@value #OPERATIONS_TIMER}, tagged by {@code operation}, {@code security.level} and {@code outcome};</li>
+ * <li>{@value #YAML_PARSE_TIMER};</li>
+ * <li>{@value #SIDECAR_REQUESTS_TIMER}, tagged by {@code method} and {@code status}.</li>
+ * </ul>
+ * All of them publish a percentile histogram, so that latency percentiles can be aggregated across instances.
+ */
+public class MicrometerConnectionConfigMetrics implements ConnectionConfigMetrics {
+
+    public static final String OPERATIONS_TIMER = "entando.connections.operations";
+    public static final String YAML_PARSE_TIMER = "entando.connections.yaml.parse";
+    public static final String SIDECAR_REQUESTS_TIMER = "entando.connections.sidecar.requests";
+
+    public static final String OUTCOME_HIT = "hit";
+    public static final String OUTCOME_NOT_FOUND = "not_found";
+    public static final String OUTCOME_CONFLICT = "conflict";
+    public static final String OUTCOME_ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer yamlParseTimer;
+
+    public MicrometerConnectionConfigMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.yamlParseTimer = Timer.builder(YAML_PARSE_TIMER)
+                .description("Time spent parsing connection config files")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> T recordOperation(String operation, SecurityLevel securityLevel, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_ERROR;
+        try {
+            T result = call.get();
+            outcome = OUTCOME_HIT;
+            return result;
+        } catch (NotFoundException e) {
+            outcome = OUTCOME_NOT_FOUND;
+            throw e;
+        } catch (ConflictException e) {
+            outcome = OUTCOME_CONFLICT;
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(OPERATIONS_TIMER)
+                    .description("Time taken by the connection config connector operations")
+                    .tag("operation", operation)
+                    .tag("security.level", securityLevel.name())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public <T> T recordYamlParse(Supplier<T> parse) {
+        return yamlParseTimer.record(parse);
+    }
+
+    @Override
+    public void recordSidecarRequest(String method, String status, long durationNanos) {
+        Timer.builder(SIDECAR_REQUESTS_TIMER)
+                .description("Time taken by the HTTP requests sent to the sidecar")
+                .tag("method", method)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,25 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.function.Supplier;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+
+/**
+ * Metrics used when no meter registry is available: calls are run as they are and nothing is recorded.
+ */
+public class NoopConnectionConfigMetrics implements ConnectionConfigMetrics {
+
+    @Override
+    public <T> T recordOperation(String operation, SecurityLevel securityLevel, Supplier<T> call) {
+        return call.get();
+    }
+
+    @Override
+    public <T> T recordYamlParse(Supplier<T> parse) {
+        return parse.get();
+    }
+
+    @Override
+    public void recordSidecarRequest(String method, String status, long durationNanos) {
+        // nothing to record
+    }
+}
@@ -0,0 +1,88 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.entando.connectionconfigconnector.exception.DeadlineExceededException;
+import org.entando.connectionconfigconnector.exception.SidecarBulkheadFullException;
+import org.entando.connectionconfigconnector.service.Deadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Caps the number of requests in flight to the sidecar, so that a slow sidecar cannot tie up every request thread of
+ * the application. A call waits at most {@code maxWaitMillis}, or until its {@link Deadline}, for a free slot and is
+ * rejected with {@link SidecarBulkheadFullException} otherwise.
+ */
+@Component
+public class SidecarBulkhead {
+
+    private final boolean limited;
+    private final Semaphore permits;
+    private final long maxWaitMillis;
+
+    /**
+     * Creates the bulkhead.
+     *
+     * @param maxConcurrent maximum number of requests in flight, {@code 0} for no limit
+     * @param maxWaitMillis how long a call may wait for one of the requests in flight to complete
+     */
+    public SidecarBulkhead(@Value("${plugin.sidecar.bulkhead.max-concurrent:0}") int maxConcurrent,
+            @Value("${plugin.sidecar.bulkhead.max-wait-millis:0}") long maxWaitMillis) {
+        this.limited = maxConcurrent > 0;
+        this.permits = new Semaphore(limited ? maxConcurrent : 0);
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Sends the request once a slot is free. Fails with {@link DeadlineExceededException} if the deadline of the
+     * current thread expires before or while the request is sent.
+     */
+    public <T> T call(Supplier<T> request) {
+        if (Deadline.isCurrentExpired()) {
+            throw new DeadlineExceededException();
+        }
+        if (!limited) {
+            return send(request);
+        }
+        if (!acquire()) {
+            throw new SidecarBulkheadFullException();
+        }
+        try {
+            return send(request);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static <T> T send(Supplier<T> request) {
+        try {
+            return request.get();
+        } catch (ResourceAccessException e) {
+            if (Deadline.isCurrentExpired()) {
+                throw new DeadlineExceededException(e);
+            }
+            throw e;
+        }
+    }
+
+    private boolean acquire() {
+        long waitMillis = Deadline.current()
+                .map(deadline -> Math.min(maxWaitMillis, deadline.remainingMillis()))
+                .orElse(maxWaitMillis);
+        try {
+            return permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Returns how many more requests may be sent right now, or {@code -1} if there is no limit.
+     */
+    public int getAvailableSlots() {
+        return limited ? permits.availablePermits() : -1;
+    }
+}
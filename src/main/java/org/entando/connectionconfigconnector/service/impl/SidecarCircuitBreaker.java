@@ -0,0 +1,158 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import static org.entando.connectionconfigconnector.service.impl.SidecarCircuitBreaker.State.CLOSED;
+import static org.entando.connectionconfigconnector.service.impl.SidecarCircuitBreaker.State.HALF_OPEN;
+import static org.entando.connectionconfigconnector.service.impl.SidecarCircuitBreaker.State.OPEN;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.connectionconfigconnector.exception.SidecarUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Circuit breaker in front of the sidecar, disabled unless {@code failureThreshold} is positive. After
+ * {@code failureThreshold} consecutive failures to reach the sidecar (connection errors and timeouts, not error
+ * responses) the circuit opens and calls are rejected without contacting the sidecar. Once {@code openMillis} have
+ * elapsed a single probe call is let through: it closes the circuit if it succeeds and opens it again otherwise.
+ */
+@Slf4j
+@Component
+public class SidecarCircuitBreaker {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 0;
+    public static final long DEFAULT_OPEN_MILLIS = 5000;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final AtomicReference<State> state = new AtomicReference<>(CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+
+    /**
+     * Creates the circuit breaker.
+     *
+     * @param failureThreshold number of consecutive failures opening the circuit, {@code 0} disables the breaker
+     * @param openMillis how long the circuit stays open before a probe call is allowed
+     */
+    public SidecarCircuitBreaker(@Value("${plugin.sidecar.circuit.failure-threshold:0}") int failureThreshold,
+            @Value("${plugin.sidecar.circuit.open-millis:5000}") long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Sends a request through the circuit breaker, failing with {@link SidecarUnavailableException} while the circuit
+     * is open. Only connection errors and timeouts ({@link ResourceAccessException}) count as failures: any response,
+     * server errors included, shows that the sidecar can be reached. Requests rejected by the {@link SidecarBulkhead},
+     * or that timed out because the deadline of the caller expired, count as neither.
+     */
+    public <T> T call(Supplier<T> request) {
+        if (!tryAcquire()) {
+            throw new SidecarUnavailableException();
+        }
+        boolean failed = false;
+        boolean abandoned = false;
+        try {
+            return request.get();
+        } catch (ResourceAccessException e) {
+            failed = true;
+            throw e;
+        } catch (SidecarUnavailableException e) {
+            abandoned = true;
+            throw e;
+        } finally {
+            report(failed, abandoned);
+        }
+    }
+
+    /**
+     * Like {@link #call(Supplier)}, but answers with {@code fallback} when the sidecar is unavailable, that is when
+     * the circuit is open or the call failed with a server or I/O error. The error is rethrown if the fallback returns
+     * {@code null}.
+     */
+    public <T> T call(Supplier<T> request, Supplier<T> fallback) {
+        try {
+            return call(request);
+        } catch (SidecarUnavailableException | HttpServerErrorException | ResourceAccessException e) {
+            T value = fallback.get();
+            if (value == null) {
+                throw e;
+            }
+            return value;
+        }
+    }
+
+    private void report(boolean failed, boolean abandoned) {
+        if (abandoned) {
+            onAbandoned();
+        } else if (failed) {
+            onFailure();
+        } else {
+            onSuccess();
+        }
+    }
+
+    /**
+     * Tells whether a call may be sent to the sidecar. When it returns {@code true} the outcome of the call must be
+     * reported with {@link #onSuccess()} or {@link #onFailure()}.
+     */
+    public boolean tryAcquire() {
+        if (failureThreshold <= 0) {
+            return true;
+        }
+        switch (state.get()) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                return System.currentTimeMillis() - openedAt.get() >= openMillis
+                        && state.compareAndSet(OPEN, HALF_OPEN);
+            default:
+                return false;
+        }
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state.compareAndSet(HALF_OPEN, CLOSED)) {
+            log.info("Sidecar is reachable again, closing the circuit");
+        }
+    }
+
+    /**
+     * Reports that a call let through by {@link #tryAcquire()} did not tell anything about the health of the sidecar.
+     * A probe call is given back, so that the next call can probe again.
+     */
+    public void onAbandoned() {
+        state.compareAndSet(HALF_OPEN, OPEN);
+    }
+
+    public void onFailure() {
+        if (failureThreshold <= 0) {
+            return;
+        }
+        if (state.get() == HALF_OPEN) {
+            openedAt.set(System.currentTimeMillis());
+            state.compareAndSet(HALF_OPEN, OPEN);
+        } else if (state.get() == CLOSED && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt.set(System.currentTimeMillis());
+            if (state.compareAndSet(CLOSED, OPEN)) {
+                log.warn("Sidecar failed {} times in a row, opening the circuit for {} ms", failureThreshold,
+                        openMillis);
+            }
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+}
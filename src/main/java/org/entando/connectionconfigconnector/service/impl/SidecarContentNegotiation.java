@@ -0,0 +1,98 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import lombok.experimental.UtilityClass;
+import org.entando.connectionconfigconnector.model.SidecarEncoding;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Sets up the encodings a {@link RestTemplate} negotiates with the sidecar.
+ *
+ * <p>With a binary encoding, a converter reading it is put before the JSON one, so the {@code Accept} header of the
+ * requests lists the binary media type first, then JSON. A sidecar supporting it answers in the binary encoding, any
+ * other one in JSON, and the response is read according to its {@code Content-Type}. Request bodies are always sent
+ * as JSON, so that writes keep working with every sidecar. The other Jackson converters a {@link RestTemplate}
+ * registers when their formats are on the classpath are removed, so the sidecar is only offered what was chosen.</p>
+ *
+ * <p>Every Jackson converter binds connection configs with the {@link ConnectionConfigJacksonModule}. Request bodies
+ * are gzipped from the given size on; gzipped responses are decompressed by the Apache HTTP client, which asks for
+ * them by default.</p>
+ */
+@UtilityClass
+public class SidecarContentNegotiation {
+
+    /**
+     * Configures the converters and the interceptors of the template.
+     *
+     * @param restTemplate template calling the sidecar
+     * @param encoding name of the {@link SidecarEncoding} asked for, before JSON
+     * @param compressionMinRequestBytes size from which request bodies are gzipped, 0 to never compress them
+     */
+    public static void configure(RestTemplate restTemplate, String encoding, int compressionMinRequestBytes) {
+        configure(restTemplate, SidecarEncoding.valueOf(encoding), compressionMinRequestBytes);
+    }
+
+    /**
+     * Configures the converters and the interceptors of the template.
+     *
+     * @param restTemplate template calling the sidecar
+     * @param encoding encoding asked for, before JSON
+     * @param compressionMinRequestBytes size from which request bodies are gzipped, 0 to never compress them
+     */
+    public static void configure(RestTemplate restTemplate, SidecarEncoding encoding, int compressionMinRequestBytes) {
+        List<HttpMessageConverter<?>> converters = restTemplate.getMessageConverters();
+        converters.removeIf(converter -> converter instanceof AbstractJackson2HttpMessageConverter
+                && !(converter instanceof MappingJackson2HttpMessageConverter));
+        if (encoding == SidecarEncoding.SMILE) {
+            converters.add(0, new SmileReader());
+        } else if (encoding == SidecarEncoding.CBOR) {
+            converters.add(0, new CborReader());
+        }
+        converters.stream()
+                .filter(AbstractJackson2HttpMessageConverter.class::isInstance)
+                .map(converter -> ((AbstractJackson2HttpMessageConverter) converter).getObjectMapper())
+                .forEach(objectMapper -> objectMapper.registerModule(new ConnectionConfigJacksonModule()));
+        if (compressionMinRequestBytes > 0) {
+            restTemplate.getInterceptors().add(new SidecarRequestCompressionInterceptor(compressionMinRequestBytes));
+        }
+    }
+
+    /**
+     * Smile converter only used to read responses.
+     */
+    private static class SmileReader extends MappingJackson2SmileHttpMessageConverter {
+
+        @Override
+        public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+            return false;
+        }
+    }
+
+    /**
+     * CBOR converter only used to read responses.
+     */
+    private static class CborReader extends MappingJackson2CborHttpMessageConverter {
+
+        @Override
+        public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+            return false;
+        }
+
+        @Override
+        public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.protocol.HttpContext;
+import org.entando.connectionconfigconnector.service.Deadline;
+
+/**
+ * Shortens the timeouts of a request to the sidecar (waiting for a pooled connection, connecting and reading) to the
+ * time left before the {@link Deadline} of the calling thread. Requests sent without a deadline keep the configured
+ * timeouts.
+ */
+public class SidecarDeadlineInterceptor implements HttpRequestInterceptor {
+
+    @Override
+    public void process(HttpRequest request, HttpContext context) {
+        Deadline.current().ifPresent(deadline -> {
+            HttpClientContext clientContext = HttpClientContext.adapt(context);
+            RequestConfig config = clientContext.getRequestConfig();
+            // Apache HttpClient reads a zero timeout as infinite
+            int remainingMillis = (int) Math.min(Integer.MAX_VALUE, Math.max(1, deadline.remainingMillis()));
+            clientContext.setRequestConfig(RequestConfig.copy(config)
+                    .setConnectionRequestTimeout(cap(config.getConnectionRequestTimeout(), remainingMillis))
+                    .setConnectTimeout(cap(config.getConnectTimeout(), remainingMillis))
+                    .setSocketTimeout(cap(config.getSocketTimeout(), remainingMillis))
+                    .build());
+        });
+    }
+
+    private static int cap(int timeoutMillis, int remainingMillis) {
+        return timeoutMillis > 0 ? Math.min(timeoutMillis, remainingMillis) : remainingMillis;
+    }
+}
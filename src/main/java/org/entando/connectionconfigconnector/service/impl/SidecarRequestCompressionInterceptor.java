@@ -0,0 +1,55 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Gzips the bodies sent to the sidecar once they reach a minimum size, setting {@code Content-Encoding: gzip}. Small
+ * bodies, such as a single connection config, are sent as they are, since compressing them costs more than it saves.
+ * Bodies that already have a content encoding are left untouched.
+ */
+public class SidecarRequestCompressionInterceptor implements ClientHttpRequestInterceptor {
+
+    public static final String GZIP = "gzip";
+
+    private final int minBytes;
+
+    /**
+     * Creates the interceptor.
+     *
+     * @param minBytes size from which request bodies are compressed, strictly positive
+     */
+    public SidecarRequestCompressionInterceptor(int minBytes) {
+        if (minBytes <= 0) {
+            throw new IllegalArgumentException("The minimum size of compressed requests must be positive");
+        }
+        this.minBytes = minBytes;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        HttpHeaders headers = request.getHeaders();
+        if (body.length < minBytes || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return execution.execute(request, body);
+        }
+        byte[] compressed = compress(body);
+        headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+        headers.setContentLength(compressed.length);
+        return execution.execute(request, compressed);
+    }
+
+    private static byte[] compress(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,35 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.io.IOException;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Times the HTTP exchanges with the sidecar, from sending the request to receiving the response headers.
+ */
+public class SidecarRequestMetricsInterceptor implements ClientHttpRequestInterceptor {
+
+    public static final String IO_ERROR = "IO_ERROR";
+
+    private final ConnectionConfigMetrics metrics;
+
+    public SidecarRequestMetricsInterceptor(ConnectionConfigMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        long start = System.nanoTime();
+        String status = IO_ERROR;
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            status = String.valueOf(response.getRawStatusCode());
+            return response;
+        } finally {
+            metrics.recordSidecarRequest(request.getMethodValue(), status, System.nanoTime() - start);
+        }
+    }
+}
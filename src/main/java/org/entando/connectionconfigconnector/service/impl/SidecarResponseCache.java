@@ -0,0 +1,230 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.StaleConnectionConfig;
+import org.entando.connectionconfigconnector.model.VersionedConnectionConfig;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Read-through cache of the sidecar {@code /config} responses. Entries younger than the TTL are served as is; older
+ * ones keep their validators ({@code ETag} and {@code Last-Modified}) so they can be revalidated with a conditional
+ * request instead of being downloaded again. When the sidecar cannot be reached, expired entries can still be served
+ * as {@link StaleConnectionConfig} for up to {@code maxStaleMillis} past their TTL.
+ *
+ * <p>Cached connection configs are stored with immutable {@link CompactProperties} and handed out as shallow copies,
+ * so callers can neither alter the cache nor each other's results. The cached list is indexed on demand, once per
+ * response, to answer queries.</p>
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public class SidecarResponseCache {
+
+    private final long ttlMillis;
+    private final long maxStaleMillis;
+    private final Map<String, Entry<ConnectionConfig>> entries = new ConcurrentHashMap<>();
+    private final AtomicReference<Entry<List<ConnectionConfig>>> listEntry = new AtomicReference<>();
+    private final AtomicReference<IndexedList> listIndex = new AtomicReference<>();
+
+    public SidecarResponseCache(long ttlMillis) {
+        this(ttlMillis, 0);
+    }
+
+    public SidecarResponseCache(long ttlMillis, long maxStaleMillis) {
+        this.ttlMillis = ttlMillis;
+        this.maxStaleMillis = maxStaleMillis;
+    }
+
+    public boolean isEnabled() {
+        return ttlMillis > 0 || maxStaleMillis > 0;
+    }
+
+    public Entry<ConnectionConfig> get(String configName) {
+        return entries.get(configName);
+    }
+
+    /**
+     * Returns the cached connection config if it has the given entity tag, whatever its age.
+     */
+    public Optional<ConnectionConfig> getVersion(String configName, String version) {
+        return Optional.ofNullable(entries.get(configName))
+                .map(Entry::getValue)
+                .filter(connectionConfig -> version != null
+                        && version.equals(VersionedConnectionConfig.versionOf(connectionConfig)));
+    }
+
+    public void put(String configName, Entry<ConnectionConfig> entry) {
+        entries.put(configName, entry);
+    }
+
+    public void remove(String configName) {
+        entries.remove(configName);
+        listEntry.set(null);
+    }
+
+    public Entry<List<ConnectionConfig>> getList() {
+        return listEntry.get();
+    }
+
+    /**
+     * Caches a listing. Its configs are also cached one by one, without validators, so that a listing also serves
+     * the lookups by name until it expires.
+     */
+    public void putList(Entry<List<ConnectionConfig>> entry) {
+        listEntry.set(entry);
+        entry.getValue().stream()
+                .filter(connectionConfig -> connectionConfig.getName() != null)
+                .forEach(connectionConfig -> entries.put(connectionConfig.getName(),
+                        new Entry<>(connectionConfig, null, null)));
+    }
+
+    /**
+     * Returns the index of the list held by the entry, building it if the entry holds a list not indexed yet. A
+     * revalidated entry keeps its list, and so its index.
+     */
+    public ConnectionConfigIndex indexOf(Entry<List<ConnectionConfig>> entry) {
+        IndexedList indexed = listIndex.get();
+        if (indexed == null || indexed.getConnectionConfigs() != entry.getValue()) {
+            indexed = new IndexedList(entry.getValue());
+            listIndex.set(indexed);
+        }
+        return indexed.getIndex();
+    }
+
+    /**
+     * Records the result of a mutation: the entry is replaced by the configuration returned by the sidecar (without
+     * validators, it will be fetched again once expired) and the cached list is dropped.
+     */
+    public void update(ConnectionConfig connectionConfig) {
+        entries.put(connectionConfig.getName(), new Entry<>(freeze(connectionConfig), null, null));
+        listEntry.set(null);
+    }
+
+    public boolean isFresh(Entry<?> entry) {
+        return System.currentTimeMillis() - entry.getStoredAt() < ttlMillis;
+    }
+
+    /**
+     * Tells whether the entry may be served while the sidecar is unavailable.
+     */
+    public boolean isUsableWhenStale(Entry<?> entry) {
+        return entry != null && entry.getValue() != null
+                && System.currentTimeMillis() - entry.getStoredAt() < ttlMillis + maxStaleMillis;
+    }
+
+    public static ConnectionConfig freeze(ConnectionConfig connectionConfig) {
+        return CompactProperties.compact(connectionConfig);
+    }
+
+    public static List<ConnectionConfig> freeze(List<ConnectionConfig> connectionConfigs) {
+        return Collections.unmodifiableList(connectionConfigs.stream()
+                .map(SidecarResponseCache::freeze)
+                .collect(Collectors.toList()));
+    }
+
+    public static ConnectionConfig copyOf(ConnectionConfig connectionConfig) {
+        return CompactProperties.mutableCopy(connectionConfig);
+    }
+
+    public static List<ConnectionConfig> copyOf(List<ConnectionConfig> connectionConfigs) {
+        return connectionConfigs.stream()
+                .map(SidecarResponseCache::copyOf)
+                .collect(Collectors.toList());
+    }
+
+    public static ConnectionConfig staleCopyOf(ConnectionConfig connectionConfig, long fetchedAt) {
+        return new StaleConnectionConfig(connectionConfig.getName(),
+                CompactProperties.mutableCopyOf(connectionConfig.getProperties()), fetchedAt);
+    }
+
+    public static List<ConnectionConfig> staleCopyOf(List<ConnectionConfig> connectionConfigs, long fetchedAt) {
+        return connectionConfigs.stream()
+                .map(connectionConfig -> staleCopyOf(connectionConfig, fetchedAt))
+                .collect(Collectors.toList());
+    }
+
+    @Getter
+    private static class IndexedList {
+
+        private final List<ConnectionConfig> connectionConfigs;
+        private final ConnectionConfigIndex index;
+
+        IndexedList(List<ConnectionConfig> connectionConfigs) {
+            this.connectionConfigs = connectionConfigs;
+            this.index = new ConnectionConfigIndex(connectionConfigs);
+        }
+    }
+
+    /**
+     * A cached response body together with the validators needed to revalidate it.
+     */
+    @Getter
+    public static class Entry<T> {
+
+        private final T value;
+        private final String entityTag;
+        private final String lastModified;
+        private final long storedAt;
+
+        public Entry(T value, String entityTag, String lastModified) {
+            this(value, entityTag, lastModified, System.currentTimeMillis());
+        }
+
+        private Entry(T value, String entityTag, String lastModified, long storedAt) {
+            this.value = value;
+            this.entityTag = entityTag;
+            this.lastModified = lastModified;
+            this.storedAt = storedAt;
+        }
+
+        /**
+         * Returns a request carrying the validators of the entry, if any, so that the sidecar can answer {@code 304}.
+         */
+        public static HttpEntity<Void> conditionalRequest(Entry<?> cached) {
+            HttpHeaders headers = new HttpHeaders();
+            if (cached != null && cached.hasValidators()) {
+                if (cached.getEntityTag() != null) {
+                    headers.setIfNoneMatch(cached.getEntityTag());
+                }
+                if (cached.getLastModified() != null) {
+                    headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+                }
+            }
+            return new HttpEntity<>(headers);
+        }
+
+        /**
+         * Returns a request carrying the body and an {@code If-Match} precondition on the given entity tag, so that
+         * the sidecar answers {@code 412} if the config was changed since the version with that tag.
+         */
+        public static <T> HttpEntity<T> conditionalEdit(String entityTag, T body) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setIfMatch(entityTag);
+            return new HttpEntity<>(body, headers);
+        }
+
+        public static <T> Entry<T> fromResponse(ResponseEntity<?> response, T value) {
+            return new Entry<>(value, response.getHeaders().getETag(),
+                    response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
+        }
+
+        /**
+         * Returns a copy of this entry whose age starts over, used when the sidecar answered {@code 304}.
+         */
+        public Entry<T> revalidated() {
+            return new Entry<>(value, entityTag, lastModified, System.currentTimeMillis());
+        }
+
+        public boolean hasValidators() {
+            return entityTag != null || lastModified != null;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.entando.connectionconfigconnector.service.impl.CompactProperties.copyOf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.connectionconfigconnector.model.StaleConnectionConfig;
+
+/**
+ * Binary file holding the connection configs last fetched from the sidecar.
+ *
+ * <p>The file starts with a magic number, a format version, the length of the payload and its CRC-32, followed by
+ * the payload itself. It is written to a temporary file in the same directory, readable and writable by the owner only
+ * where the file system has POSIX permissions, flushed to disk and then renamed over the previous snapshot, so a
+ * crash leaves either the previous or the next snapshot in place. A file that is truncated, fails its checksum or has
+ * an unknown version is deleted and reported as empty.</p>
+ */
+@Slf4j
+public class SidecarSnapshotFile {
+
+    public static final int VERSION = 1;
+
+    private static final int MAGIC = 0x45434353;
+    private static final int HEADER_SIZE = 20;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+
+    private final Path directory;
+    private final Path file;
+    private final FileAttribute<?>[] permissions;
+
+    public SidecarSnapshotFile(Path directory, String fileName) {
+        this.directory = directory;
+        this.file = directory.resolve(fileName);
+        // the configs hold credentials, so only the owner may read them
+        this.permissions = directory.getFileSystem().supportedFileAttributeViews().contains("posix")
+                ? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(OWNER_ONLY)}
+                : new FileAttribute<?>[0];
+    }
+
+    public Path getPath() {
+        return file;
+    }
+
+    /**
+     * Reads the snapshot. Each config is returned as a {@link StaleConnectionConfig} holding when it was fetched.
+     * Returns an empty list if there is no snapshot or if it cannot be trusted.
+     */
+    public List<StaleConnectionConfig> read() {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            log.debug("No connection config snapshot at {}", file);
+            return Collections.emptyList();
+        } catch (IOException e) {
+            log.warn("Error reading connection config snapshot {}, ignoring it", file, e);
+            return Collections.emptyList();
+        }
+        try {
+            return decode(content);
+        } catch (IOException e) {
+            log.warn("Discarding corrupt connection config snapshot {}: {}", file, e.getMessage());
+            delete();
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Atomically replaces the snapshot with the given configs.
+     */
+    public void write(Collection<StaleConnectionConfig> connectionConfigs) throws IOException {
+        byte[] content = encode(connectionConfigs);
+        Files.createDirectories(directory);
+        Path temp = directory.resolve(file.getFileName() + TEMP_SUFFIX);
+        Files.deleteIfExists(temp);
+        try (FileChannel channel = FileChannel.open(temp,
+                EnumSet.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE), permissions)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+    }
+
+    public void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Error deleting connection config snapshot {}", file, e);
+        }
+    }
+
+    /**
+     * Flushes the rename to disk. Not every platform can open a directory for that, in which case the rename is only
+     * as durable as the file system makes it.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.trace("Cannot sync directory {}", directory, e);
+        }
+    }
+
+    private static byte[] encode(Collection<StaleConnectionConfig> connectionConfigs) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeInt(connectionConfigs.size());
+            for (StaleConnectionConfig connectionConfig : connectionConfigs) {
+                writeString(out, connectionConfig.getName());
+                out.writeLong(connectionConfig.getFetchedAt());
+                Map<String, String> properties = connectionConfig.getProperties();
+                out.writeInt(properties == null ? -1 : properties.size());
+                if (properties != null) {
+                    for (Map.Entry<String, String> property : properties.entrySet()) {
+                        writeString(out, property.getKey());
+                        writeString(out, property.getValue());
+                    }
+                }
+            }
+        }
+        byte[] body = payload.toByteArray();
+        CRC32 checksum = new CRC32();
+        checksum.update(body);
+        return ByteBuffer.allocate(HEADER_SIZE + body.length)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(body.length)
+                .putLong(checksum.getValue())
+                .put(body)
+                .array();
+    }
+
+    private static List<StaleConnectionConfig> decode(byte[] content) throws IOException {
+        if (content.length < HEADER_SIZE) {
+            throw new IOException("truncated header");
+        }
+        ByteBuffer header = ByteBuffer.wrap(content, 0, HEADER_SIZE);
+        int length = checkHeader(header, content.length);
+        CRC32 checksum = new CRC32();
+        checksum.update(content, HEADER_SIZE, length);
+        if (header.getLong() != checksum.getValue()) {
+            throw new IOException("checksum mismatch");
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content, HEADER_SIZE, length))) {
+            int count = in.readInt();
+            List<StaleConnectionConfig> connectionConfigs = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                connectionConfigs.add(readConnectionConfig(in));
+            }
+            return connectionConfigs;
+        }
+    }
+
+    /**
+     * Validates the header of the snapshot up to the checksum and returns the length of the payload.
+     */
+    private static int checkHeader(ByteBuffer header, int fileLength) throws IOException {
+        if (header.getInt() != MAGIC) {
+            throw new IOException("not a connection config snapshot");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported version " + version);
+        }
+        int length = header.getInt();
+        if (length != fileLength - HEADER_SIZE) {
+            throw new IOException("truncated payload");
+        }
+        return length;
+    }
+
+    private static StaleConnectionConfig readConnectionConfig(DataInputStream in) throws IOException {
+        String name = readString(in);
+        long fetchedAt = in.readLong();
+        int size = in.readInt();
+        if (size < 0) {
+            return new StaleConnectionConfig(name, null, fetchedAt);
+        }
+        LinkedHashMap<String, String> properties = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            properties.put(readString(in), readString(in));
+        }
+        return new StaleConnectionConfig(name, copyOf(properties), fetchedAt);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new IOException("truncated string");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,209 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import static org.entando.connectionconfigconnector.service.impl.CompactProperties.copyOf;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.StaleConnectionConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the connection configs fetched from the sidecar in a {@link SidecarSnapshotFile}, so that a restarted
+ * application can serve them before the sidecar has answered, or while it is down.
+ *
+ * <p>On {@link #start()} the snapshot is loaded. The sidecar can only be called on behalf of an authenticated user, so
+ * it is listed by the first read, on the caller's thread, through {@link #reconcile(Supplier)}, and again by a later
+ * read at most once per {@code plugin.sidecar.snapshot.retry-millis} while it fails. Until then the configs of the
+ * snapshot are served as {@link StaleConnectionConfig} instances; once the listing succeeds it replaces the snapshot
+ * and reads go to the sidecar again. Every config fetched afterwards is
+ * recorded, and changes are written back to disk at most once per {@code plugin.sidecar.snapshot.write-delay-millis}.
+ * The store is disabled when {@code plugin.sidecar.snapshot.dir} is empty.</p>
+ */
+@Slf4j
+@Component
+@SuppressWarnings("PMD.DoNotUseThreads")
+public class SidecarSnapshotStore {
+
+    public static final String SNAPSHOT_FILE_NAME = "connection-configs.snapshot";
+
+    private final boolean enabled;
+    private final SidecarSnapshotFile file;
+    private final long writeDelayMillis;
+    private final long retryMillis;
+    private final ConcurrentHashMap<String, StaleConnectionConfig> connectionConfigs = new ConcurrentHashMap<>();
+    private final AtomicBoolean reconciled = new AtomicBoolean(true);
+    private final AtomicLong nextReconcileAt = new AtomicLong();
+    private final AtomicBoolean writePending = new AtomicBoolean();
+    private final ScheduledThreadPoolExecutor executor;
+    private final Object writeLock = new Object();
+
+    /**
+     * Creates the store.
+     *
+     * @param directory directory holding the snapshot file, empty to disable the store
+     * @param writeDelayMillis how long changes are collected before the snapshot is written
+     * @param retryMillis how long to wait before listing the sidecar again when a listing fails
+     */
+    public SidecarSnapshotStore(@Value("${plugin.sidecar.snapshot.dir:}") String directory,
+            @Value("${plugin.sidecar.snapshot.write-delay-millis:1000}") long writeDelayMillis,
+            @Value("${plugin.sidecar.snapshot.retry-millis:5000}") long retryMillis) {
+        this.enabled = !directory.isEmpty();
+        this.file = new SidecarSnapshotFile(Paths.get(directory), SNAPSHOT_FILE_NAME);
+        this.writeDelayMillis = writeDelayMillis;
+        this.retryMillis = retryMillis;
+        this.executor = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("connection-config-snapshot-"));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Tells whether the sidecar has been listed since the snapshot was loaded, i.e. whether reads no longer need to
+     * be served from the snapshot.
+     */
+    public boolean isReconciled() {
+        return reconciled.get();
+    }
+
+    /**
+     * Loads the snapshot, which is then served until {@link #reconcile(Supplier)} succeeds.
+     */
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        List<StaleConnectionConfig> loaded = file.read();
+        loaded.forEach(connectionConfig -> connectionConfigs.put(connectionConfig.getName(), connectionConfig));
+        log.info("Loaded {} connection configs from snapshot {}", loaded.size(), file.getPath());
+        reconciled.set(false);
+    }
+
+    /**
+     * Replaces the snapshot with the configs returned by {@code source}, called on the current thread, unless the
+     * snapshot is reconciled already, another thread is listing the sidecar or the last attempt failed less than
+     * {@code retryMillis} ago. A failure is logged and leaves the snapshot in place.
+     */
+    public void reconcile(Supplier<List<ConnectionConfig>> source) {
+        long attemptAt = nextReconcileAt.get();
+        if (reconciled.get() || System.currentTimeMillis() < attemptAt
+                || !nextReconcileAt.compareAndSet(attemptAt, Long.MAX_VALUE)) {
+            return;
+        }
+        if (!listSidecar(source)) {
+            nextReconcileAt.set(System.currentTimeMillis() + retryMillis);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        if (writePending.get()) {
+            write();
+        }
+    }
+
+    /**
+     * Returns the config of the snapshot with the given name while the snapshot is not reconciled yet.
+     */
+    public Optional<ConnectionConfig> getUnreconciled(String configName) {
+        return reconciled.get() ? Optional.empty() : Optional.ofNullable(connectionConfigs.get(configName));
+    }
+
+    /**
+     * Returns every config of the snapshot while the snapshot is not reconciled yet.
+     */
+    public Optional<List<ConnectionConfig>> getAllUnreconciled() {
+        return reconciled.get() ? Optional.empty() : Optional.of(new ArrayList<>(connectionConfigs.values()));
+    }
+
+    /**
+     * Records a config freshly returned by the sidecar. Stale configs served from the cache are ignored.
+     */
+    public void record(ConnectionConfig connectionConfig) {
+        if (!enabled || connectionConfig == null || StaleConnectionConfig.isStale(connectionConfig)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        connectionConfigs.put(connectionConfig.getName(), toSnapshotEntry(connectionConfig, now));
+        scheduleWrite();
+    }
+
+    /**
+     * Replaces the recorded configs with a complete listing freshly returned by the sidecar. A listing served from
+     * the cache is ignored.
+     */
+    public void recordAll(Collection<ConnectionConfig> listing) {
+        if (!enabled || listing.stream().anyMatch(StaleConnectionConfig::isStale)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        ConcurrentHashMap<String, StaleConnectionConfig> entries = new ConcurrentHashMap<>();
+        listing.forEach(connectionConfig -> entries.put(connectionConfig.getName(),
+                toSnapshotEntry(connectionConfig, now)));
+        connectionConfigs.keySet().retainAll(entries.keySet());
+        connectionConfigs.putAll(entries);
+        scheduleWrite();
+    }
+
+    public void forget(String configName) {
+        if (enabled && connectionConfigs.remove(configName) != null) {
+            scheduleWrite();
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException") // any failure of the sidecar is retried
+    private boolean listSidecar(Supplier<List<ConnectionConfig>> source) {
+        List<ConnectionConfig> listing;
+        try {
+            listing = source.get();
+        } catch (RuntimeException e) {
+            log.warn("Error listing connection configs, serving snapshot for another {} ms", retryMillis, e);
+            return false;
+        }
+        if (listing.stream().anyMatch(StaleConnectionConfig::isStale)) {
+            log.warn("Sidecar unavailable, serving snapshot for another {} ms", retryMillis);
+            return false;
+        }
+        recordAll(listing);
+        reconciled.set(true);
+        log.info("Reconciled connection config snapshot with {} configs from the sidecar", listing.size());
+        return true;
+    }
+
+    private void scheduleWrite() {
+        if (writePending.compareAndSet(false, true) && !executor.isShutdown()) {
+            executor.schedule(this::write, writeDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void write() {
+        synchronized (writeLock) {
+            writePending.set(false);
+            try {
+                file.write(new ArrayList<>(connectionConfigs.values()));
+            } catch (IOException e) {
+                log.warn("Error writing connection config snapshot {}", file.getPath(), e);
+            }
+        }
+    }
+
+    private static StaleConnectionConfig toSnapshotEntry(ConnectionConfig connectionConfig, long fetchedAt) {
+        return new StaleConnectionConfig(connectionConfig.getName(),
+                copyOf(connectionConfig.getProperties()), fetchedAt);
+    }
+}
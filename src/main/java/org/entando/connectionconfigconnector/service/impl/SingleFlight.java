@@ -0,0 +1,137 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.entando.connectionconfigconnector.exception.DeadlineExceededException;
+import org.entando.connectionconfigconnector.service.Deadline;
+
+/**
+ * Collapses concurrent loads of the same key: the first caller runs the load while the callers arriving before it
+ * completes wait for its outcome instead of starting their own. Nothing is kept once the load completes, so a caller
+ * arriving afterwards starts a new one.
+ *
+ * <p>Waiting callers receive the value through {@code shareValue}, which lets a mutable result be copied for each of
+ * them, or the exception thrown by the load. A failure matching {@code callerFailure} only concerns the caller that
+ * ran the load, e.g. its own deadline expiring: the waiting callers then load again instead of receiving it. A caller
+ * with a {@link Deadline} bound to its thread waits no longer than the deadline and then fails with a
+ * {@link DeadlineExceededException}, leaving the load running for the others.</p>
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final UnaryOperator<V> shareValue;
+    private final Predicate<RuntimeException> callerFailure;
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder collapsedCalls = new LongAdder();
+
+    public SingleFlight(UnaryOperator<V> shareValue) {
+        this(shareValue, e -> false);
+    }
+
+    public SingleFlight(UnaryOperator<V> shareValue, Predicate<RuntimeException> callerFailure) {
+        this.shareValue = shareValue;
+        this.callerFailure = callerFailure;
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing == null) {
+            return lead(key, flight, loader);
+        }
+        collapsedCalls.increment();
+        try {
+            V value = await(existing);
+            return value == null ? null : shareValue.apply(value);
+        } catch (CallerFailure e) {
+            return load(key, loader); // the load failed for its own caller only, run it again
+        }
+    }
+
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private V lead(K key, CompletableFuture<V> flight, Supplier<V> loader) {
+        loads.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(callerFailure.test(e) ? new CallerFailure() : e);
+            throw e;
+        } catch (Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Waits for the outcome of the load of another caller, failing with a {@link CallerFailure} when that load failed
+     * for reasons of its own.
+     */
+    @SuppressWarnings("PMD.PreserveStackTrace") // the cause is the failure of the load, rethrown as is
+    private V await(CompletableFuture<V> flight) {
+        Optional<Deadline> deadline = Deadline.current();
+        try {
+            return deadline.isPresent()
+                    ? flight.get(deadline.get().remainingMillis(), TimeUnit.MILLISECONDS)
+                    : flight.get();
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeadlineExceededException(e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * Returns the number of loads actually run.
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * Returns the number of calls that were served by a load started by another caller.
+     */
+    public long getCollapsedCalls() {
+        return collapsedCalls.sum();
+    }
+
+    /**
+     * Outcome handed to the waiting callers when the load failed for reasons of its caller only.
+     */
+    private static final class CallerFailure extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        CallerFailure() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package org.entando.connectionconfigconnector.service.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
+import org.entando.connectionconfigconnector.exception.InvalidStrictOperationException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigEvent;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutation;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationType;
+import org.entando.connectionconfigconnector.model.ConnectionConfigPatch;
+import org.entando.connectionconfigconnector.model.ConnectionConfigQuery;
+import org.entando.connectionconfigconnector.service.ConnectionConfigConnector;
+import org.entando.connectionconfigconnector.service.ConnectionConfigListener;
+import org.entando.connectionconfigconnector.service.Deadline;
+
+/**
+ * Connector looking connection configs up through several {@link ConnectionConfigTier tiers} in order, e.g. an
+ * in-memory cache, then the file system, then the sidecar. A config found in a tier is promoted into the caches of the
+ * tiers before it, so the next lookup stops earlier.
+ *
+ * <p>Listings merge the source tiers, the first tier having a given connection winning. Writes go to the single
+ * authoritative tier and are rejected with an {@link InvalidStrictOperationException} when there is none; each cache
+ * in front of it then applies its {@link org.entando.connectionconfigconnector.model.ConnectionConfigTierWritePolicy}.
+ * The same policy applies to the changes the source tiers report to their listeners, so that a cache does not keep
+ * serving a config changed behind its back; a LENIENT source only reports the writes made through it, so a cache in
+ * front of it picks up the changes made by others when its TTL expires. A change to a connection that an earlier
+ * source also has is not the one served, so the caches only drop that connection instead of storing the change. Only
+ * the sources supporting listeners are listened to, the caches in front of the others relying on their TTL, and the
+ * event reporting a write made through this connector is not applied again.</p>
+ *
+ * <p>Every change to a connection bumps its generation, and a config is only promoted if the generation of its
+ * connection is still the one seen before looking it up: a lookup that raced with a change cannot put back into a
+ * cache the version that the change has just evicted.</p>
+ */
+@Slf4j
+@SuppressWarnings("PMD.TooManyMethods")
+public class TieredConnectionConfigConnector implements ConnectionConfigConnector {
+
+    private final List<ConnectionConfigTier> tiers;
+    private final List<ConnectionConfigTier> sources;
+    private final ConnectionConfigTier authoritative;
+    private final List<ConnectionConfigTier> reportingSources;
+    private final ConcurrentHashMap<String, Long> generations = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Optional<ConnectionConfig>> ownWrites = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the connector and starts listening to the changes of the source tiers that support listeners.
+     *
+     * @param tiers tiers in lookup order, at most one of them authoritative
+     */
+    public TieredConnectionConfigConnector(List<ConnectionConfigTier> tiers) {
+        List<ConnectionConfigTier> authoritativeTiers = tiers.stream()
+                .filter(ConnectionConfigTier::isAuthoritative)
+                .collect(Collectors.toList());
+        if (tiers.isEmpty() || authoritativeTiers.size() > 1) {
+            throw new IllegalArgumentException("A tiered connector needs tiers, at most one of them authoritative");
+        }
+        this.tiers = new ArrayList<>(tiers);
+        this.sources = tiers.stream().filter(tier -> !tier.isCache()).collect(Collectors.toList());
+        this.authoritative = authoritativeTiers.stream().findFirst().orElse(null);
+        this.reportingSources = sources.stream().filter(this::listenTo).collect(Collectors.toList());
+    }
+
+    private boolean listenTo(ConnectionConfigTier source) {
+        try {
+            source.getConnector().addConnectionConfigListener(event -> changed(source, event));
+            return true;
+        } catch (UnsupportedOperationException e) {
+            log.debug("{} reports no changes, the caches in front of it rely on their TTL", source.getConnector());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the connection config from the first tier having it, after promoting it into the caches of the tiers
+     * before that one.
+     */
+    @Override
+    public ConnectionConfig getConnectionConfig(String configName) {
+        long generation = generations.getOrDefault(configName, 0L);
+        for (int position = 0; position < tiers.size(); position++) {
+            ConnectionConfig connectionConfig = tiers.get(position).lookup(configName);
+            if (connectionConfig != null) {
+                promote(connectionConfig, position, generation);
+                return connectionConfig;
+            }
+        }
+        throw new ConnectionNotFoundException();
+    }
+
+    /**
+     * Stores the connection config into the caches before the given position, unless its connection changed since
+     * the given generation. The check and the stores are atomic with respect to the changes of that connection.
+     */
+    private void promote(ConnectionConfig connectionConfig, int position, long generation) {
+        List<ConnectionConfigTier> caches = caches(position);
+        if (caches.isEmpty()) {
+            return;
+        }
+        generations.compute(connectionConfig.getName(), (configName, current) -> {
+            if ((current == null ? 0L : current) == generation) {
+                caches.forEach(cache -> cache.store(connectionConfig));
+            }
+            return current;
+        });
+    }
+
+    @Override
+    public List<ConnectionConfig> getConnectionConfigs() {
+        List<ConnectionConfig> connectionConfigs = new ArrayList<>();
+        forEachConnectionConfig(connectionConfigs::add);
+        return connectionConfigs;
+    }
+
+    /**
+     * Streams the source tiers one after the other, skipping the connections already passed on by an earlier tier.
+     * Like a lookup, each connection is promoted into the caches of the tiers before the one it comes from.
+     */
+    @Override
+    @SuppressWarnings("PMD.UseConcurrentHashMap") // a copy read by this thread only
+    public void forEachConnectionConfig(Consumer<? super ConnectionConfig> action) {
+        Map<String, Long> listedGenerations = new HashMap<>(generations);
+        Set<String> seen = new HashSet<>();
+        sources.forEach(source -> {
+            int position = tiers.indexOf(source);
+            source.getConnector().forEachConnectionConfig(connectionConfig -> {
+                if (seen.add(connectionConfig.getName())) {
+                    promote(connectionConfig, position,
+                            listedGenerations.getOrDefault(connectionConfig.getName(), 0L));
+                    action.accept(connectionConfig);
+                }
+            });
+        });
+    }
+
+    @Override
+    public boolean keepsLoadedConfigs() {
+        return tiers.stream().anyMatch(ConnectionConfigTier::isCache);
+    }
+
+    @Override
+    public List<ConnectionConfig> findConnectionConfigs(ConnectionConfigQuery query) {
+        return ConnectionConfigIndex.filter(getConnectionConfigs(), query);
+    }
+
+    @Override
+    public void addConnectionConfigListener(ConnectionConfigListener listener) {
+        reportingSources.forEach(source -> source.getConnector().addConnectionConfigListener(listener));
+    }
+
+    @Override
+    public void removeConnectionConfigListener(ConnectionConfigListener listener) {
+        reportingSources.forEach(source -> source.getConnector().removeConnectionConfigListener(listener));
+    }
+
+    @Override
+    public ConnectionConfig addConnectionConfig(ConnectionConfig connectionConfig) {
+        ConnectionConfig added = authoritativeConnector().addConnectionConfig(connectionConfig);
+        writtenThrough(connectionConfig.getName(), stored(connectionConfig, added));
+        return added;
+    }
+
+    @Override
+    public void deleteConnectionConfig(String configName) {
+        authoritativeConnector().deleteConnectionConfig(configName);
+        writtenThrough(configName, null);
+    }
+
+    @Override
+    public ConnectionConfig editConnectionConfig(ConnectionConfig connectionConfig) {
+        ConnectionConfig edited = authoritativeConnector().editConnectionConfig(connectionConfig);
+        writtenThrough(connectionConfig.getName(), stored(connectionConfig, edited));
+        return edited;
+    }
+
+    @Override
+    public ConnectionConfig patchConnectionConfig(ConnectionConfigPatch patch) {
+        ConnectionConfig patched = authoritativeConnector().patchConnectionConfig(patch);
+        writtenThrough(patch.getName(), patched);
+        return patched;
+    }
+
+    @Override
+    public List<ConnectionConfigMutationResult> applyMutations(List<ConnectionConfigMutation> mutations) {
+        List<ConnectionConfigMutationResult> results = authoritativeConnector().applyMutations(mutations);
+        results.stream()
+                .filter(ConnectionConfigMutationResult::isSuccessful)
+                .forEach(result -> writtenThrough(result.getMutation().getName(),
+                        result.getMutation().getType() == ConnectionConfigMutationType.DELETE ? null
+                                : stored(result.getMutation().getConnectionConfig(), result.getConnectionConfig())));
+        return results;
+    }
+
+    /**
+     * Returns the version of a connection config stored by the authoritative tier, i.e. the one its connector
+     * returned, so that the caches hold what the source holds. The in-memory connector returns the version it replaced
+     * instead, as {@link java.util.Map#put(Object, Object)} does, and stores what it is given.
+     */
+    private ConnectionConfig stored(ConnectionConfig written, ConnectionConfig returned) {
+        return returned == null || authoritative.getConnector() instanceof InMemoryConnectionConfigConnector ? written
+                : returned;
+    }
+
+    @Override
+    public ConnectionConfigConnector withDeadline(Deadline deadline) {
+        return new DeadlineConnectionConfigConnector(this, deadline);
+    }
+
+    private ConnectionConfigConnector authoritativeConnector() {
+        if (authoritative == null) {
+            throw new InvalidStrictOperationException();
+        }
+        return authoritative.getConnector();
+    }
+
+    /**
+     * Applies a write made through this connector to the caches right away, and records it so that the event the
+     * authoritative tier reports for it, if it reports any, is not applied again.
+     */
+    private void writtenThrough(String configName, ConnectionConfig connectionConfig) {
+        if (reportingSources.contains(authoritative)) {
+            ownWrites.put(configName, Optional.ofNullable(connectionConfig));
+        }
+        written(authoritative, configName, connectionConfig);
+    }
+
+    /**
+     * Applies a change reported by a source tier, unless it is the last write made through this connector, already
+     * applied. An earlier write superseded by it is only dropped from the caches, so as not to store an old version.
+     */
+    private void changed(ConnectionConfigTier source, ConnectionConfigEvent event) {
+        Optional<ConnectionConfig> ownWrite = source.equals(authoritative) ? ownWrites.remove(event.getName()) : null;
+        if (ownWrite == null) {
+            written(source, event.getName(), event.getConnectionConfig());
+        } else if (!ownWrite.equals(Optional.ofNullable(event.getConnectionConfig()))) {
+            written(source, event.getName(), null);
+        }
+    }
+
+    /**
+     * Bumps the generation of the connection and applies the write policies of the caches in front of the source
+     * tier written, which are the only ones that may serve the change. They drop the connection instead of storing
+     * the new version when an earlier source has it too.
+     */
+    private void written(ConnectionConfigTier source, String configName, ConnectionConfig connectionConfig) {
+        int position = tiers.indexOf(source);
+        ConnectionConfig served = connectionConfig == null || isShadowed(configName, position) ? null
+                : connectionConfig;
+        generations.merge(configName, 1L, Long::sum);
+        caches(position).forEach(cache -> cache.written(configName, served));
+    }
+
+    /**
+     * Tells whether a source before the given position has the connection, assuming it does when it cannot tell.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private boolean isShadowed(String configName, int position) {
+        return sources.stream()
+                .filter(source -> tiers.indexOf(source) < position)
+                .anyMatch(source -> {
+                    try {
+                        return source.lookup(configName) != null;
+                    } catch (RuntimeException e) {
+                        log.debug("Could not tell whether {} has connection config {}", source.getConnector(),
+                                configName, e);
+                        return true;
+                    }
+                });
+    }
+
+    private List<ConnectionConfigTier> caches(int position) {
+        return tiers.subList(0, position).stream()
+                .filter(ConnectionConfigTier::isCache)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,110 @@
+package org.entando.connectionconfigconnector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.NettyOutbound;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * Sidecar stand-in on a loopback port, holding connection configs in memory and recording the {@code Authorization}
+ * header of every request, for the tests that go through a real HTTP client.
+ */
+public class StubSidecarServer implements Closeable {
+
+    private static final String CONFIG_ENDPOINT = "/config";
+    private static final String CONFIG_NAME = "configName";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, ConnectionConfig> connectionConfigs = new ConcurrentHashMap<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private final DisposableServer server;
+
+    public StubSidecarServer() {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes
+                        .get(CONFIG_ENDPOINT, (request, response) ->
+                                json(record(request, response), 200, new ArrayList<>(connectionConfigs.values())))
+                        .get(CONFIG_ENDPOINT + "/{configName}", (request, response) -> {
+                            ConnectionConfig connectionConfig = connectionConfigs.get(request.param(CONFIG_NAME));
+                            return connectionConfig == null ? record(request, response).status(404).send()
+                                    : json(record(request, response), 200, connectionConfig);
+                        })
+                        .post(CONFIG_ENDPOINT, (request, response) -> request.receive().aggregate().asString()
+                                .flatMap(body -> {
+                                    ConnectionConfig connectionConfig = read(body);
+                                    connectionConfigs.put(connectionConfig.getName(), connectionConfig);
+                                    return Mono.from(json(record(request, response), 201, connectionConfig));
+                                }))
+                        .delete(CONFIG_ENDPOINT + "/{configName}", (request, response) -> {
+                            connectionConfigs.remove(request.param(CONFIG_NAME));
+                            return record(request, response).status(200).send();
+                        }))
+                .bindNow();
+    }
+
+    public String getRootUri() {
+        return "http://localhost:" + server.port();
+    }
+
+    public void add(ConnectionConfig connectionConfig) {
+        connectionConfigs.put(connectionConfig.getName(), connectionConfig);
+    }
+
+    public Map<String, ConnectionConfig> getConnectionConfigs() {
+        return connectionConfigs;
+    }
+
+    /**
+     * Returns the {@code Authorization} header of every request received so far, {@code "none"} for the requests
+     * that had none.
+     */
+    public List<String> getAuthorizations() {
+        return authorizations;
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    private HttpServerResponse record(HttpServerRequest request, HttpServerResponse response) {
+        authorizations.add(request.requestHeaders().get(HttpHeaders.AUTHORIZATION, "none"));
+        return response;
+    }
+
+    private NettyOutbound json(HttpServerResponse response, int status, Object body) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            return response.status(status)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .header(HttpHeaders.CONTENT_LENGTH, String.valueOf(bytes.length))
+                    .sendByteArray(Mono.just(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ConnectionConfig read(String body) {
+        try {
+            return objectMapper.readValue(body, ConnectionConfig.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
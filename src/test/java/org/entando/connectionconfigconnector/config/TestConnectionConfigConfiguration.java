@@ -1,6 +1,7 @@
 package org.entando.connectionconfigconnector.config;
 
 import static org.entando.connectionconfigconnector.config.ConnectionConfigConfiguration.CONFIG_REST_TEMPLATE;
+import static org.entando.connectionconfigconnector.config.ConnectionConfigConfiguration.CONFIG_WEB_CLIENT;
 
 import org.keycloak.adapters.springsecurity.KeycloakSecurityComponents;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -9,6 +10,7 @@ import org.springframework.boot.web.client.RootUriTemplateHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 
 @SpringBootConfiguration
 @ComponentScan(basePackages = "org.entando.connectionconfigconnector.service",
@@ -22,4 +24,10 @@ public class TestConnectionConfigConfiguration {
         RootUriTemplateHandler.addTo(restTemplate, "http://localhost:8084");
         return restTemplate;
     }
+
+    @Bean
+    @Qualifier(CONFIG_WEB_CLIENT)
+    public WebClient webClient() {
+        return WebClient.create("http://localhost:8084");
+    }
 }
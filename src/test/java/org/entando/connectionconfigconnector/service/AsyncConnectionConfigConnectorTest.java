@@ -0,0 +1,277 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.exception.ConnectionAlreadyExistsException;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
+import org.entando.connectionconfigconnector.exception.InvalidStrictOperationException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.service.impl.AsyncConnectionConfigConnectorImpl;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorFileSystem;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorSidecar;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorSidecarAsync;
+import org.entando.connectionconfigconnector.service.impl.SidecarSnapshotStore;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+import reactor.core.publisher.Mono;
+
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.ExcessiveImports"})
+public class AsyncConnectionConfigConnectorTest {
+
+    @Rule
+    public TemporaryFolder rootDirectory = new TemporaryFolder();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final SidecarSnapshotStore snapshotStore = mock(SidecarSnapshotStore.class);
+
+    private AsyncConnectionConfigConnectorImpl connectionConfigConnector;
+
+    @After
+    public void tearDown() {
+        connectionConfigConnector.stop();
+    }
+
+    @Test
+    public void shouldGetConnectionConfigFromFileSystem() throws Exception {
+        // Given
+        connectionConfigConnector = createStrictConnector();
+        ConnectionConfig configFile = createConfigFile();
+
+        // When
+        CompletableFuture<ConnectionConfig> future = connectionConfigConnector
+                .getConnectionConfig(configFile.getName());
+
+        // Then
+        assertThat(future.get()).isEqualTo(configFile);
+    }
+
+    @Test
+    public void shouldCompleteWithConnectionNotFoundExceptionFromFileSystem() {
+        // Given
+        connectionConfigConnector = createStrictConnector();
+
+        // When
+        Throwable error = catchThrowable(() -> connectionConfigConnector
+                .getConnectionConfig(RandomStringUtils.randomAlphabetic(10)).get());
+
+        // Then
+        assertThat(error).isInstanceOf(ExecutionException.class)
+                .hasCauseExactlyInstanceOf(ConnectionNotFoundException.class);
+    }
+
+    @Test
+    public void shouldReturnAllConnectionConfigsFromFileSystem() throws Exception {
+        // Given
+        connectionConfigConnector = createStrictConnector();
+        ConnectionConfig fooConfig = createConfigFile();
+        ConnectionConfig barConfig = createConfigFile();
+
+        // When
+        List<ConnectionConfig> connectionConfigs = connectionConfigConnector.getConnectionConfigs().get();
+
+        // Then
+        assertThat(connectionConfigs).containsExactlyInAnyOrder(fooConfig, barConfig);
+    }
+
+    @Test
+    public void shouldRejectMutationsOnStrictSecurityLevel() {
+        // Given
+        connectionConfigConnector = createStrictConnector();
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+
+        // When
+        CompletableFuture<?> added = connectionConfigConnector.addConnectionConfig(connectionConfig);
+        CompletableFuture<?> edited = connectionConfigConnector.editConnectionConfig(connectionConfig);
+        CompletableFuture<?> deleted = connectionConfigConnector.deleteConnectionConfig(connectionConfig.getName());
+
+        // Then
+        assertThat(catchThrowable(added::get)).hasCauseExactlyInstanceOf(InvalidStrictOperationException.class);
+        assertThat(catchThrowable(edited::get)).hasCauseExactlyInstanceOf(InvalidStrictOperationException.class);
+        assertThat(catchThrowable(deleted::get)).hasCauseExactlyInstanceOf(InvalidStrictOperationException.class);
+    }
+
+    @Test
+    public void shouldGetConnectionConfigFromSidecar() throws Exception {
+        // Given
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        connectionConfigConnector = createLenientConnector(respond(HttpMethod.GET, "/config/"
+                + connectionConfig.getName(), HttpStatus.OK, mapper.writeValueAsString(connectionConfig)));
+
+        // When
+        ConnectionConfig result = connectionConfigConnector.getConnectionConfig(connectionConfig.getName()).get();
+
+        // Then
+        assertThat(result).isEqualTo(connectionConfig);
+    }
+
+    @Test
+    public void shouldReturnAllConnectionConfigsFromSidecar() throws Exception {
+        // Given
+        ConnectionConfig fooConfig = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig barConfig = TestHelper.getRandomConnectionConfig();
+        connectionConfigConnector = createLenientConnector(respond(HttpMethod.GET, "/config", HttpStatus.OK,
+                mapper.writeValueAsString(Arrays.asList(fooConfig, barConfig))));
+
+        // When
+        List<ConnectionConfig> connectionConfigs = connectionConfigConnector.getConnectionConfigs().get();
+
+        // Then
+        assertThat(connectionConfigs).containsExactly(fooConfig, barConfig);
+    }
+
+    @Test
+    public void shouldMapSidecarNotFoundToConnectionNotFoundException() {
+        // Given
+        String configName = RandomStringUtils.randomAlphabetic(10);
+        connectionConfigConnector = createLenientConnector(
+                respond(HttpMethod.GET, "/config/" + configName, HttpStatus.NOT_FOUND, ""));
+
+        // When
+        Throwable error = catchThrowable(() -> connectionConfigConnector.getConnectionConfig(configName).get());
+
+        // Then
+        assertThat(error).hasCauseExactlyInstanceOf(ConnectionNotFoundException.class);
+    }
+
+    @Test
+    public void shouldMapSidecarConflictToConnectionAlreadyExistsException() {
+        // Given
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        connectionConfigConnector = createLenientConnector(
+                respond(HttpMethod.POST, "/config", HttpStatus.CONFLICT, ""));
+
+        // When
+        Throwable error = catchThrowable(() -> connectionConfigConnector.addConnectionConfig(connectionConfig).get());
+
+        // Then
+        assertThat(error).hasCauseExactlyInstanceOf(ConnectionAlreadyExistsException.class);
+    }
+
+    @Test
+    public void shouldRecordMutationsInSnapshotStore() throws Exception {
+        // Given
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        connectionConfigConnector = createLenientConnector(WebClient.builder()
+                .baseUrl("http://localhost:8084")
+                .exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(request.method() == HttpMethod.DELETE ? "" : serialize(connectionConfig))
+                        .build()))
+                .build());
+
+        // When
+        connectionConfigConnector.addConnectionConfig(connectionConfig).get();
+        connectionConfigConnector.editConnectionConfig(connectionConfig).get();
+        connectionConfigConnector.deleteConnectionConfig(connectionConfig.getName()).get();
+
+        // Then
+        InOrder inOrder = inOrder(snapshotStore);
+        inOrder.verify(snapshotStore, times(2)).record(connectionConfig);
+        inOrder.verify(snapshotStore).forget(connectionConfig.getName());
+    }
+
+    @Test
+    public void shouldForgetConfigNotFoundBySidecar() {
+        // Given
+        String configName = RandomStringUtils.randomAlphabetic(10);
+        connectionConfigConnector = createLenientConnector(
+                respond(HttpMethod.GET, "/config/" + configName, HttpStatus.NOT_FOUND, ""));
+
+        // When
+        catchThrowable(() -> connectionConfigConnector.getConnectionConfig(configName).get());
+
+        // Then
+        verify(snapshotStore).forget(configName);
+    }
+
+    @Test
+    public void shouldReturnEmptyListOnSidecarClientError() throws Exception {
+        // Given
+        connectionConfigConnector = createLenientConnector(
+                respond(HttpMethod.GET, "/config", HttpStatus.BAD_REQUEST, ""));
+
+        // When
+        List<ConnectionConfig> connectionConfigs = connectionConfigConnector.getConnectionConfigs().get();
+
+        // Then
+        assertThat(connectionConfigs).isEmpty();
+    }
+
+    private AsyncConnectionConfigConnectorImpl createStrictConnector() {
+        return new AsyncConnectionConfigConnectorImpl(SecurityLevel.STRICT.toString(),
+                mock(ConnectionConfigConnectorSidecarAsync.class),
+                new ConnectionConfigConnectorFileSystem(rootDirectory.getRoot().getAbsolutePath()), 2, 16);
+    }
+
+    private AsyncConnectionConfigConnectorImpl createLenientConnector(WebClient webClient) {
+        return new AsyncConnectionConfigConnectorImpl(SecurityLevel.LENIENT.toString(),
+                new ConnectionConfigConnectorSidecarAsync(webClient, mock(ConnectionConfigConnectorSidecar.class),
+                        snapshotStore),
+                mock(ConnectionConfigConnectorFileSystem.class), 2, 16);
+    }
+
+    /**
+     * Creates a client answering the given request with the given response and any other request with a
+     * {@code 500}.
+     */
+    private static WebClient respond(HttpMethod method, String path, HttpStatus status, String body) {
+        return WebClient.builder()
+                .baseUrl("http://localhost:8084")
+                .exchangeFunction(request -> {
+                    if (request.method() != method || !request.url().getPath().equals(path)) {
+                        return Mono.just(ClientResponse.create(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                    }
+                    return Mono.just(ClientResponse.create(status)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(body)
+                            .build());
+                })
+                .build();
+    }
+
+    private String serialize(ConnectionConfig connectionConfig) {
+        try {
+            return mapper.writeValueAsString(connectionConfig);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ConnectionConfig createConfigFile() throws IOException {
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        File configDirectory = rootDirectory.newFolder(connectionConfig.getName());
+        Yaml yaml = new Yaml(new Constructor(ConnectionConfig.class));
+        Files.write(Paths.get(configDirectory.getAbsolutePath(), "config.yaml"), yaml.dump(connectionConfig).getBytes());
+        return connectionConfig;
+    }
+}
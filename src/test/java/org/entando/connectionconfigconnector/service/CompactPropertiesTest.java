@@ -0,0 +1,92 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.assertj.core.api.Java6Assertions.entry;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.service.impl.CompactProperties;
+import org.entando.connectionconfigconnector.service.impl.InMemoryConnectionConfigConnector;
+import org.junit.Test;
+
+public class CompactPropertiesTest {
+
+    private static final String URL = "url";
+    private static final String USERNAME = "username";
+
+    @Test
+    public void shouldBehaveLikeSourceMap() {
+        // Given
+        LinkedHashMap<String, String> source = new LinkedHashMap<>();
+        source.put(USERNAME, "admin");
+        source.put(URL, "jdbc:postgresql://localhost/db");
+        source.put("password", null);
+
+        // When
+        Map<String, String> properties = CompactProperties.copyOf(source);
+
+        // Then
+        assertThat(properties).isEqualTo(source);
+        assertThat(properties.hashCode()).isEqualTo(source.hashCode());
+        assertThat(properties).containsExactly(entry(USERNAME, "admin"), entry(URL, "jdbc:postgresql://localhost/db"),
+                entry("password", null));
+        assertThat(properties.containsKey("password")).isTrue();
+        assertThat(properties.get("driver")).isNull();
+        assertThat(CompactProperties.copyOf(properties)).isSameAs(properties);
+    }
+
+    @Test
+    public void shouldLookUpKeysOfLargeShapes() {
+        // Given
+        HashMap<String, String> source = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            source.put("key" + i, "value" + i);
+        }
+
+        // When
+        Map<String, String> properties = CompactProperties.copyOf(source);
+
+        // Then
+        for (int i = 0; i < 50; i++) {
+            assertThat(properties.get("key" + i)).isEqualTo("value" + i);
+        }
+        assertThat(properties.get("key50")).isNull();
+        assertThat(properties.containsKey(50)).isFalse();
+        assertThat(properties).isEqualTo(source);
+    }
+
+    @Test
+    public void shouldBeImmutable() {
+        // Given
+        Map<String, String> properties = CompactProperties.copyOf(TestHelper.getRandomConnectionConfig()
+                .getProperties());
+
+        // When
+        Throwable thrown = catchThrowable(() -> properties.put(URL, "changed"));
+
+        // Then
+        assertThat(thrown).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void shouldStoreCopiesInMemory() {
+        // Given
+        InMemoryConnectionConfigConnector connectionConfigConnector = new InMemoryConnectionConfigConnector();
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        connectionConfig.setProperties(new HashMap<>(connectionConfig.getProperties()));
+        HashMap<String, String> original = new HashMap<>(connectionConfig.getProperties());
+        connectionConfigConnector.addConnectionConfig(connectionConfig);
+
+        // When
+        connectionConfig.getProperties().put(URL, "changed");
+        ConnectionConfig stored = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+        connectionConfigConnector.stop();
+
+        // Then
+        assertThat(stored.getProperties()).isEqualTo(original);
+    }
+}
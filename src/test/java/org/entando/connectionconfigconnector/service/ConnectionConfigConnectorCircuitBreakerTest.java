@@ -0,0 +1,238 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.ConnectException;
+import java.util.Arrays;
+import java.util.List;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
+import org.entando.connectionconfigconnector.exception.SidecarUnavailableException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.model.StaleConnectionConfig;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorFileSystem;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorImpl;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorSidecar;
+import org.entando.connectionconfigconnector.service.impl.SidecarCircuitBreaker;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.springframework.boot.web.client.RootUriTemplateHandler;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+@SuppressWarnings("PMD.ExcessiveImports")
+public class ConnectionConfigConnectorCircuitBreakerTest {
+
+    private static final String ENDPOINT = "http://localhost:8084/config";
+    private static final int ATTEMPTS = 8;
+    private static final ResponseCreator REFUSE_CONNECTION = request -> {
+        throw new ConnectException("Connection refused");
+    };
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private RestTemplate restTemplate;
+    private MockRestServiceServer mockServer;
+
+    @Before
+    public void init() {
+        restTemplate = new RestTemplate();
+        RootUriTemplateHandler.addTo(restTemplate, "http://localhost:8084");
+        mockServer = MockRestServiceServer.createServer(restTemplate);
+    }
+
+    @Test
+    public void shouldFailFastOnceCircuitIsOpen() {
+        // Given
+        SidecarCircuitBreaker circuitBreaker = new SidecarCircuitBreaker(2, 60_000);
+        ConnectionConfigConnector connectionConfigConnector = createConnector(0, 0, circuitBreaker);
+        String configName = TestHelper.getRandomConnectionConfig().getName();
+        mockServer.expect(ExpectedCount.twice(), requestTo(ENDPOINT + "/" + configName))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(REFUSE_CONNECTION);
+        for (int i = 0; i < 2; i++) {
+            try {
+                connectionConfigConnector.getConnectionConfig(configName);
+            } catch (ResourceAccessException e) {
+                assertThat(e).hasCauseInstanceOf(ConnectException.class);
+            }
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(SidecarCircuitBreaker.State.OPEN);
+        expectedException.expect(SidecarUnavailableException.class);
+        expectedException.expectMessage(SidecarUnavailableException.MESSAGE_KEY);
+
+        // When
+        try {
+            connectionConfigConnector.getConnectionConfig(configName);
+        } finally {
+            // Then
+            mockServer.verify();
+        }
+    }
+
+    @Test
+    public void shouldNotCountClientErrorsAsFailures() {
+        // Given
+        SidecarCircuitBreaker circuitBreaker = new SidecarCircuitBreaker(1, 60_000);
+        ConnectionConfigConnector connectionConfigConnector = createConnector(0, 0, circuitBreaker);
+        String configName = TestHelper.getRandomConnectionConfig().getName();
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + configName))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+        expectedException.expect(ConnectionNotFoundException.class);
+
+        // When
+        try {
+            connectionConfigConnector.getConnectionConfig(configName);
+        } finally {
+            // Then
+            assertThat(circuitBreaker.getState()).isEqualTo(SidecarCircuitBreaker.State.CLOSED);
+        }
+    }
+
+    @Test
+    public void shouldNotCountServerErrorsAsFailures() {
+        // Given
+        SidecarCircuitBreaker circuitBreaker = new SidecarCircuitBreaker(1, 60_000);
+        ConnectionConfigConnector connectionConfigConnector = createConnector(0, 0, circuitBreaker);
+        String configName = TestHelper.getRandomConnectionConfig().getName();
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + configName))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        expectedException.expect(HttpServerErrorException.class);
+
+        // When
+        try {
+            connectionConfigConnector.getConnectionConfig(configName);
+        } finally {
+            // Then
+            assertThat(circuitBreaker.getState()).isEqualTo(SidecarCircuitBreaker.State.CLOSED);
+        }
+    }
+
+    @Test
+    public void shouldKeepSendingRequestsByDefault() {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = new ConnectionConfigConnectorImpl(
+                SecurityLevel.LENIENT.toString(), new ConnectionConfigConnectorSidecar(restTemplate, 0),
+                mock(ConnectionConfigConnectorFileSystem.class));
+        String configName = TestHelper.getRandomConnectionConfig().getName();
+        mockServer.expect(ExpectedCount.times(ATTEMPTS), requestTo(ENDPOINT + "/" + configName))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(REFUSE_CONNECTION);
+
+        // When
+        int failures = 0;
+        for (int i = 0; i < ATTEMPTS; i++) {
+            try {
+                connectionConfigConnector.getConnectionConfig(configName);
+            } catch (ResourceAccessException e) {
+                failures++;
+            }
+        }
+
+        // Then
+        mockServer.verify();
+        assertThat(failures).isEqualTo(ATTEMPTS);
+    }
+
+    @Test
+    public void shouldLetOneProbeThroughAndCloseCircuitWhenItSucceeds() throws Exception {
+        // Given
+        SidecarCircuitBreaker circuitBreaker = new SidecarCircuitBreaker(1, 1);
+        circuitBreaker.onFailure();
+        Thread.sleep(5);
+
+        // When
+        boolean probe = circuitBreaker.tryAcquire();
+        boolean concurrentCall = circuitBreaker.tryAcquire();
+        circuitBreaker.onSuccess();
+
+        // Then
+        assertThat(probe).isTrue();
+        assertThat(concurrentCall).isFalse();
+        assertThat(circuitBreaker.getState()).isEqualTo(SidecarCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void shouldServeStaleConnectionConfigWhenSidecarFails() throws Exception {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = createConnector(1, 60_000,
+                new SidecarCircuitBreaker(SidecarCircuitBreaker.DEFAULT_FAILURE_THRESHOLD, 60_000));
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + connectionConfig.getName()))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(connectionConfig)));
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + connectionConfig.getName()))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.BAD_GATEWAY));
+
+        // When
+        ConnectionConfig fresh = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+        Thread.sleep(5);
+        ConnectionConfig stale = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+
+        // Then
+        mockServer.verify();
+        assertThat(StaleConnectionConfig.isStale(fresh)).isFalse();
+        assertThat(StaleConnectionConfig.isStale(stale)).isTrue();
+        assertThat(stale).isEqualTo(connectionConfig);
+        assertThat(((StaleConnectionConfig) stale).getFetchedAt()).isLessThanOrEqualTo(System.currentTimeMillis());
+    }
+
+    @Test
+    public void shouldServeStaleListWhileCircuitIsOpen() throws Exception {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = createConnector(1, 60_000,
+                new SidecarCircuitBreaker(1, 60_000));
+        List<ConnectionConfig> connectionConfigs = Arrays.asList(TestHelper.getRandomConnectionConfig(),
+                TestHelper.getRandomConnectionConfig());
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(connectionConfigs)));
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(REFUSE_CONNECTION);
+
+        // When
+        connectionConfigConnector.getConnectionConfigs();
+        Thread.sleep(5);
+        List<ConnectionConfig> afterFailure = connectionConfigConnector.getConnectionConfigs();
+        List<ConnectionConfig> whileOpen = connectionConfigConnector.getConnectionConfigs();
+
+        // Then
+        mockServer.verify();
+        assertThat(afterFailure).containsExactlyElementsOf(connectionConfigs);
+        assertThat(whileOpen).containsExactlyElementsOf(connectionConfigs);
+        assertThat(whileOpen).allMatch(StaleConnectionConfig::isStale);
+    }
+
+    private ConnectionConfigConnector createConnector(long cacheTtlMillis, long maxStaleMillis,
+            SidecarCircuitBreaker circuitBreaker) {
+        return new ConnectionConfigConnectorImpl(SecurityLevel.LENIENT.toString(),
+                new ConnectionConfigConnectorSidecar(restTemplate, cacheTtlMillis, maxStaleMillis,
+                        4, 0, circuitBreaker),
+                mock(ConnectionConfigConnectorFileSystem.class));
+    }
+}
@@ -0,0 +1,175 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.entando.connectionconfigconnector.service.Deadline.after;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.exception.DeadlineExceededException;
+import org.entando.connectionconfigconnector.exception.SidecarBulkheadFullException;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorFileSystem;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorImpl;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorSidecar;
+import org.entando.connectionconfigconnector.service.impl.SidecarBulkhead;
+import org.entando.connectionconfigconnector.service.impl.SidecarCircuitBreaker;
+import org.entando.connectionconfigconnector.service.impl.SidecarDeadlineInterceptor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.web.client.RootUriTemplateHandler;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+@SuppressWarnings("PMD.ExcessiveImports")
+public class ConnectionConfigConnectorDeadlineTest {
+
+    private static final String ENDPOINT = "http://localhost:8084/config";
+
+    private final ExecutorService callers = Executors.newSingleThreadExecutor();
+    private RestTemplate restTemplate;
+    private MockRestServiceServer mockServer;
+
+    @Before
+    public void init() {
+        restTemplate = new RestTemplate();
+        RootUriTemplateHandler.addTo(restTemplate, "http://localhost:8084");
+        mockServer = MockRestServiceServer.createServer(restTemplate);
+    }
+
+    @After
+    public void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void shouldFailWithoutRequestWhenDeadlineHasPassed() {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = createConnector(new SidecarCircuitBreaker(1, 60_000),
+                new SidecarBulkhead(0, 0));
+        String configName = TestHelper.getRandomConnectionConfig().getName();
+
+        // When
+        Throwable thrown = catchThrowable(() -> connectionConfigConnector.withDeadline(after(Duration.ZERO))
+                .getConnectionConfig(configName));
+
+        // Then
+        mockServer.verify();
+        assertThat(thrown).isInstanceOf(DeadlineExceededException.class)
+                .hasMessage(DeadlineExceededException.MESSAGE_KEY);
+    }
+
+    @Test
+    public void shouldNotCountTimeoutOfExpiredDeadlineAsSidecarFailure() {
+        // Given
+        SidecarCircuitBreaker circuitBreaker = new SidecarCircuitBreaker(1, 60_000);
+        ConnectionConfigConnector connectionConfigConnector = createConnector(circuitBreaker,
+                new SidecarBulkhead(0, 0));
+        String configName = TestHelper.getRandomConnectionConfig().getName();
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + configName))
+                .andRespond(request -> {
+                    try {
+                        Thread.sleep(400);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new SocketTimeoutException("Read timed out");
+                });
+
+        // When
+        Throwable thrown = catchThrowable(() -> connectionConfigConnector
+                .withDeadline(after(Duration.ofMillis(200)))
+                .getConnectionConfig(configName));
+
+        // Then
+        mockServer.verify();
+        assertThat(thrown).isInstanceOf(DeadlineExceededException.class);
+        assertThat(circuitBreaker.getState()).isEqualTo(SidecarCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void shouldRejectCallsOnceBulkheadIsFull() throws Exception {
+        // Given
+        SidecarBulkhead bulkhead = new SidecarBulkhead(1, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Boolean> inFlight = callers.submit(() -> bulkhead.call(() -> {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When
+        Throwable rejected = catchThrowable(() -> bulkhead.call(() -> true));
+        release.countDown();
+        boolean completed = inFlight.get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(rejected).isInstanceOf(SidecarBulkheadFullException.class);
+        assertThat(completed).isTrue();
+        assertThat(bulkhead.call(() -> true)).isTrue();
+        assertThat(bulkhead.getAvailableSlots()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCapRequestTimeoutsToTimeLeft() {
+        // Given
+        SidecarDeadlineInterceptor interceptor = new SidecarDeadlineInterceptor();
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(1000)
+                .setConnectTimeout(2000)
+                .setSocketTimeout(10_000)
+                .build());
+
+        // When
+        after(Duration.ofMillis(500)).run(() -> {
+            interceptor.process(null, context);
+            return null;
+        });
+
+        // Then
+        RequestConfig config = context.getRequestConfig();
+        assertThat(config.getConnectionRequestTimeout()).isBetween(1, 500);
+        assertThat(config.getConnectTimeout()).isBetween(1, 500);
+        assertThat(config.getSocketTimeout()).isBetween(1, 500);
+    }
+
+    @Test
+    public void shouldKeepEarlierDeadlineWhenNested() {
+        // Given
+        Deadline outer = after(Duration.ofMillis(100));
+        Deadline inner = after(Duration.ofMinutes(1));
+
+        // When
+        Deadline bound = outer.run(() -> inner.run(() -> Deadline.current().orElse(null)));
+
+        // Then
+        assertThat(bound).isSameAs(outer);
+        assertThat(Deadline.current().isPresent()).isFalse();
+    }
+
+    private ConnectionConfigConnector createConnector(SidecarCircuitBreaker circuitBreaker,
+            SidecarBulkhead bulkhead) {
+        return new ConnectionConfigConnectorImpl(SecurityLevel.LENIENT.toString(),
+                new ConnectionConfigConnectorSidecar(restTemplate, 0, 0, 4, 0, circuitBreaker, bulkhead),
+                mock(ConnectionConfigConnectorFileSystem.class));
+    }
+}
@@ -0,0 +1,96 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.entando.connectionconfigconnector.service.Deadline.after;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigBatchResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigQuery;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ConnectionConfigConnectorDefaultMethodsTest {
+
+    private final BasicConnectionConfigConnector connectionConfigConnector = new BasicConnectionConfigConnector();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void shouldBuildReadsOnTheOriginalMethods() {
+        // Given
+        ConnectionConfig config1 = connectionConfigConnector.addConnectionConfig(TestHelper.getRandomConnectionConfig());
+        ConnectionConfig config2 = connectionConfigConnector.addConnectionConfig(TestHelper.getRandomConnectionConfig());
+        List<ConnectionConfig> streamed = new ArrayList<>();
+
+        // When
+        ConnectionConfigBatchResult result = connectionConfigConnector
+                .getConnectionConfigs(Arrays.asList(config1.getName(), "missing", config1.getName()));
+        connectionConfigConnector.forEachConnectionConfig(streamed::add);
+        List<ConnectionConfig> found = connectionConfigConnector.findConnectionConfigs(
+                ConnectionConfigQuery.builder().namePrefix(config2.getName()).build());
+
+        // Then
+        assertThat(result.getConnectionConfigs()).containsOnlyKeys(config1.getName());
+        assertThat(result.getNotFound()).containsExactly("missing");
+        assertThat(streamed).containsExactlyInAnyOrder(config1, config2);
+        assertThat(found).containsExactly(config2);
+        assertThat(connectionConfigConnector.withDeadline(after(Duration.ofSeconds(1))))
+                .isSameAs(connectionConfigConnector);
+    }
+
+    @Test
+    public void shouldRejectListenersByDefault() {
+        expectedException.expect(UnsupportedOperationException.class);
+
+        connectionConfigConnector.addConnectionConfigListener(event -> {
+        });
+    }
+
+    /**
+     * Connector implementing only the methods the interface had originally.
+     */
+    private static class BasicConnectionConfigConnector implements ConnectionConfigConnector {
+
+        private final Map<String, ConnectionConfig> connectionConfigs = new ConcurrentHashMap<>();
+
+        @Override
+        public ConnectionConfig getConnectionConfig(String configName) {
+            ConnectionConfig connectionConfig = connectionConfigs.get(configName);
+            if (connectionConfig == null) {
+                throw new ConnectionNotFoundException();
+            }
+            return connectionConfig;
+        }
+
+        @Override
+        public List<ConnectionConfig> getConnectionConfigs() {
+            return new ArrayList<>(connectionConfigs.values());
+        }
+
+        @Override
+        public ConnectionConfig addConnectionConfig(ConnectionConfig connectionConfig) {
+            connectionConfigs.put(connectionConfig.getName(), connectionConfig);
+            return connectionConfig;
+        }
+
+        @Override
+        public void deleteConnectionConfig(String configName) {
+            connectionConfigs.remove(configName);
+        }
+
+        @Override
+        public ConnectionConfig editConnectionConfig(ConnectionConfig connectionConfig) {
+            return addConnectionConfig(connectionConfig);
+        }
+    }
+}
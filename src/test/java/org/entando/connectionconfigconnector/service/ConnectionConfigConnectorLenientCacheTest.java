@@ -0,0 +1,325 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigBatchResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigEvent;
+import org.entando.connectionconfigconnector.model.ConnectionConfigEventType;
+import org.entando.connectionconfigconnector.model.ConnectionConfigPatch;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.model.VersionedConnectionConfig;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorFileSystem;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorImpl;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorSidecar;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.web.client.RootUriTemplateHandler;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.ExcessiveImports"})
+public class ConnectionConfigConnectorLenientCacheTest {
+
+    private static final String ENDPOINT = "http://localhost:8084/config";
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private RestTemplate restTemplate;
+    private MockRestServiceServer mockServer;
+
+    @Before
+    public void init() {
+        restTemplate = new RestTemplate();
+        RootUriTemplateHandler.addTo(restTemplate, "http://localhost:8084");
+        mockServer = MockRestServiceServer.createServer(restTemplate);
+    }
+
+    @Test
+    public void shouldServeConnectionConfigFromCacheWithinTtl() throws Exception {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = createConnector(60_000);
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + connectionConfig.getName()))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(connectionConfig)));
+
+        // When
+        ConnectionConfig first = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+        ConnectionConfig second = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+
+        // Then
+        mockServer.verify();
+        assertThat(first).isEqualTo(connectionConfig);
+        assertThat(second).isEqualTo(connectionConfig);
+    }
+
+    @Test
+    public void shouldRevalidateExpiredConnectionConfigWithETag() throws Exception {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = createConnector(1);
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(ETAG);
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + connectionConfig.getName()))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .headers(headers)
+                        .body(mapper.writeValueAsString(connectionConfig)));
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + connectionConfig.getName()))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+        // When
+        connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+        Thread.sleep(5);
+        ConnectionConfig revalidated = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+
+        // Then
+        mockServer.verify();
+        assertThat(revalidated).isEqualTo(connectionConfig);
+    }
+
+    @Test
+    public void shouldRevalidateExpiredListWithLastModified() throws Exception {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = createConnector(1);
+        ConnectionConfig config1 = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig config2 = TestHelper.getRandomConnectionConfig();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.LAST_MODIFIED, LAST_MODIFIED);
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .headers(headers)
+                        .body(mapper.writeValueAsString(Arrays.asList(config1, config2))));
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+        // When
+        connectionConfigConnector.getConnectionConfigs();
+        Thread.sleep(5);
+
+        // Then
+        assertThat(connectionConfigConnector.getConnectionConfigs()).containsExactly(config1, config2);
+        mockServer.verify();
+    }
+
+    @Test
+    public void shouldServeLookupsByNameFromCachedList() throws Exception {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = createConnector(60_000);
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(Arrays.asList(connectionConfig))));
+
+        // When
+        connectionConfigConnector.getConnectionConfigs();
+        ConnectionConfig cached = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+
+        // Then
+        mockServer.verify();
+        assertThat(cached).isEqualTo(connectionConfig);
+        assertThat(connectionConfigConnector.keepsLoadedConfigs()).isTrue();
+    }
+
+    @Test
+    public void shouldUpdateCacheOnMutations() throws Exception {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = createConnector(60_000);
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withStatus(HttpStatus.CREATED)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(connectionConfig)));
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + connectionConfig.getName()))
+                .andExpect(method(HttpMethod.DELETE))
+                .andRespond(withStatus(HttpStatus.OK));
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + connectionConfig.getName()))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(connectionConfig)));
+
+        // When
+        connectionConfigConnector.addConnectionConfig(connectionConfig);
+        ConnectionConfig cached = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+        connectionConfigConnector.deleteConnectionConfig(connectionConfig.getName());
+        connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+
+        // Then
+        mockServer.verify();
+        assertThat(cached).isEqualTo(connectionConfig);
+    }
+
+    @Test
+    public void shouldInvalidateCachedListOnEdit() throws Exception {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = createConnector(60_000);
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig edited = TestHelper.getRandomConnectionConfig();
+        edited.setName(connectionConfig.getName());
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(Arrays.asList(connectionConfig))));
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.PUT))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(edited)));
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(Arrays.asList(edited))));
+
+        // When
+        connectionConfigConnector.getConnectionConfigs();
+        connectionConfigConnector.editConnectionConfig(edited);
+
+        // Then
+        assertThat(connectionConfigConnector.getConnectionConfigs()).containsExactly(edited);
+        assertThat(connectionConfigConnector.getConnectionConfig(edited.getName())).isEqualTo(edited);
+        mockServer.verify();
+    }
+
+    @Test
+    public void shouldGetConnectionConfigsByNameInParallel() throws Exception {
+        // Given
+        mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        ConnectionConfigConnector connectionConfigConnector = createConnector(60_000);
+        ConnectionConfig config1 = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig config2 = TestHelper.getRandomConnectionConfig();
+        String missing = "missing";
+        for (ConnectionConfig connectionConfig : Arrays.asList(config1, config2)) {
+            mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + connectionConfig.getName()))
+                    .andExpect(method(HttpMethod.GET))
+                    .andRespond(withStatus(HttpStatus.OK)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(mapper.writeValueAsString(connectionConfig)));
+        }
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + missing))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        // When
+        ConnectionConfigBatchResult result = connectionConfigConnector
+                .getConnectionConfigs(Arrays.asList(config1.getName(), missing, config2.getName()));
+        ConnectionConfigBatchResult cached = connectionConfigConnector
+                .getConnectionConfigs(Arrays.asList(config1.getName(), config2.getName()));
+
+        // Then
+        mockServer.verify();
+        assertThat(result.getConnectionConfigs()).containsExactly(entry(config1.getName(), config1),
+                entry(config2.getName(), config2));
+        assertThat(result.getNotFound()).containsExactly(missing);
+        assertThat(cached.getConnectionConfigs()).isEqualTo(result.getConnectionConfigs());
+    }
+
+    @Test
+    public void shouldNotifyListenersOfMutations() throws Exception {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = new ConnectionConfigConnectorImpl(
+                SecurityLevel.LENIENT.toString(), new ConnectionConfigConnectorSidecar(restTemplate, 0, 2, 10),
+                mock(ConnectionConfigConnectorFileSystem.class));
+        ConnectionConfig added = TestHelper.getRandomConnectionConfig();
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withStatus(HttpStatus.CREATED)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(added)));
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + added.getName()))
+                .andExpect(method(HttpMethod.DELETE))
+                .andRespond(withStatus(HttpStatus.OK));
+        BlockingQueue<ConnectionConfigEvent> events = new LinkedBlockingQueue<>();
+
+        // When
+        connectionConfigConnector.addConnectionConfigListener(events::add);
+        connectionConfigConnector.addConnectionConfig(added);
+        ConnectionConfigEvent addedEvent = events.poll(5, TimeUnit.SECONDS);
+        connectionConfigConnector.deleteConnectionConfig(added.getName());
+
+        // Then
+        mockServer.verify();
+        assertThat(addedEvent).isEqualTo(
+                new ConnectionConfigEvent(ConnectionConfigEventType.ADDED, added.getName(), added));
+        assertThat(events.poll(5, TimeUnit.SECONDS)).isEqualTo(
+                new ConnectionConfigEvent(ConnectionConfigEventType.REMOVED, added.getName(), null));
+        assertThat(events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    public void shouldPatchCachedVersionWithoutReadingItAgain() throws Exception {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = createConnector(60_000);
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(ETAG);
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + connectionConfig.getName()))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .headers(headers)
+                        .body(mapper.writeValueAsString(connectionConfig)));
+        ConnectionConfig patched = new ConnectionConfig(connectionConfig.getName(), ImmutableMap.<String, String>builder()
+                .putAll(connectionConfig.getProperties()).put("token", "new").build());
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.PUT))
+                .andExpect(header(HttpHeaders.IF_MATCH, ETAG))
+                .andExpect(content().json(mapper.writeValueAsString(patched), true))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(patched)));
+
+        // When
+        ConnectionConfig read = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+        ConnectionConfig fromServer = connectionConfigConnector.patchConnectionConfig(ConnectionConfigPatch.builder()
+                .name(connectionConfig.getName())
+                .property("token", "new")
+                .ifMatch(VersionedConnectionConfig.versionOf(read))
+                .build());
+
+        // Then
+        mockServer.verify();
+        assertThat(fromServer).isEqualTo(patched);
+    }
+
+    private ConnectionConfigConnector createConnector(long cacheTtlMillis) {
+        return new ConnectionConfigConnectorImpl(SecurityLevel.LENIENT.toString(),
+                new ConnectionConfigConnectorSidecar(restTemplate, cacheTtlMillis),
+                mock(ConnectionConfigConnectorFileSystem.class));
+    }
+}
@@ -0,0 +1,145 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.entry;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.model.SidecarEncoding;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorFileSystem;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorImpl;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorSidecar;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigJacksonModule;
+import org.entando.connectionconfigconnector.service.impl.SidecarContentNegotiation;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.web.client.RootUriTemplateHandler;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+@SuppressWarnings("PMD.ExcessiveImports")
+public class ConnectionConfigConnectorLenientEncodingTest {
+
+    private static final String ENDPOINT = "http://localhost:8084/config";
+    private static final MediaType APPLICATION_SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private RestTemplate restTemplate;
+    private MockRestServiceServer mockServer;
+
+    @Before
+    public void init() {
+        restTemplate = new RestTemplate();
+        RootUriTemplateHandler.addTo(restTemplate, "http://localhost:8084");
+        mockServer = MockRestServiceServer.createServer(restTemplate);
+    }
+
+    @Test
+    public void shouldReadSmileListWhenSidecarSupportsIt() throws Exception {
+        // Given
+        SidecarContentNegotiation.configure(restTemplate, SidecarEncoding.SMILE, 0);
+        ConnectionConfigConnector connectionConfigConnector = createConnector();
+        List<ConnectionConfig> connectionConfigs = Arrays.asList(TestHelper.getRandomConnectionConfig(),
+                TestHelper.getRandomConnectionConfig());
+        mockServer.expect(requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header(HttpHeaders.ACCEPT, startsWith(APPLICATION_SMILE.toString())))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(APPLICATION_SMILE)
+                        .body(new ObjectMapper(new SmileFactory()).writeValueAsBytes(connectionConfigs)));
+
+        // When
+        List<ConnectionConfig> fetched = connectionConfigConnector.getConnectionConfigs();
+
+        // Then
+        mockServer.verify();
+        assertThat(fetched).isEqualTo(connectionConfigs);
+    }
+
+    @Test
+    public void shouldFallBackToJsonWhenSidecarIgnoresSmile() throws Exception {
+        // Given
+        SidecarContentNegotiation.configure(restTemplate, SidecarEncoding.SMILE, 0);
+        ConnectionConfigConnector connectionConfigConnector = createConnector();
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        mockServer.expect(requestTo(ENDPOINT + "/" + connectionConfig.getName()))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(connectionConfig)));
+
+        // When
+        ConnectionConfig fetched = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+
+        // Then
+        mockServer.verify();
+        assertThat(fetched).isEqualTo(connectionConfig);
+    }
+
+    @Test
+    public void shouldGzipRequestBodiesFromMinimumSize() throws Exception {
+        // Given
+        SidecarContentNegotiation.configure(restTemplate, SidecarEncoding.JSON, 1);
+        ConnectionConfigConnector connectionConfigConnector = createConnector();
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        mockServer.expect(requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(request -> assertThat(mapper.readValue(new GZIPInputStream(new ByteArrayInputStream(
+                        ((MockClientHttpRequest) request).getBodyAsBytes())), ConnectionConfig.class))
+                        .isEqualTo(connectionConfig))
+                .andRespond(withStatus(HttpStatus.CREATED)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(connectionConfig)));
+
+        // When
+        ConnectionConfig added = connectionConfigConnector.addConnectionConfig(connectionConfig);
+
+        // Then
+        mockServer.verify();
+        assertThat(added).isEqualTo(connectionConfig);
+    }
+
+    @Test
+    public void shouldBindConnectionConfigsLikeDefaultMapper() throws Exception {
+        // Given
+        ObjectMapper optimized = new ObjectMapper().registerModule(new ConnectionConfigJacksonModule());
+        String json = "[{\"name\":\"db\",\"extra\":{\"nested\":[1]},\"properties\":{\"port\":5432,\"user\":null}},"
+                + "{\"properties\":null,\"name\":\"empty\"}]";
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+
+        // When
+        ConnectionConfig[] read = optimized.readValue(json, ConnectionConfig[].class);
+        String written = optimized.writeValueAsString(connectionConfig);
+
+        // Then
+        assertThat(read[0].getName()).isEqualTo("db");
+        assertThat(read[0].getProperties()).containsExactly(entry("port", "5432"), entry("user", null));
+        assertThat(read[1]).isEqualTo(new ConnectionConfig("empty", null));
+        assertThat(written).isEqualTo(mapper.writeValueAsString(connectionConfig));
+    }
+
+    private ConnectionConfigConnector createConnector() {
+        return new ConnectionConfigConnectorImpl(SecurityLevel.LENIENT.toString(),
+                new ConnectionConfigConnectorSidecar(restTemplate, 0),
+                mock(ConnectionConfigConnectorFileSystem.class));
+    }
+}
@@ -0,0 +1,136 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.entando.connectionconfigconnector.StubSidecarServer;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigBatchResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutation;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationResult;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.model.StaleConnectionConfig;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorFileSystem;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorImpl;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorSidecar;
+import org.entando.connectionconfigconnector.service.impl.NoopConnectionConfigMetrics;
+import org.entando.connectionconfigconnector.service.impl.SidecarSnapshotStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.keycloak.KeycloakPrincipal;
+import org.keycloak.adapters.RefreshableKeycloakSecurityContext;
+import org.keycloak.adapters.springsecurity.account.SimpleKeycloakAccount;
+import org.keycloak.adapters.springsecurity.client.KeycloakClientRequestFactory;
+import org.keycloak.adapters.springsecurity.token.KeycloakAuthenticationToken;
+import org.springframework.boot.web.client.RootUriTemplateHandler;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Calls a sidecar stand-in through a real {@link KeycloakClientRequestFactory}, which refuses to send a request from a
+ * thread without an authenticated principal, as it does in a deployment.
+ */
+@SuppressWarnings("PMD.ExcessiveImports")
+public class ConnectionConfigConnectorLenientSecurityContextTest {
+
+    private static final String TOKEN = "caller-token";
+    private static final String BEARER = "Bearer " + TOKEN;
+
+    @Rule
+    public TemporaryFolder snapshotDirectory = new TemporaryFolder();
+
+    private StubSidecarServer sidecar;
+    private ConnectionConfigConnectorSidecar connectionConfigConnectorSidecar;
+    private ConnectionConfigConnector connectionConfigConnector;
+
+    @Before
+    public void setUp() {
+        sidecar = new StubSidecarServer();
+        RestTemplate restTemplate = new RestTemplate(new KeycloakClientRequestFactory());
+        RootUriTemplateHandler.addTo(restTemplate, sidecar.getRootUri());
+        connectionConfigConnectorSidecar = new ConnectionConfigConnectorSidecar(restTemplate, 0);
+        connectionConfigConnector = new ConnectionConfigConnectorImpl(SecurityLevel.LENIENT.toString(),
+                connectionConfigConnectorSidecar, mock(ConnectionConfigConnectorFileSystem.class));
+        SecurityContextHolder.getContext().setAuthentication(authentication());
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        connectionConfigConnectorSidecar.stop();
+        sidecar.close();
+    }
+
+    @Test
+    public void shouldReconcileSnapshotWithCallerPrincipal() {
+        // Given
+        ConnectionConfig listed = TestHelper.getRandomConnectionConfig();
+        sidecar.add(listed);
+        SidecarSnapshotStore snapshotStore = new SidecarSnapshotStore(snapshotDirectory.getRoot().getAbsolutePath(),
+                60_000, 60_000);
+        ConnectionConfigConnectorImpl snapshotConnector = new ConnectionConfigConnectorImpl(
+                SecurityLevel.LENIENT.toString(), connectionConfigConnectorSidecar,
+                mock(ConnectionConfigConnectorFileSystem.class), new NoopConnectionConfigMetrics(), snapshotStore);
+        snapshotConnector.start();
+
+        // When
+        ConnectionConfig connectionConfig = snapshotConnector.getConnectionConfig(listed.getName());
+        snapshotStore.stop();
+
+        // Then
+        assertThat(snapshotStore.isReconciled()).isTrue();
+        assertThat(StaleConnectionConfig.isStale(connectionConfig)).isFalse();
+        assertThat(sidecar.getAuthorizations()).hasSize(2).containsOnly(BEARER);
+    }
+
+    @Test
+    public void shouldLookUpBatchOnWorkersWithCallerPrincipal() {
+        // Given
+        ConnectionConfig config1 = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig config2 = TestHelper.getRandomConnectionConfig();
+        sidecar.add(config1);
+        sidecar.add(config2);
+
+        // When
+        ConnectionConfigBatchResult result = connectionConfigConnector.getConnectionConfigs(
+                Arrays.asList(config1.getName(), config2.getName(), "missing"));
+
+        // Then
+        assertThat(result.getConnectionConfigs()).containsOnlyKeys(config1.getName(), config2.getName());
+        assertThat(result.getNotFound()).containsExactly("missing");
+        assertThat(sidecar.getAuthorizations()).hasSize(3).containsOnly(BEARER);
+    }
+
+    @Test
+    public void shouldApplyMutationsOnWorkersWithCallerPrincipal() {
+        // Given
+        ConnectionConfig added = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig deleted = TestHelper.getRandomConnectionConfig();
+        sidecar.add(deleted);
+
+        // When
+        List<ConnectionConfigMutationResult> results = connectionConfigConnector.applyMutations(Arrays.asList(
+                ConnectionConfigMutation.add(added), ConnectionConfigMutation.delete(deleted.getName())));
+
+        // Then
+        assertThat(results).extracting(ConnectionConfigMutationResult::isSuccessful).containsExactly(true, true);
+        assertThat(sidecar.getConnectionConfigs()).containsOnlyKeys(added.getName());
+        assertThat(sidecar.getAuthorizations()).containsOnly(BEARER);
+    }
+
+    private static KeycloakAuthenticationToken authentication() {
+        RefreshableKeycloakSecurityContext securityContext = new RefreshableKeycloakSecurityContext(null, null, TOKEN,
+                null, null, null, null);
+        KeycloakPrincipal<RefreshableKeycloakSecurityContext> principal = new KeycloakPrincipal<>("caller",
+                securityContext);
+        return new KeycloakAuthenticationToken(
+                new SimpleKeycloakAccount(principal, Collections.emptySet(), securityContext), false);
+    }
+}
@@ -2,19 +2,27 @@ package org.entando.connectionconfigconnector.service;
 
 import static org.assertj.core.api.Java6Assertions.assertThat;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.entando.connectionconfigconnector.TestHelper;
 import org.entando.connectionconfigconnector.config.TestConnectionConfigConfiguration;
 import org.entando.connectionconfigconnector.exception.ConnectionAlreadyExistsException;
+import org.entando.connectionconfigconnector.exception.ConnectionModifiedException;
 import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
 import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutation;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigPatch;
+import org.entando.connectionconfigconnector.model.VersionedConnectionConfig;
 import org.entando.web.exception.InternalServerException;
 import org.junit.Before;
 import org.junit.Rule;
@@ -23,6 +31,7 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -33,10 +42,14 @@ import org.springframework.web.client.RestTemplate;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = TestConnectionConfigConfiguration.class, properties = "entando.plugin.security.level=LENIENT")
-@SuppressWarnings("PMD.TooManyMethods")
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.ExcessiveImports"})
 public class ConnectionConfigConnectorLenientTest {
 
     private static final String ENDPOINT = "http://localhost:8084/config";
+    private static final String ENTITY_TAG = "\"v1\"";
+    private static final String NEXT_ENTITY_TAG = "\"v2\"";
+    private static final String PASSWORD = "password";
+    private static final String SECRET = "secret";
 
     @Autowired
     private ConnectionConfigConnector connectionConfigConnector;
@@ -111,6 +124,28 @@ public class ConnectionConfigConnectorLenientTest {
         assertThat(connectionConfigs).containsExactlyInAnyOrder(config1, config2, config3);
     }
 
+    @Test
+    public void shouldStreamAllConnectionConfigsFromEndpoint() throws Exception {
+        // Given
+        ConnectionConfig config1 = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig config2 = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig config3 = TestHelper.getRandomConnectionConfig();
+        mockServer.expect(ExpectedCount.once(),
+                requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(Arrays.asList(config1, null, config2, config3))));
+        List<ConnectionConfig> streamed = new ArrayList<>();
+
+        // When
+        connectionConfigConnector.forEachConnectionConfig(streamed::add);
+
+        // Then
+        mockServer.verify();
+        assertThat(streamed).containsExactly(config1, config2, config3);
+    }
+
     @Test
     public void shouldReturnEmptyListForErrorWhenGettingAllConfigurations() {
         // Given
@@ -147,6 +182,155 @@ public class ConnectionConfigConnectorLenientTest {
         assertThat(fromServer).isEqualTo(connectionConfig);
     }
 
+    @Test
+    public void shouldReturnEntityTagOfConnectionConfigAsVersion() throws Exception {
+        // Given
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        expectVersionedRead(connectionConfig, ENTITY_TAG);
+
+        // When
+        ConnectionConfig fromServer = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+
+        // Then
+        mockServer.verify();
+        assertThat(fromServer).isEqualTo(connectionConfig);
+        assertThat(VersionedConnectionConfig.versionOf(fromServer)).isEqualTo(ENTITY_TAG);
+    }
+
+    @Test
+    public void shouldPatchConnectionConfigThroughEditConditionedOnVersionRead() throws Exception {
+        // Given
+        ConnectionConfig current = new ConnectionConfig(RandomStringUtils.randomAlphabetic(10),
+                ImmutableMap.of("url", "https://example.org", "token", "old"));
+        ConnectionConfig patched = new ConnectionConfig(current.getName(),
+                ImmutableMap.of("url", "https://example.org", PASSWORD, SECRET));
+        expectVersionedRead(current, ENTITY_TAG);
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.PUT))
+                .andExpect(header(HttpHeaders.IF_MATCH, ENTITY_TAG))
+                .andExpect(content().json(mapper.writeValueAsString(patched), true))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .headers(entityTag(NEXT_ENTITY_TAG))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(patched)));
+
+        // When
+        ConnectionConfig fromServer = connectionConfigConnector.patchConnectionConfig(ConnectionConfigPatch.builder()
+                .name(current.getName())
+                .property(PASSWORD, SECRET)
+                .removedProperty("token")
+                .ifMatch(ENTITY_TAG)
+                .build());
+
+        // Then
+        mockServer.verify();
+        assertThat(fromServer).isEqualTo(patched);
+        assertThat(VersionedConnectionConfig.versionOf(fromServer)).isEqualTo(NEXT_ENTITY_TAG);
+    }
+
+    @Test
+    public void shouldThrowModifiedExceptionWhenPatchIsBasedOnOlderVersion() throws Exception {
+        expectedException.expect(ConnectionModifiedException.class);
+        expectedException.expectMessage(ConnectionModifiedException.MESSAGE_KEY);
+
+        ConnectionConfig current = TestHelper.getRandomConnectionConfig();
+        expectVersionedRead(current, NEXT_ENTITY_TAG);
+
+        connectionConfigConnector.patchConnectionConfig(ConnectionConfigPatch.builder()
+                .name(current.getName())
+                .property(PASSWORD, SECRET)
+                .ifMatch(ENTITY_TAG)
+                .build());
+    }
+
+    @Test
+    public void shouldThrowModifiedExceptionWhenEditPreconditionFails() throws Exception {
+        expectedException.expect(ConnectionModifiedException.class);
+        expectedException.expectMessage(ConnectionModifiedException.MESSAGE_KEY);
+
+        ConnectionConfig current = TestHelper.getRandomConnectionConfig();
+        expectVersionedRead(current, ENTITY_TAG);
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.PUT))
+                .andExpect(header(HttpHeaders.IF_MATCH, ENTITY_TAG))
+                .andRespond(withStatus(HttpStatus.PRECONDITION_FAILED));
+
+        connectionConfigConnector.patchConnectionConfig(ConnectionConfigPatch.builder()
+                .name(current.getName())
+                .property(PASSWORD, SECRET)
+                .build());
+    }
+
+    @Test
+    public void shouldRejectPatchOfVersionWithoutEntityTag() throws Exception {
+        expectedException.expect(InternalServerException.class);
+
+        ConnectionConfig current = TestHelper.getRandomConnectionConfig();
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + current.getName()))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(current)));
+
+        connectionConfigConnector.patchConnectionConfig(ConnectionConfigPatch.builder()
+                .name(current.getName())
+                .property(PASSWORD, SECRET)
+                .build());
+    }
+
+    @Test
+    public void shouldThrowNotFoundExceptionWhenPatchingMissingConnectionConfig() {
+        expectedException.expect(ConnectionNotFoundException.class);
+        expectedException.expectMessage(ConnectionNotFoundException.MESSAGE_KEY);
+
+        String configName = RandomStringUtils.randomAlphabetic(10);
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + configName))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        connectionConfigConnector.patchConnectionConfig(ConnectionConfigPatch.builder()
+                .name(configName)
+                .property(PASSWORD, SECRET)
+                .build());
+    }
+
+    @Test
+    public void shouldApplyMutationsThroughConcurrentRequests() throws Exception {
+        // Given
+        mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        ConnectionConfig added = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig edited = TestHelper.getRandomConnectionConfig();
+        String missing = RandomStringUtils.randomAlphabetic(10);
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().json(mapper.writeValueAsString(added)))
+                .andRespond(withStatus(HttpStatus.CREATED)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(added)));
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.PUT))
+                .andExpect(content().json(mapper.writeValueAsString(edited)))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(edited)));
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + missing))
+                .andExpect(method(HttpMethod.DELETE))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        // When
+        List<ConnectionConfigMutationResult> results = connectionConfigConnector.applyMutations(Arrays.asList(
+                ConnectionConfigMutation.add(added), ConnectionConfigMutation.delete(missing),
+                ConnectionConfigMutation.edit(edited)));
+
+        // Then
+        mockServer.verify();
+        assertThat(results).extracting(ConnectionConfigMutationResult::getConnectionConfig)
+                .containsExactly(added, null, edited);
+        assertThat(results.get(0).isSuccessful()).isTrue();
+        assertThat(results.get(1).getError()).isInstanceOf(ConnectionNotFoundException.class);
+        assertThat(results.get(2).isSuccessful()).isTrue();
+    }
+
     @Test
     public void shouldThrowExceptionForErrorWhenAddingConnectionConfig() throws Exception {
         expectedException.expect(InternalServerException.class);
@@ -288,4 +472,19 @@ public class ConnectionConfigConnectorLenientTest {
 
         connectionConfigConnector.getConnectionConfig(configName);
     }
+
+    private void expectVersionedRead(ConnectionConfig connectionConfig, String entityTag) throws Exception {
+        mockServer.expect(ExpectedCount.once(), requestTo(ENDPOINT + "/" + connectionConfig.getName()))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .headers(entityTag(entityTag))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(connectionConfig)));
+    }
+
+    private static HttpHeaders entityTag(String entityTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(entityTag);
+        return headers;
+    }
 }
@@ -0,0 +1,154 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.config.ConnectionConfigMetricsAutoConfiguration;
+import org.entando.connectionconfigconnector.exception.ConnectionAlreadyExistsException;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorFileSystem;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorImpl;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorSidecar;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigMetrics;
+import org.entando.connectionconfigconnector.service.impl.MicrometerConnectionConfigMetrics;
+import org.entando.connectionconfigconnector.service.impl.SidecarRequestMetricsInterceptor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.client.RootUriTemplateHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+
+@SuppressWarnings("PMD.ExcessiveImports")
+public class ConnectionConfigConnectorMetricsTest {
+
+    private static final String OUTCOME = "outcome";
+    private static final String OPERATION = "operation";
+
+    @Rule
+    public TemporaryFolder rootDirectory = new TemporaryFolder();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConnectionConfigMetrics metrics = new MicrometerConnectionConfigMetrics(meterRegistry);
+
+    @Test
+    public void shouldRecordStrictOperationsByOutcome() throws Exception {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = new ConnectionConfigConnectorImpl(
+                SecurityLevel.STRICT.toString(), mock(ConnectionConfigConnectorSidecar.class),
+                new ConnectionConfigConnectorFileSystem(rootDirectory.getRoot().getAbsolutePath(), false, 0, 0,
+                        metrics), metrics);
+        ConnectionConfig connectionConfig = createConfigFile();
+
+        // When
+        connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+        catchThrowable(() -> connectionConfigConnector.getConnectionConfig("missing"));
+        catchThrowable(() -> connectionConfigConnector.addConnectionConfig(connectionConfig));
+
+        // Then
+        assertThat(operationCount(ConnectionConfigMetrics.OPERATION_GET, MicrometerConnectionConfigMetrics.OUTCOME_HIT))
+                .isEqualTo(1);
+        assertThat(operationCount(ConnectionConfigMetrics.OPERATION_GET,
+                MicrometerConnectionConfigMetrics.OUTCOME_NOT_FOUND)).isEqualTo(1);
+        assertThat(operationCount(ConnectionConfigMetrics.OPERATION_ADD,
+                MicrometerConnectionConfigMetrics.OUTCOME_ERROR)).isEqualTo(1);
+        assertThat(meterRegistry.get(MicrometerConnectionConfigMetrics.OPERATIONS_TIMER)
+                .tag(OPERATION, ConnectionConfigMetrics.OPERATION_GET).tag("security.level", "STRICT")
+                .timers()).hasSize(2);
+        assertThat(meterRegistry.get(MicrometerConnectionConfigMetrics.YAML_PARSE_TIMER).timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRecordSidecarRequestsAndConflicts() {
+        // Given
+        RestTemplate restTemplate = new RestTemplate();
+        RootUriTemplateHandler.addTo(restTemplate, "http://localhost:8084");
+        restTemplate.getInterceptors().add(new SidecarRequestMetricsInterceptor(metrics));
+        MockRestServiceServer mockServer = MockRestServiceServer.createServer(restTemplate);
+        mockServer.expect(requestTo("http://localhost:8084/config"))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withStatus(HttpStatus.CONFLICT));
+        ConnectionConfigConnector connectionConfigConnector = new ConnectionConfigConnectorImpl(
+                SecurityLevel.LENIENT.toString(), new ConnectionConfigConnectorSidecar(restTemplate, 0),
+                mock(ConnectionConfigConnectorFileSystem.class), metrics);
+
+        // When
+        Throwable thrown = catchThrowable(() -> connectionConfigConnector
+                .addConnectionConfig(TestHelper.getRandomConnectionConfig()));
+
+        // Then
+        assertThat(thrown).isInstanceOf(ConnectionAlreadyExistsException.class);
+        assertThat(operationCount(ConnectionConfigMetrics.OPERATION_ADD,
+                MicrometerConnectionConfigMetrics.OUTCOME_CONFLICT)).isEqualTo(1);
+        assertThat(meterRegistry.get(MicrometerConnectionConfigMetrics.SIDECAR_REQUESTS_TIMER)
+                .tag("method", "POST").tag("status", "409").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldPropagateExceptionsUnchanged() {
+        // When
+        Throwable thrown = catchThrowable(() -> metrics.recordOperation(ConnectionConfigMetrics.OPERATION_GET,
+                SecurityLevel.LENIENT, () -> {
+                    throw new ConnectionNotFoundException();
+                }));
+
+        // Then
+        assertThat(thrown).isInstanceOf(ConnectionNotFoundException.class);
+        assertThat(operationCount(ConnectionConfigMetrics.OPERATION_GET,
+                MicrometerConnectionConfigMetrics.OUTCOME_NOT_FOUND)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldConfigureMetricsOnlyWhenThereIsAMeterRegistry() {
+        ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(ConnectionConfigMetricsAutoConfiguration.class));
+
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(ConnectionConfigMetrics.class));
+        contextRunner.withUserConfiguration(MeterRegistryConfiguration.class)
+                .run(context -> assertThat(context).getBean(ConnectionConfigMetrics.class)
+                        .isInstanceOf(MicrometerConnectionConfigMetrics.class));
+    }
+
+    private long operationCount(String operation, String outcome) {
+        return meterRegistry.get(MicrometerConnectionConfigMetrics.OPERATIONS_TIMER)
+                .tag(OPERATION, operation).tag(OUTCOME, outcome).timer().count();
+    }
+
+    private ConnectionConfig createConfigFile() throws Exception {
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        File configDirectory = rootDirectory.newFolder(connectionConfig.getName());
+        String yamlString = new Yaml(new Constructor(ConnectionConfig.class)).dump(connectionConfig);
+        Files.write(Paths.get(configDirectory.getAbsolutePath(), "config.yaml"), yamlString.getBytes());
+        return connectionConfig;
+    }
+
+    @Configuration
+    public static class MeterRegistryConfiguration {
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
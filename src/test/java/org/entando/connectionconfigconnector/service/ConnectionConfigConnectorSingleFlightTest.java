@@ -0,0 +1,190 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.entando.connectionconfigconnector.service.Deadline.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
+import org.entando.connectionconfigconnector.exception.DeadlineExceededException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorFileSystem;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorImpl;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorSidecar;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConnectionConfigConnectorSingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ConnectionConfigConnectorFileSystem connectionConfigConnectorFileSystem;
+    private ConnectionConfigConnectorImpl connectionConfigConnector;
+
+    @Before
+    public void setUp() {
+        connectionConfigConnectorFileSystem = mock(ConnectionConfigConnectorFileSystem.class);
+        connectionConfigConnector = new ConnectionConfigConnectorImpl(SecurityLevel.STRICT.toString(),
+                mock(ConnectionConfigConnectorSidecar.class), connectionConfigConnectorFileSystem);
+    }
+
+    @After
+    public void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void shouldShareSingleLoadBetweenConcurrentLookups() throws Exception {
+        // Given
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        when(connectionConfigConnectorFileSystem.getConnectionConfig(connectionConfig.getName()))
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return connectionConfig;
+                });
+
+        // When
+        List<Future<ConnectionConfig>> results = lookUpConcurrently(connectionConfig.getName());
+
+        // Then
+        for (Future<ConnectionConfig> result : results) {
+            assertThat(result.get()).isEqualTo(connectionConfig);
+        }
+        verify(connectionConfigConnectorFileSystem, times(1)).getConnectionConfig(connectionConfig.getName());
+        assertThat(connectionConfigConnector.getLoads()).isEqualTo(1);
+        assertThat(connectionConfigConnector.getCollapsedCalls()).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    public void shouldPropagateFailureToAllCollapsedLookups() throws Exception {
+        // Given
+        String configName = TestHelper.getRandomConnectionConfig().getName();
+        when(connectionConfigConnectorFileSystem.getConnectionConfig(configName)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            throw new ConnectionNotFoundException();
+        });
+
+        // When
+        List<Future<ConnectionConfig>> results = lookUpConcurrently(configName);
+
+        // Then
+        for (Future<ConnectionConfig> result : results) {
+            assertThat(catchThrowable(result::get)).isInstanceOf(ExecutionException.class)
+                    .hasCauseExactlyInstanceOf(ConnectionNotFoundException.class);
+        }
+        verify(connectionConfigConnectorFileSystem, times(1)).getConnectionConfig(configName);
+    }
+
+    @Test
+    public void shouldStopWaitingForSharedLoadAtCallerDeadline() throws Exception {
+        // Given
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        when(connectionConfigConnectorFileSystem.getConnectionConfig(connectionConfig.getName()))
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return connectionConfig;
+                });
+        Future<ConnectionConfig> leader = callers.submit(
+                () -> connectionConfigConnector.getConnectionConfig(connectionConfig.getName()));
+        while (connectionConfigConnector.getLoads() == 0) {
+            Thread.sleep(1);
+        }
+
+        // When
+        Throwable waiterFailure = catchThrowable(() -> connectionConfigConnector
+                .withDeadline(after(Duration.ofMillis(50)))
+                .getConnectionConfig(connectionConfig.getName()));
+        release.countDown();
+
+        // Then
+        assertThat(waiterFailure).isInstanceOf(DeadlineExceededException.class);
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(connectionConfig);
+    }
+
+    @Test
+    public void shouldKeepLeaderDeadlineFailureToLeader() throws Exception {
+        // Given
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        AtomicBoolean first = new AtomicBoolean(true);
+        when(connectionConfigConnectorFileSystem.getConnectionConfig(connectionConfig.getName()))
+                .thenAnswer(invocation -> {
+                    if (first.getAndSet(false)) {
+                        release.await(5, TimeUnit.SECONDS);
+                        throw new DeadlineExceededException();
+                    }
+                    return connectionConfig;
+                });
+
+        // When
+        List<Future<ConnectionConfig>> results = lookUpConcurrently(connectionConfig.getName());
+
+        // Then
+        int failures = 0;
+        for (Future<ConnectionConfig> result : results) {
+            Throwable failure = catchThrowable(result::get);
+            if (failure == null) {
+                assertThat(result.get()).isEqualTo(connectionConfig);
+            } else {
+                assertThat(failure).hasCauseExactlyInstanceOf(DeadlineExceededException.class);
+                failures++;
+            }
+        }
+        assertThat(failures).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldLoadAgainOnceThePreviousLoadCompleted() {
+        // Given
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        when(connectionConfigConnectorFileSystem.getConnectionConfig(connectionConfig.getName()))
+                .thenReturn(connectionConfig);
+
+        // When
+        connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+        connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+
+        // Then
+        verify(connectionConfigConnectorFileSystem, times(2)).getConnectionConfig(connectionConfig.getName());
+        assertThat(connectionConfigConnector.getCollapsedCalls()).isZero();
+    }
+
+    /**
+     * Starts {@link #CALLERS} lookups of the same name, waits until all of them are in progress and then lets the
+     * first load complete.
+     */
+    private List<Future<ConnectionConfig>> lookUpConcurrently(String configName) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(CALLERS);
+        List<Future<ConnectionConfig>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(callers.submit(() -> {
+                started.countDown();
+                return connectionConfigConnector.getConnectionConfig(configName);
+            }));
+        }
+        started.await(5, TimeUnit.SECONDS);
+        while (connectionConfigConnector.getLoads() + connectionConfigConnector.getCollapsedCalls() < CALLERS) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        return results;
+    }
+}
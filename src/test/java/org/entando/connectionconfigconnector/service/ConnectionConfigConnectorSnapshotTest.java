@@ -0,0 +1,142 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Collections;
+import java.util.List;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.exception.SidecarUnavailableException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.model.StaleConnectionConfig;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorFileSystem;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorImpl;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorSidecar;
+import org.entando.connectionconfigconnector.service.impl.NoopConnectionConfigMetrics;
+import org.entando.connectionconfigconnector.service.impl.SidecarSnapshotFile;
+import org.entando.connectionconfigconnector.service.impl.SidecarSnapshotStore;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SuppressWarnings("PMD.ExcessiveImports")
+public class ConnectionConfigConnectorSnapshotTest {
+
+    private static final long FETCHED_AT = 1_000L;
+
+    @Rule
+    public TemporaryFolder snapshotDirectory = new TemporaryFolder();
+
+    private final ConnectionConfigConnectorSidecar sidecar = mock(ConnectionConfigConnectorSidecar.class);
+    private SidecarSnapshotFile snapshotFile;
+    private SidecarSnapshotStore snapshotStore;
+
+    @Before
+    public void init() {
+        Path directory = snapshotDirectory.getRoot().toPath();
+        snapshotFile = new SidecarSnapshotFile(directory, SidecarSnapshotStore.SNAPSHOT_FILE_NAME);
+        snapshotStore = new SidecarSnapshotStore(directory.toString(), 60_000, 60_000);
+    }
+
+    @After
+    public void tearDown() {
+        snapshotStore.stop();
+    }
+
+    @Test
+    public void shouldServeSnapshotWhileSidecarIsDown() throws Exception {
+        // Given
+        ConnectionConfig saved = TestHelper.getRandomConnectionConfig();
+        snapshotFile.write(Collections.singletonList(staleCopyOf(saved)));
+        when(sidecar.getConnectionConfigs()).thenThrow(new SidecarUnavailableException());
+
+        // When
+        ConnectionConfigConnector connectionConfigConnector = createConnector();
+        ConnectionConfig connectionConfig = connectionConfigConnector.getConnectionConfig(saved.getName());
+        List<ConnectionConfig> connectionConfigs = connectionConfigConnector.getConnectionConfigs();
+
+        // Then
+        assertThat(connectionConfig).isEqualTo(saved);
+        assertThat(StaleConnectionConfig.isStale(connectionConfig)).isTrue();
+        assertThat(((StaleConnectionConfig) connectionConfig).getFetchedAt()).isEqualTo(FETCHED_AT);
+        assertThat(connectionConfigs).containsExactly(saved);
+        assertThat(snapshotStore.isReconciled()).isFalse();
+        verify(sidecar, never()).getConnectionConfig(anyString());
+    }
+
+    @Test
+    public void shouldReconcileWithSidecarAndPersistFetchedConfigs() throws Exception {
+        // Given
+        ConnectionConfig removed = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig listed = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig added = TestHelper.getRandomConnectionConfig();
+        snapshotFile.write(Collections.singletonList(staleCopyOf(removed)));
+        when(sidecar.getConnectionConfigs()).thenReturn(Collections.singletonList(listed));
+        when(sidecar.getConnectionConfig(added.getName())).thenReturn(added);
+        ConnectionConfigConnector connectionConfigConnector = createConnector();
+
+        // When
+        ConnectionConfig connectionConfig = connectionConfigConnector.getConnectionConfig(added.getName());
+        snapshotStore.stop();
+
+        // Then
+        assertThat(snapshotStore.isReconciled()).isTrue();
+        assertThat(connectionConfig).isEqualTo(added);
+        assertThat(StaleConnectionConfig.isStale(connectionConfig)).isFalse();
+        assertThat(snapshotFile.read()).containsExactlyInAnyOrder(staleCopyOf(listed), staleCopyOf(added));
+    }
+
+    @Test
+    public void shouldWriteSnapshotReadableByOwnerOnly() throws IOException {
+        // Given
+        Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+        // When
+        snapshotFile.write(Collections.singletonList(staleCopyOf(TestHelper.getRandomConnectionConfig())));
+
+        // Then
+        assertThat(Files.getPosixFilePermissions(snapshotFile.getPath()))
+                .containsExactlyInAnyOrder(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+    }
+
+    @Test
+    public void shouldDiscardCorruptSnapshot() throws IOException {
+        // Given
+        snapshotFile.write(Collections.singletonList(staleCopyOf(TestHelper.getRandomConnectionConfig())));
+        byte[] content = Files.readAllBytes(snapshotFile.getPath());
+        content[content.length - 1] ^= 1;
+        Files.write(snapshotFile.getPath(), content);
+
+        // When
+        List<StaleConnectionConfig> connectionConfigs = snapshotFile.read();
+
+        // Then
+        assertThat(connectionConfigs).isEmpty();
+        assertThat(Files.exists(snapshotFile.getPath())).isFalse();
+    }
+
+    private ConnectionConfigConnector createConnector() {
+        ConnectionConfigConnectorImpl connectionConfigConnector = new ConnectionConfigConnectorImpl(
+                SecurityLevel.LENIENT.toString(), sidecar, mock(ConnectionConfigConnectorFileSystem.class),
+                new NoopConnectionConfigMetrics(), snapshotStore);
+        connectionConfigConnector.start();
+        return connectionConfigConnector;
+    }
+
+    private static StaleConnectionConfig staleCopyOf(ConnectionConfig connectionConfig) {
+        return new StaleConnectionConfig(connectionConfig.getName(), connectionConfig.getProperties(), FETCHED_AT);
+    }
+}
@@ -0,0 +1,112 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorFileSystem;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorImpl;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorSidecar;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigPackBuilder;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigPackFile;
+import org.entando.connectionconfigconnector.service.impl.NoopConnectionConfigMetrics;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+
+public class ConnectionConfigConnectorStrictPackTest {
+
+    private static final String CONFIG_YAML = "config.yaml";
+    private static final FileTime AN_HOUR_AGO = FileTime.fromMillis(System.currentTimeMillis()
+            - TimeUnit.HOURS.toMillis(1));
+
+    @Rule
+    public TemporaryFolder rootDirectory = new TemporaryFolder();
+
+    @Rule
+    public TemporaryFolder packDirectory = new TemporaryFolder();
+
+    private Path packFile;
+    private ConnectionConfigConnector connectionConfigConnector;
+
+    @Before
+    public void setUp() {
+        packFile = packDirectory.getRoot().toPath().resolve("connections.pack");
+        connectionConfigConnector = new ConnectionConfigConnectorImpl(SecurityLevel.STRICT.toString(),
+                mock(ConnectionConfigConnectorSidecar.class),
+                new ConnectionConfigConnectorFileSystem(rootDirectory.getRoot().getAbsolutePath(), false, 0, 0,
+                        packFile.toString(), new NoopConnectionConfigMetrics()));
+    }
+
+    @Test
+    public void shouldServePackedConnectionConfigsWithoutParsingFiles() throws Exception {
+        // Given
+        ConnectionConfig config1 = writeConfigFile(TestHelper.getRandomConnectionConfig(), AN_HOUR_AGO);
+        ConnectionConfig config2 = writeConfigFile(TestHelper.getRandomConnectionConfig(), AN_HOUR_AGO);
+        int packed = ConnectionConfigPackBuilder.build(rootDirectory.getRoot().toPath(), packFile);
+        Path configFile = rootDirectory.getRoot().toPath().resolve(config1.getName()).resolve(CONFIG_YAML);
+        Files.write(configFile, "not: [valid".getBytes());
+        Files.setLastModifiedTime(configFile, AN_HOUR_AGO);
+
+        // When
+        ConnectionConfig fromPack = connectionConfigConnector.getConnectionConfig(config1.getName());
+
+        // Then
+        assertThat(packed).isEqualTo(2);
+        assertThat(ConnectionConfigPackFile.map(packFile).getNames()).containsExactlyInAnyOrder(config1.getName(),
+                config2.getName());
+        assertThat(fromPack).isEqualTo(config1);
+        assertThat(connectionConfigConnector.getConnectionConfigs()).containsExactlyInAnyOrder(config1, config2);
+    }
+
+    @Test
+    public void shouldReadConnectionDirectoriesChangedSinceThePackWasBuilt() throws Exception {
+        // Given
+        ConnectionConfig connectionConfig = writeConfigFile(TestHelper.getRandomConnectionConfig(), AN_HOUR_AGO);
+        ConnectionConfigPackBuilder.build(rootDirectory.getRoot().toPath(), packFile);
+        ConnectionConfig edited = TestHelper.getRandomConnectionConfig();
+        edited.setName(connectionConfig.getName());
+        writeConfigFile(edited, FileTime.fromMillis(System.currentTimeMillis()));
+        ConnectionConfig added = writeConfigFile(TestHelper.getRandomConnectionConfig(), AN_HOUR_AGO);
+
+        // When
+        ConnectionConfig fromDirectory = connectionConfigConnector.getConnectionConfig(edited.getName());
+
+        // Then
+        assertThat(fromDirectory).isEqualTo(edited);
+        assertThat(connectionConfigConnector.getConnectionConfig(added.getName())).isEqualTo(added);
+    }
+
+    @Test
+    public void shouldIgnoreCorruptPack() throws Exception {
+        // Given
+        ConnectionConfig connectionConfig = writeConfigFile(TestHelper.getRandomConnectionConfig(), AN_HOUR_AGO);
+        Files.write(packFile, "corrupt".getBytes());
+
+        // When
+        ConnectionConfig fromDirectory = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+
+        // Then
+        assertThat(fromDirectory).isEqualTo(connectionConfig);
+    }
+
+    private ConnectionConfig writeConfigFile(ConnectionConfig connectionConfig, FileTime lastModified)
+            throws IOException {
+        Path configDirectory = Files.createDirectories(rootDirectory.getRoot().toPath()
+                .resolve(connectionConfig.getName()));
+        Path configFile = configDirectory.resolve(CONFIG_YAML);
+        Files.write(configFile, new Yaml(new Constructor(ConnectionConfig.class)).dump(connectionConfig).getBytes());
+        Files.setLastModifiedTime(configFile, lastModified);
+        return connectionConfig;
+    }
+}
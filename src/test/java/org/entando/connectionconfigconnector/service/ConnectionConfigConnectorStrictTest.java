@@ -1,12 +1,16 @@
 package org.entando.connectionconfigconnector.service;
 
 import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.entry;
 import static org.mockito.Mockito.mock;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.assertj.core.api.Java6JUnitSoftAssertions;
@@ -14,9 +18,12 @@ import org.entando.connectionconfigconnector.TestHelper;
 import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
 import org.entando.connectionconfigconnector.exception.InvalidStrictOperationException;
 import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigBatchResult;
 import org.entando.connectionconfigconnector.model.SecurityLevel;
 import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorFileSystem;
 import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorImpl;
+import org.entando.connectionconfigconnector.service.impl.NoopConnectionConfigMetrics;
+import org.entando.web.exception.InternalServerException;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -26,9 +33,16 @@ import org.springframework.web.client.RestTemplate;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.Constructor;
 
-@SuppressWarnings("PMD.TooManyMethods")
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.ExcessiveImports"})
 public class ConnectionConfigConnectorStrictTest {
 
+    private static final String TLS_CONNECTION = "tls";
+    private static final String CA_CHAIN = "caChain";
+    private static final String CA_FILE = "ca.pem";
+    private static final String CONFIG_YAML = "config.yaml";
+    private static final String TLS_CONFIG_YAML =
+            "name: " + TLS_CONNECTION + "\nproperties:\n  url: https://example.org\n  caChain: $file:ca.pem\n";
+
     @Rule
     public TemporaryFolder rootDirectory = new TemporaryFolder();
 
@@ -81,6 +95,21 @@ public class ConnectionConfigConnectorStrictTest {
         assertThat(connectionConfigs).containsExactlyInAnyOrder(fooConfig, barConfig, testConfig);
     }
 
+    @Test
+    public void shouldStreamAllConnectionConfigs() throws Exception {
+        // Given
+        ConnectionConfig fooConfig = createConfigFile();
+        ConnectionConfig barConfig = createConfigFile();
+        rootDirectory.newFolder(RandomStringUtils.randomAlphabetic(10));
+        List<ConnectionConfig> streamed = new ArrayList<>();
+
+        // When
+        connectionConfigConnector.forEachConnectionConfig(streamed::add);
+
+        // Then
+        assertThat(streamed).containsExactlyInAnyOrder(fooConfig, barConfig);
+    }
+
     @Test
     public void shouldReturnEmptyListOnError() {
         // Given
@@ -106,6 +135,74 @@ public class ConnectionConfigConnectorStrictTest {
         assertThat(connectionConfigs).isEmpty();
     }
 
+    @Test
+    public void shouldIgnoreNestedDirectories() throws Exception {
+        // Given
+        ConnectionConfig connectionConfig = createConfigFile();
+        rootDirectory.newFolder(connectionConfig.getName(), "nested");
+        rootDirectory.newFolder("..data");
+
+        // When
+        List<ConnectionConfig> connectionConfigs = connectionConfigConnector.getConnectionConfigs();
+
+        // Then
+        assertThat(connectionConfigs).containsExactly(connectionConfig);
+    }
+
+    @Test
+    public void shouldReturnRemainingConnectionConfigsWhenOneEntryFails() throws Exception {
+        // Given
+        ConnectionConfig fooConfig = createConfigFile();
+        ConnectionConfig barConfig = createConfigFile();
+        rootDirectory.newFolder("missing-config");
+        File brokenDirectory = rootDirectory.newFolder("broken-config");
+        Files.write(Paths.get(brokenDirectory.getAbsolutePath(), CONFIG_YAML), "name: [".getBytes());
+
+        // When
+        List<ConnectionConfig> connectionConfigs = connectionConfigConnector.getConnectionConfigs();
+
+        // Then
+        assertThat(connectionConfigs).containsExactlyInAnyOrder(fooConfig, barConfig);
+    }
+
+    @Test
+    public void shouldLoadConnectionConfigsOnDedicatedPool() throws Exception {
+        // Given
+        List<ConnectionConfig> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            expected.add(createConfigFile());
+        }
+        ConnectionConfigConnectorFileSystem connectionConfigConnectorFileSystem = new ConnectionConfigConnectorFileSystem(
+                rootDirectory.getRoot().getAbsolutePath(), false, 4);
+        connectionConfigConnector = new ConnectionConfigConnectorImpl(SecurityLevel.STRICT.toString(),
+                mock(RestTemplate.class), connectionConfigConnectorFileSystem);
+
+        // When
+        List<ConnectionConfig> connectionConfigs = connectionConfigConnector.getConnectionConfigs();
+        connectionConfigConnectorFileSystem.stopWatching();
+
+        // Then
+        assertThat(connectionConfigs).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    public void shouldGetConnectionConfigsByName() throws Exception {
+        // Given
+        ConnectionConfig fooConfig = createConfigFile();
+        ConnectionConfig barConfig = createConfigFile();
+        createConfigFile();
+        String missing = RandomStringUtils.randomAlphabetic(10);
+
+        // When
+        ConnectionConfigBatchResult result = connectionConfigConnector.getConnectionConfigs(
+                Arrays.asList(barConfig.getName(), missing, fooConfig.getName(), barConfig.getName()));
+
+        // Then
+        assertThat(result.getConnectionConfigs()).containsExactly(entry(barConfig.getName(), barConfig),
+                entry(fooConfig.getName(), fooConfig));
+        assertThat(result.getNotFound()).containsExactly(missing);
+    }
+
     @Test
     public void shouldRaiseExceptionWhenAddingOnStrictSecurityLevel() {
         expectedException.expect(InvalidStrictOperationException.class);
@@ -132,12 +229,120 @@ public class ConnectionConfigConnectorStrictTest {
         connectionConfigConnector.editConnectionConfig(connectionConfig);
     }
 
+    @Test
+    public void shouldRejectListenersWhenNotWatching() {
+        expectedException.expect(UnsupportedOperationException.class);
+
+        connectionConfigConnector.addConnectionConfigListener(event -> {
+        });
+    }
+
+    @Test
+    public void shouldReadReferencedPropertyFilesWhenFirstAccessed() throws Exception {
+        // Given
+        ConnectionConfigConnector fileReferencesConnector = fileReferencesConnector();
+        File configDirectory = rootDirectory.newFolder(TLS_CONNECTION);
+        Files.write(Paths.get(configDirectory.getAbsolutePath(), CONFIG_YAML), TLS_CONFIG_YAML.getBytes());
+        Files.write(Paths.get(configDirectory.getAbsolutePath(), CA_FILE), "first".getBytes());
+
+        // When
+        ConnectionConfig connectionConfig = fileReferencesConnector.getConnectionConfig(TLS_CONNECTION);
+        Files.write(Paths.get(configDirectory.getAbsolutePath(), CA_FILE), "second".getBytes());
+        String caChain = connectionConfig.getProperties().get(CA_CHAIN);
+        Files.write(Paths.get(configDirectory.getAbsolutePath(), CA_FILE), "third".getBytes());
+
+        // Then
+        safely.assertThat(connectionConfig.getProperties()).containsOnlyKeys("url", CA_CHAIN);
+        safely.assertThat(caChain).isEqualTo("second");
+        safely.assertThat(connectionConfig.getProperties().get(CA_CHAIN)).isEqualTo("second");
+        safely.assertThat(fileReferencesConnector.getConnectionConfig(TLS_CONNECTION).getProperties().get(CA_CHAIN))
+                .isEqualTo("third");
+    }
+
+    @Test
+    public void shouldReturnFileReferencesAsDeclaredUnlessEnabled() throws Exception {
+        // Given
+        File configDirectory = rootDirectory.newFolder(TLS_CONNECTION);
+        Files.write(Paths.get(configDirectory.getAbsolutePath(), CONFIG_YAML), TLS_CONFIG_YAML.getBytes());
+
+        // When
+        ConnectionConfig connectionConfig = connectionConfigConnector.getConnectionConfig(TLS_CONNECTION);
+
+        // Then
+        assertThat(connectionConfig.getProperties()).containsEntry(CA_CHAIN, "$file:ca.pem");
+    }
+
+    @Test
+    public void shouldFailLoadingConnectionConfigReferringToMissingFile() throws Exception {
+        expectedException.expect(InternalServerException.class);
+
+        File configDirectory = rootDirectory.newFolder(TLS_CONNECTION);
+        Files.write(Paths.get(configDirectory.getAbsolutePath(), CONFIG_YAML), TLS_CONFIG_YAML.getBytes());
+
+        fileReferencesConnector().getConnectionConfig(TLS_CONNECTION);
+    }
+
+    @Test
+    public void shouldFailLoadingConnectionConfigReferringToLinkOutsideOfDirectory() throws Exception {
+        expectedException.expect(InternalServerException.class);
+
+        File configDirectory = rootDirectory.newFolder(TLS_CONNECTION);
+        Files.write(Paths.get(configDirectory.getAbsolutePath(), CONFIG_YAML), TLS_CONFIG_YAML.getBytes());
+        File outside = rootDirectory.newFile();
+        Files.createSymbolicLink(Paths.get(configDirectory.getAbsolutePath(), CA_FILE), outside.toPath());
+
+        fileReferencesConnector().getConnectionConfig(TLS_CONNECTION);
+    }
+
+    @Test
+    public void shouldReadReferencedFileLinkedWithinDirectory() throws Exception {
+        // Given
+        File configDirectory = rootDirectory.newFolder(TLS_CONNECTION);
+        Files.write(Paths.get(configDirectory.getAbsolutePath(), CONFIG_YAML), TLS_CONFIG_YAML.getBytes());
+        File dataDirectory = rootDirectory.newFolder(TLS_CONNECTION, "..2020_01_01");
+        Files.write(Paths.get(dataDirectory.getAbsolutePath(), CA_FILE), "chain".getBytes());
+        Path dataLink = Paths.get(configDirectory.getAbsolutePath(), "..data");
+        Files.createSymbolicLink(dataLink, dataDirectory.toPath().getFileName());
+        Files.createSymbolicLink(Paths.get(configDirectory.getAbsolutePath(), CA_FILE),
+                dataLink.getFileName().resolve(CA_FILE));
+
+        // When
+        ConnectionConfig connectionConfig = fileReferencesConnector().getConnectionConfig(TLS_CONNECTION);
+
+        // Then
+        assertThat(connectionConfig.getProperties()).containsEntry(CA_CHAIN, "chain");
+    }
+
+    @Test
+    public void shouldReadReferencedFileRemovedAfterLoadingAsMissingValue() throws Exception {
+        // Given
+        File configDirectory = rootDirectory.newFolder(TLS_CONNECTION);
+        Files.write(Paths.get(configDirectory.getAbsolutePath(), CONFIG_YAML), TLS_CONFIG_YAML.getBytes());
+        Files.write(Paths.get(configDirectory.getAbsolutePath(), CA_FILE), "first".getBytes());
+        ConnectionConfig connectionConfig = fileReferencesConnector().getConnectionConfig(TLS_CONNECTION);
+
+        // When
+        Files.delete(Paths.get(configDirectory.getAbsolutePath(), CA_FILE));
+
+        // Then
+        safely.assertThat(connectionConfig.getProperties().get(CA_CHAIN)).isNull();
+        safely.assertThat(connectionConfig.getProperties()).containsEntry("url", "https://example.org");
+        safely.assertThat(connectionConfig.toString()).contains("caChain=null");
+    }
+
+    private ConnectionConfigConnector fileReferencesConnector() {
+        return new ConnectionConfigConnectorImpl(SecurityLevel.STRICT.toString(),
+                mock(RestTemplate.class), new ConnectionConfigConnectorFileSystem(
+                        rootDirectory.getRoot().getAbsolutePath(), false, 0, 0, "", true,
+                        new NoopConnectionConfigMetrics()));
+    }
+
     private ConnectionConfig createConfigFile() throws IOException {
         ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
         File configDirectory = rootDirectory.newFolder(connectionConfig.getName());
         Yaml yaml = new Yaml(new Constructor(ConnectionConfig.class));
         String yamlString = yaml.dump(connectionConfig);
-        Files.write(Paths.get(configDirectory.getAbsolutePath(), "config.yaml"), yamlString.getBytes());
+        Files.write(Paths.get(configDirectory.getAbsolutePath(), CONFIG_YAML), yamlString.getBytes());
         return connectionConfig;
     }
 }
@@ -0,0 +1,252 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigEvent;
+import org.entando.connectionconfigconnector.model.ConnectionConfigEventType;
+import org.entando.connectionconfigconnector.model.ConnectionConfigQuery;
+import org.entando.connectionconfigconnector.model.SecurityLevel;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorFileSystem;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorImpl;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigConnectorSidecar;
+import org.entando.connectionconfigconnector.service.impl.NoopConnectionConfigMetrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+
+@SuppressWarnings({"PMD.TooManyMethods", "PMD.ExcessiveImports"})
+public class ConnectionConfigConnectorStrictWatchTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+    private static final String CONFIG_YAML = "config.yaml";
+    private static final String TLS_CONNECTION = "tls";
+    private static final String CA_CHAIN = "caChain";
+    private static final String CA_FILE = "ca.pem";
+
+    @Rule
+    public TemporaryFolder rootDirectory = new TemporaryFolder();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private ConnectionConfigConnectorFileSystem connectionConfigConnectorFileSystem;
+    private ConnectionConfigConnector connectionConfigConnector;
+
+    @Before
+    public void setUp() throws IOException {
+        connectionConfigConnectorFileSystem = new ConnectionConfigConnectorFileSystem(
+                rootDirectory.getRoot().getAbsolutePath(), true, 0);
+        connectionConfigConnector = new ConnectionConfigConnectorImpl(SecurityLevel.STRICT.toString(),
+                mock(ConnectionConfigConnectorSidecar.class), connectionConfigConnectorFileSystem);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        connectionConfigConnectorFileSystem.stopWatching();
+    }
+
+    @Test
+    public void shouldServeConnectionConfigsLoadedAtStartup() throws Exception {
+        ConnectionConfig config1 = writeConfigFile(TestHelper.getRandomConnectionConfig());
+        ConnectionConfig config2 = writeConfigFile(TestHelper.getRandomConnectionConfig());
+        connectionConfigConnectorFileSystem.startWatching();
+
+        assertThat(connectionConfigConnector.getConnectionConfig(config1.getName())).isEqualTo(config1);
+        assertThat(connectionConfigConnector.getConnectionConfigs()).containsExactlyInAnyOrder(config1, config2);
+    }
+
+    @Test
+    public void shouldHandOverMutableCopiesOfSnapshot() throws Exception {
+        ConnectionConfig connectionConfig = writeConfigFile(TestHelper.getRandomConnectionConfig());
+        connectionConfigConnectorFileSystem.startWatching();
+
+        ConnectionConfig fetched = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+        fetched.getProperties().put("added", "value");
+        connectionConfigConnector.getConnectionConfigs().get(0).getProperties().clear();
+
+        assertThat(connectionConfigConnector.getConnectionConfig(connectionConfig.getName()))
+                .isEqualTo(connectionConfig);
+    }
+
+    @Test
+    public void shouldFindConnectionConfigsThroughSnapshotIndex() throws Exception {
+        ConnectionConfig config1 = writeConfigFile(TestHelper.getRandomConnectionConfig());
+        ConnectionConfig config2 = writeConfigFile(TestHelper.getRandomConnectionConfig());
+        connectionConfigConnectorFileSystem.startWatching();
+        String key = config1.getProperties().keySet().iterator().next();
+
+        HashMap<String, String> properties = new HashMap<>(config2.getProperties());
+        properties.put(key, config1.getProperties().get(key));
+        ConnectionConfig edited = writeConfigFile(new ConnectionConfig(config2.getName(), properties));
+        ConnectionConfigQuery query = ConnectionConfigQuery.builder()
+                .property(key, config1.getProperties().get(key))
+                .build();
+        awaitUntil(() -> connectionConfigConnector.findConnectionConfigs(query).size() == 2);
+
+        assertThat(connectionConfigConnector.findConnectionConfigs(query)).containsExactlyInAnyOrder(config1, edited);
+        assertThat(connectionConfigConnector.findConnectionConfigs(ConnectionConfigQuery.builder()
+                .namePrefix(config1.getName()).build())).containsExactly(config1);
+    }
+
+    @Test
+    public void shouldRefreshSnapshotWhenConfigFileChanges() throws Exception {
+        ConnectionConfig connectionConfig = writeConfigFile(TestHelper.getRandomConnectionConfig());
+        connectionConfigConnectorFileSystem.startWatching();
+
+        ConnectionConfig edited = TestHelper.getRandomConnectionConfig();
+        edited.setName(connectionConfig.getName());
+        writeConfigFile(edited);
+
+        awaitUntil(() -> edited.equals(connectionConfigConnector.getConnectionConfig(edited.getName())));
+    }
+
+    @Test
+    public void shouldPickUpAddedAndRemovedConnectionDirectories() throws Exception {
+        ConnectionConfig removed = writeConfigFile(TestHelper.getRandomConnectionConfig());
+        connectionConfigConnectorFileSystem.startWatching();
+
+        ConnectionConfig added = writeConfigFile(TestHelper.getRandomConnectionConfig());
+        Path removedDirectory = rootDirectory.getRoot().toPath().resolve(removed.getName());
+        Files.delete(removedDirectory.resolve(CONFIG_YAML));
+        Files.delete(removedDirectory);
+
+        awaitUntil(() -> connectionConfigConnector.getConnectionConfigs().size() == 1
+                && connectionConfigConnector.getConnectionConfigs().contains(added));
+    }
+
+    @Test
+    public void shouldFollowAtomicDataSymlinkSwap() throws Exception {
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        Path configDirectory = Files.createDirectory(rootDirectory.getRoot().toPath()
+                .resolve(connectionConfig.getName()));
+        writeKubernetesVolume(configDirectory, "..2019_01_01_00_00_00.1", connectionConfig);
+        Files.createSymbolicLink(configDirectory.resolve(CONFIG_YAML), Paths.get("..data", CONFIG_YAML));
+        connectionConfigConnectorFileSystem.startWatching();
+        assertThat(connectionConfigConnector.getConnectionConfig(connectionConfig.getName()))
+                .isEqualTo(connectionConfig);
+
+        ConnectionConfig edited = TestHelper.getRandomConnectionConfig();
+        edited.setName(connectionConfig.getName());
+        writeKubernetesVolume(configDirectory, "..2019_01_01_00_00_00.2", edited);
+
+        awaitUntil(() -> edited.equals(connectionConfigConnector.getConnectionConfig(edited.getName())));
+    }
+
+    @Test
+    public void shouldNotifyListenersOfFileSystemChanges() throws Exception {
+        ConnectionConfig updated = writeConfigFile(TestHelper.getRandomConnectionConfig());
+        ConnectionConfig removed = writeConfigFile(TestHelper.getRandomConnectionConfig());
+        connectionConfigConnectorFileSystem.startWatching();
+        BlockingQueue<ConnectionConfigEvent> events = new LinkedBlockingQueue<>();
+        connectionConfigConnector.addConnectionConfigListener(events::add);
+
+        ConnectionConfig edited = TestHelper.getRandomConnectionConfig();
+        edited.setName(updated.getName());
+        writeConfigFile(edited);
+        Path removedDirectory = rootDirectory.getRoot().toPath().resolve(removed.getName());
+        Files.delete(removedDirectory.resolve(CONFIG_YAML));
+        Files.delete(removedDirectory);
+        ConnectionConfig added = writeConfigFile(TestHelper.getRandomConnectionConfig());
+
+        Set<ConnectionConfigEvent> received = new HashSet<>();
+        while (received.size() < 3) {
+            ConnectionConfigEvent event = events.poll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertThat(event).isNotNull();
+            received.add(event);
+        }
+        assertThat(received).containsExactlyInAnyOrder(
+                new ConnectionConfigEvent(ConnectionConfigEventType.UPDATED, edited.getName(), edited),
+                new ConnectionConfigEvent(ConnectionConfigEventType.REMOVED, removed.getName(), null),
+                new ConnectionConfigEvent(ConnectionConfigEventType.ADDED, added.getName(), added));
+    }
+
+    @Test
+    public void shouldReloadConnectionConfigWhenReferencedFileChanges() throws Exception {
+        ConnectionConfigConnectorFileSystem fileReferencesFileSystem = new ConnectionConfigConnectorFileSystem(
+                rootDirectory.getRoot().getAbsolutePath(), true, 0, 0, "", true, new NoopConnectionConfigMetrics());
+        ConnectionConfigConnector fileReferencesConnector = new ConnectionConfigConnectorImpl(
+                SecurityLevel.STRICT.toString(), mock(ConnectionConfigConnectorSidecar.class),
+                fileReferencesFileSystem);
+        Path configDirectory = Files.createDirectory(rootDirectory.getRoot().toPath().resolve(TLS_CONNECTION));
+        Files.write(configDirectory.resolve(CA_FILE), "first".getBytes());
+        Files.write(configDirectory.resolve(CONFIG_YAML),
+                "name: tls\nproperties:\n  caChain: $file:ca.pem\n".getBytes());
+        try {
+            fileReferencesFileSystem.startWatching();
+            ConnectionConfig fetched = fileReferencesConnector.getConnectionConfig(TLS_CONNECTION);
+            fetched.getProperties().put(CA_CHAIN, "edited");
+            assertThat(fileReferencesConnector.getConnectionConfig(TLS_CONNECTION).getProperties().get(CA_CHAIN))
+                    .isEqualTo("first");
+
+            Files.write(configDirectory.resolve(CA_FILE), "second".getBytes());
+
+            awaitUntil(() -> "second".equals(fileReferencesConnector.getConnectionConfig(TLS_CONNECTION).getProperties()
+                    .get(CA_CHAIN)));
+        } finally {
+            fileReferencesFileSystem.stopWatching();
+        }
+    }
+
+    @Test
+    public void shouldThrowConnectionNotFoundExceptionFromSnapshot() throws Exception {
+        expectedException.expect(ConnectionNotFoundException.class);
+        expectedException.expectMessage(ConnectionNotFoundException.MESSAGE_KEY);
+
+        connectionConfigConnectorFileSystem.startWatching();
+        connectionConfigConnector.getConnectionConfig("invalid");
+    }
+
+    private ConnectionConfig writeConfigFile(ConnectionConfig connectionConfig) throws IOException {
+        Path configDirectory = rootDirectory.getRoot().toPath().resolve(connectionConfig.getName());
+        Files.createDirectories(configDirectory);
+        Path tempFile = Files.createTempFile(rootDirectory.getRoot().toPath(), "..", ".yaml");
+        Files.write(tempFile, toYaml(connectionConfig));
+        Files.move(tempFile, configDirectory.resolve(CONFIG_YAML), StandardCopyOption.ATOMIC_MOVE);
+        return connectionConfig;
+    }
+
+    /**
+     * Mimics the kubelet atomic writer: the new timestamped directory is written first, then the {@code ..data}
+     * symlink is replaced through a rename.
+     */
+    private void writeKubernetesVolume(Path configDirectory, String timestamp, ConnectionConfig connectionConfig)
+            throws IOException {
+        Path dataDirectory = Files.createDirectory(configDirectory.resolve(timestamp));
+        Files.write(dataDirectory.resolve(CONFIG_YAML), toYaml(connectionConfig));
+        Path tempLink = Files.createSymbolicLink(configDirectory.resolve("..data_tmp"), Paths.get(timestamp));
+        Files.move(tempLink, configDirectory.resolve("..data"), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private byte[] toYaml(ConnectionConfig connectionConfig) {
+        return new Yaml(new Constructor(ConnectionConfig.class)).dump(connectionConfig).getBytes();
+    }
+
+    private void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
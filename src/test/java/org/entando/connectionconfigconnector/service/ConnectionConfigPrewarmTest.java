@@ -0,0 +1,134 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.config.ConnectionConfigPrewarmHealthIndicator;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigPrewarmer;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigTier;
+import org.entando.connectionconfigconnector.service.impl.InMemoryConnectionConfigConnector;
+import org.entando.connectionconfigconnector.service.impl.TieredConnectionConfigConnector;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+public class ConnectionConfigPrewarmTest {
+
+    private static final String READY = "READY";
+    private static final String LOADED = "loaded";
+
+    private final InMemoryConnectionConfigConnector source = new InMemoryConnectionConfigConnector();
+    private final InMemoryConnectionConfigConnector cache = new InMemoryConnectionConfigConnector();
+    private final ConnectionConfigConnector connectionConfigConnector = new TieredConnectionConfigConnector(
+            Arrays.asList(ConnectionConfigTier.builder().connector(cache).ttlMillis(60_000).build(),
+                    ConnectionConfigTier.builder().connector(source).build()));
+    private ConnectionConfig first;
+    private ConnectionConfig second;
+
+    @Before
+    public void init() {
+        first = TestHelper.getRandomConnectionConfig();
+        second = TestHelper.getRandomConnectionConfig();
+        source.addConnectionConfig(first);
+        source.addConnectionConfig(second);
+        source.addConnectionConfig(TestHelper.getRandomConnectionConfig());
+    }
+
+    @Test
+    public void shouldReportOutOfServiceUntilEveryConnectionIsLoaded() throws Exception {
+        // Given
+        ConnectionConfigPrewarmer prewarmer = new ConnectionConfigPrewarmer(connectionConfigConnector, true, READY,
+                "", 2, 60_000);
+        ConnectionConfigPrewarmHealthIndicator healthIndicator = new ConnectionConfigPrewarmHealthIndicator(prewarmer);
+        Health before = healthIndicator.health();
+
+        // When
+        prewarmer.onApplicationReady();
+        prewarmer.start().get(5, TimeUnit.SECONDS);
+
+        // Then
+        Health after = healthIndicator.health();
+        assertThat(before.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(after.getStatus()).isEqualTo(Status.UP);
+        assertThat(after.getDetails()).containsEntry("total", 3).containsEntry(LOADED, 3).containsEntry("failed", 0);
+        assertThat(cache.getConnectionConfigs()).containsExactlyInAnyOrderElementsOf(source.getConnectionConfigs());
+    }
+
+    @Test
+    public void shouldLoadConfiguredNamesAndCountFailures() throws Exception {
+        // Given
+        ConnectionConfigPrewarmer prewarmer = new ConnectionConfigPrewarmer(connectionConfigConnector, true,
+                "startup", first.getName() + ", " + second.getName() + ",missing", 4, 60_000);
+
+        // When
+        prewarmer.onApplicationReady();
+        ConnectionConfigPrewarmer.Status beforeRefresh = prewarmer.getStatus();
+        prewarmer.onContextRefreshed();
+        prewarmer.start().get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(beforeRefresh).isEqualTo(ConnectionConfigPrewarmer.Status.PENDING);
+        assertThat(prewarmer.isDone()).isTrue();
+        assertThat(prewarmer.getTotal()).isEqualTo(3);
+        assertThat(prewarmer.getLoaded()).isEqualTo(2);
+        assertThat(prewarmer.getFailed()).isEqualTo(1);
+        assertThat(cache.getConnectionConfigs()).containsExactlyInAnyOrder(first, second);
+    }
+
+    @Test
+    public void shouldGiveUpAfterFirstFailure() throws Exception {
+        // Given
+        ConnectionConfigConnector failing = mock(ConnectionConfigConnector.class);
+        when(failing.keepsLoadedConfigs()).thenReturn(true);
+        when(failing.withDeadline(any())).thenReturn(failing);
+        when(failing.getConnectionConfig(anyString())).thenThrow(new IllegalStateException("no principal"));
+        ConnectionConfigPrewarmer prewarmer = new ConnectionConfigPrewarmer(failing, true, READY, "a,b,c", 1, 60_000);
+
+        // When
+        prewarmer.start().get(5, TimeUnit.SECONDS);
+
+        // Then
+        verify(failing, times(1)).getConnectionConfig(anyString());
+        assertThat(prewarmer.getLoaded()).isEqualTo(0);
+        assertThat(prewarmer.getFailed()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldSkipWhenConnectorKeepsNothing() throws Exception {
+        // Given
+        ConnectionConfigPrewarmer prewarmer = new ConnectionConfigPrewarmer(source, true, READY, "", 4, 60_000);
+
+        // When
+        prewarmer.start().get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(prewarmer.getStatus()).isEqualTo(ConnectionConfigPrewarmer.Status.SKIPPED);
+        assertThat(new ConnectionConfigPrewarmHealthIndicator(prewarmer).health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    public void shouldReportUpWhenDisabled() {
+        // Given
+        ConnectionConfigPrewarmer prewarmer = new ConnectionConfigPrewarmer(connectionConfigConnector, false, READY,
+                "", 4, 60_000);
+
+        // When
+        prewarmer.onApplicationReady();
+        Health health = new ConnectionConfigPrewarmHealthIndicator(prewarmer).health();
+
+        // Then
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry(LOADED, 0);
+        assertThat(prewarmer.start().isDone()).isTrue();
+    }
+}
@@ -0,0 +1,108 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigYamlDecoder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.DumperOptions.FlowStyle;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.representer.Representer;
+
+/**
+ * Runs the fast path and SnakeYAML on the same documents: whenever the fast path accepts a document, both decoders
+ * must produce the same connection config.
+ */
+@RunWith(Parameterized.class)
+public class ConnectionConfigYamlDecoderTest {
+
+    private final ConnectionConfigYamlDecoder decoder = new ConnectionConfigYamlDecoder();
+
+    private final String description;
+    private final String yaml;
+    private final boolean fastPath;
+
+    public ConnectionConfigYamlDecoderTest(String description, String yaml, boolean fastPath) {
+        this.description = description;
+        this.yaml = yaml;
+        this.fastPath = fastPath;
+    }
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> documents() {
+        return Arrays.asList(new Object[][]{
+                {"dumped with block style", dump(FlowStyle.BLOCK), true},
+                {"dumped with auto style", dump(FlowStyle.AUTO), true},
+                {"dumped with flow style", dump(FlowStyle.FLOW), false},
+                {"block map", "name: foo\nproperties:\n  url: http://localhost:8080/path\n  user: admin\n", true},
+                {"flow map", "name: foo\nproperties: {url: 'http://host', user: admin}\n", true},
+                {"class tag", "!!" + ConnectionConfig.class.getName() + "\nname: foo\nproperties: {a: b}\n", true},
+                {"document start", "---\nname: foo\nproperties:\n    a: b\n", true},
+                {"comments", "# header\nname: foo # trailing\nproperties:\n  # inner\n  a: b # c\n\n", true},
+                {"crlf", "name: foo\r\nproperties:\r\n  a: b\r\n", true},
+                {"quoted scalars", "name: 'it''s'\nproperties:\n  'k: 1': \"v # 2\"\n  b: ''\n", true},
+                {"typed scalars stay strings", "name: 12\nproperties:\n  port: 5432\n  ssl: true\n  f: 1.5\n", true},
+                {"null values", "name:\nproperties:\n  a: ~\n  b: null\n  c:\n  d: NULL\n", true},
+                {"empty properties", "name: foo\nproperties:\n", true},
+                {"empty flow map", "name: foo\nproperties: {}\n", true},
+                {"no properties", "name: foo\n", true},
+                {"properties only", "properties:\n  a: b\n", true},
+                {"values with spaces and colons", "properties:\n  a: hello world\n  b: a:b\n  c: x#y\n", true},
+                {"utf-8", "name: café\nproperties:\n  città: 東京\n", true},
+                {"anchor and alias", "name: &n foo\nproperties:\n  a: *n\n", false},
+                {"literal block scalar", "name: foo\nproperties:\n  cert: |\n    line1\n    line2\n", false},
+                {"folded block scalar", "name: foo\nproperties:\n  text: >\n    a\n    b\n", false},
+                {"escape sequences", "name: foo\nproperties:\n  a: \"tab\\tnew\\nline\"\n", false},
+                {"multi-line plain scalar", "name: foo\nproperties:\n  a: first\n    second\n", false},
+                {"flow value with comma in quotes", "properties: {a: 'x, y', b: \"z\"}\n", true},
+                {"explicit string tag", "name: !!str foo\n", false},
+                {"inconsistent indentation", "properties:\n  a: b\n   c: d\n", false},
+                {"tab indentation", "properties:\n\ta: b\n", false},
+                {"empty document", "", false},
+                {"comment only", "# nothing here\n", false},
+        });
+    }
+
+    @Test
+    public void shouldMatchSnakeYaml() {
+        byte[] content = yaml.getBytes(StandardCharsets.UTF_8);
+
+        Throwable expectedError = catchThrowable(() -> decoder.decodeWithSnakeYaml(content));
+        if (expectedError == null) {
+            assertThat(decoder.decode(content)).as(description).isEqualTo(decoder.decodeWithSnakeYaml(content));
+        } else {
+            assertThat(catchThrowable(() -> decoder.decode(content))).as(description)
+                    .isExactlyInstanceOf(expectedError.getClass());
+        }
+    }
+
+    @Test
+    public void shouldUseFastPathOnlyForSupportedDocuments() {
+        byte[] content = yaml.getBytes(StandardCharsets.UTF_8);
+
+        ConnectionConfig fast = decoder.decodeFastPath(content);
+
+        if (fastPath) {
+            assertThat(fast).as(description).isEqualTo(decoder.decodeWithSnakeYaml(content));
+        } else {
+            assertThat(fast).as(description).isNull();
+        }
+    }
+
+    private static String dump(FlowStyle flowStyle) {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(flowStyle);
+        return new Yaml(new Constructor(ConnectionConfig.class), new Representer(), options)
+                .dump(TestHelper.getRandomConnectionConfig());
+    }
+}
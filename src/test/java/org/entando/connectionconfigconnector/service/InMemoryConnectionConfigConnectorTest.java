@@ -1,19 +1,42 @@
 package org.entando.connectionconfigconnector.service;
 
 import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.entry;
 
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 import org.entando.connectionconfigconnector.TestHelper;
 import org.entando.connectionconfigconnector.exception.ConnectionAlreadyExistsException;
+import org.entando.connectionconfigconnector.exception.ConnectionBatchAbortedException;
 import org.entando.connectionconfigconnector.exception.ConnectionNotFoundException;
 import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigBatchResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigEvent;
+import org.entando.connectionconfigconnector.model.ConnectionConfigEventType;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutation;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigPatch;
+import org.entando.connectionconfigconnector.model.ConnectionConfigQuery;
 import org.entando.connectionconfigconnector.service.impl.InMemoryConnectionConfigConnector;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+@SuppressWarnings("PMD.TooManyMethods")
 public class InMemoryConnectionConfigConnectorTest {
 
+    private static final String INVALID_NAME = "invalid";
+    private static final String SERVICE_TYPE = "serviceType";
+    private static final String POSTGRES = "postgres";
+    private static final int ATTEMPTS = 32;
+
     private ConnectionConfigConnector connectionConfigConnector;
 
     @Rule
@@ -24,6 +47,11 @@ public class InMemoryConnectionConfigConnectorTest {
         connectionConfigConnector = new InMemoryConnectionConfigConnector();
     }
 
+    @After
+    public void tearDown() {
+        ((InMemoryConnectionConfigConnector) connectionConfigConnector).stop();
+    }
+
     @Test
     public void shouldAddConnectionConfig() {
         ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
@@ -60,6 +88,129 @@ public class InMemoryConnectionConfigConnectorTest {
                 .containsExactlyInAnyOrder(config1, config2, config3);
     }
 
+    @Test
+    public void shouldGetConnectionConfigsByName() {
+        ConnectionConfig config1 = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig config2 = TestHelper.getRandomConnectionConfig();
+        connectionConfigConnector.addConnectionConfig(config1);
+        connectionConfigConnector.addConnectionConfig(config2);
+
+        ConnectionConfigBatchResult result = connectionConfigConnector
+                .getConnectionConfigs(Arrays.asList(config2.getName(), INVALID_NAME, config1.getName()));
+
+        assertThat(result.getConnectionConfigs()).containsExactly(entry(config2.getName(), config2),
+                entry(config1.getName(), config1));
+        assertThat(result.getNotFound()).containsExactly(INVALID_NAME);
+    }
+
+    @Test
+    public void shouldFindConnectionConfigsByNamePrefixAndProperty() {
+        ConnectionConfig postgresA = config("tenant-a-db", ImmutableMap.of(SERVICE_TYPE, POSTGRES, "port", "5432"));
+        ConnectionConfig mysqlA = config("tenant-a-cache", ImmutableMap.of(SERVICE_TYPE, "mysql"));
+        ConnectionConfig postgresB = config("tenant-b-db", ImmutableMap.of(SERVICE_TYPE, POSTGRES));
+        connectionConfigConnector.addConnectionConfig(postgresA);
+        connectionConfigConnector.addConnectionConfig(mysqlA);
+        connectionConfigConnector.addConnectionConfig(postgresB);
+
+        assertThat(connectionConfigConnector.findConnectionConfigs(
+                ConnectionConfigQuery.builder().namePrefix("tenant-a-").build()))
+                .containsExactly(mysqlA, postgresA);
+        assertThat(connectionConfigConnector.findConnectionConfigs(
+                ConnectionConfigQuery.builder().property(SERVICE_TYPE, POSTGRES).build()))
+                .containsExactly(postgresA, postgresB);
+        assertThat(connectionConfigConnector.findConnectionConfigs(
+                ConnectionConfigQuery.builder().namePrefix("tenant-b").property(SERVICE_TYPE, POSTGRES).build()))
+                .containsExactly(postgresB);
+        assertThat(connectionConfigConnector.findConnectionConfigs(
+                ConnectionConfigQuery.builder().property(SERVICE_TYPE, "oracle").build()))
+                .isEmpty();
+        assertThat(connectionConfigConnector.findConnectionConfigs(new ConnectionConfigQuery()))
+                .containsExactly(mysqlA, postgresA, postgresB);
+    }
+
+    @Test
+    public void shouldKeepQueryIndexesUpToDate() {
+        ConnectionConfig postgres = config("tenant-a-db", ImmutableMap.of(SERVICE_TYPE, POSTGRES));
+        ConnectionConfig removed = config("tenant-a-old", ImmutableMap.of(SERVICE_TYPE, POSTGRES));
+        connectionConfigConnector.addConnectionConfig(postgres);
+        connectionConfigConnector.addConnectionConfig(removed);
+        ConnectionConfig edited = config(postgres.getName(), ImmutableMap.of(SERVICE_TYPE, "mysql"));
+
+        connectionConfigConnector.editConnectionConfig(edited);
+        connectionConfigConnector.deleteConnectionConfig(removed.getName());
+
+        assertThat(connectionConfigConnector.findConnectionConfigs(
+                ConnectionConfigQuery.builder().property(SERVICE_TYPE, POSTGRES).build()))
+                .isEmpty();
+        assertThat(connectionConfigConnector.findConnectionConfigs(
+                ConnectionConfigQuery.builder().namePrefix("tenant-a-").property(SERVICE_TYPE, "mysql").build()))
+                .containsExactly(edited);
+    }
+
+    @Test
+    public void shouldPatchConnectionConfigProperties() {
+        ConnectionConfig connectionConfig = config("tenant-a-db", ImmutableMap.of("password", "old", "token", "t"));
+        connectionConfigConnector.addConnectionConfig(connectionConfig);
+
+        ConnectionConfig patched = connectionConfigConnector.patchConnectionConfig(ConnectionConfigPatch.builder()
+                .name(connectionConfig.getName())
+                .property("password", "new")
+                .property(SERVICE_TYPE, POSTGRES)
+                .removedProperty("token")
+                .build());
+
+        assertThat(patched.getProperties()).containsOnly(entry("password", "new"), entry(SERVICE_TYPE, POSTGRES));
+        assertThat(connectionConfigConnector.getConnectionConfig(connectionConfig.getName())).isEqualTo(patched);
+    }
+
+    @Test
+    public void shouldRejectPatchConditionedOnEntityTag() {
+        expectedException.expect(UnsupportedOperationException.class);
+
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        connectionConfigConnector.addConnectionConfig(connectionConfig);
+
+        connectionConfigConnector.patchConnectionConfig(ConnectionConfigPatch.builder()
+                .name(connectionConfig.getName())
+                .property(SERVICE_TYPE, POSTGRES)
+                .ifMatch("\"v1\"")
+                .build());
+    }
+
+    @Test
+    public void shouldApplyMutationsInOrder() {
+        ConnectionConfig deleted = TestHelper.getRandomConnectionConfig();
+        connectionConfigConnector.addConnectionConfig(deleted);
+        ConnectionConfig added = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig edited = TestHelper.getRandomConnectionConfig();
+        edited.setName(added.getName());
+
+        List<ConnectionConfigMutationResult> results = connectionConfigConnector.applyMutations(Arrays.asList(
+                ConnectionConfigMutation.add(added), ConnectionConfigMutation.edit(edited),
+                ConnectionConfigMutation.delete(deleted.getName())));
+
+        assertThat(results).allMatch(ConnectionConfigMutationResult::isSuccessful);
+        assertThat(results).extracting(ConnectionConfigMutationResult::getConnectionConfig)
+                .containsExactly(added, edited, null);
+        assertThat(connectionConfigConnector.getConnectionConfigs()).containsExactly(edited);
+    }
+
+    @Test
+    public void shouldApplyNothingWhenAMutationFails() {
+        ConnectionConfig existing = TestHelper.getRandomConnectionConfig();
+        connectionConfigConnector.addConnectionConfig(existing);
+        ConnectionConfig added = TestHelper.getRandomConnectionConfig();
+
+        List<ConnectionConfigMutationResult> results = connectionConfigConnector.applyMutations(Arrays.asList(
+                ConnectionConfigMutation.add(added), ConnectionConfigMutation.delete(existing.getName()),
+                ConnectionConfigMutation.edit(existing)));
+
+        assertThat(results).extracting(ConnectionConfigMutationResult::getError)
+                .hasOnlyElementsOfTypes(ConnectionBatchAbortedException.class, ConnectionNotFoundException.class);
+        assertThat(results.get(2).getError()).isInstanceOf(ConnectionNotFoundException.class);
+        assertThat(connectionConfigConnector.getConnectionConfigs()).containsExactly(existing);
+    }
+
     @Test
     public void shouldDeleteConnectionConfig() {
         ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
@@ -83,12 +234,31 @@ public class InMemoryConnectionConfigConnectorTest {
                 .isEqualTo(editedConnectionConfig);
     }
 
+    @Test
+    public void shouldNotifyListenersWithCoalescedEvents() throws Exception {
+        BlockingQueue<ConnectionConfigEvent> events = new LinkedBlockingQueue<>();
+        connectionConfigConnector.addConnectionConfigListener(events::add);
+        ConnectionConfig kept = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig edited = TestHelper.getRandomConnectionConfig();
+        edited.setName(kept.getName());
+        ConnectionConfig discarded = TestHelper.getRandomConnectionConfig();
+
+        connectionConfigConnector.addConnectionConfig(kept);
+        connectionConfigConnector.addConnectionConfig(discarded);
+        connectionConfigConnector.editConnectionConfig(edited);
+        connectionConfigConnector.deleteConnectionConfig(discarded.getName());
+
+        assertThat(events.poll(5, TimeUnit.SECONDS))
+                .isEqualTo(new ConnectionConfigEvent(ConnectionConfigEventType.ADDED, kept.getName(), edited));
+        assertThat(events.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
     @Test
     public void shouldThrowConnectionNotFoundExceptionWhenGetting() {
         expectedException.expect(ConnectionNotFoundException.class);
         expectedException.expectMessage(ConnectionNotFoundException.MESSAGE_KEY);
 
-        connectionConfigConnector.getConnectionConfig("invalid");
+        connectionConfigConnector.getConnectionConfig(INVALID_NAME);
     }
 
     @Test
@@ -105,7 +275,7 @@ public class InMemoryConnectionConfigConnectorTest {
         expectedException.expect(ConnectionNotFoundException.class);
         expectedException.expectMessage(ConnectionNotFoundException.MESSAGE_KEY);
 
-        connectionConfigConnector.deleteConnectionConfig("invalid");
+        connectionConfigConnector.deleteConnectionConfig(INVALID_NAME);
     }
 
     @Test
@@ -117,4 +287,79 @@ public class InMemoryConnectionConfigConnectorTest {
         connectionConfigConnector.addConnectionConfig(connectionConfig);
         connectionConfigConnector.addConnectionConfig(connectionConfig);
     }
+
+    @Test
+    public void shouldIncrementGenerationOnEveryWrite() {
+        InMemoryConnectionConfigConnector inMemory = (InMemoryConnectionConfigConnector) connectionConfigConnector;
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        long initial = inMemory.getGeneration();
+        inMemory.addConnectionConfig(connectionConfig);
+        List<ConnectionConfig> before = inMemory.getConnectionConfigs();
+
+        assertThat(inMemory.getGeneration()).isEqualTo(initial + 1);
+
+        inMemory.deleteConnectionConfig(connectionConfig.getName());
+
+        assertThat(before).containsExactly(connectionConfig);
+        assertThat(inMemory.getConnectionConfigs()).isEmpty();
+        assertThat(inMemory.getGeneration()).isEqualTo(initial + 2);
+    }
+
+    @Test
+    public void shouldReturnCopiesCallersMayModify() {
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        connectionConfigConnector.addConnectionConfig(connectionConfig);
+
+        connectionConfigConnector.getConnectionConfig(connectionConfig.getName()).getProperties().put(SERVICE_TYPE,
+                POSTGRES);
+        connectionConfigConnector.getConnectionConfigs().get(0).getProperties().clear();
+        connectionConfigConnector.findConnectionConfigs(ConnectionConfigQuery.builder().build()).clear();
+
+        assertThat(connectionConfigConnector.getConnectionConfig(connectionConfig.getName()))
+                .isEqualTo(connectionConfig);
+        assertThat(connectionConfigConnector.getConnectionConfigs()).containsExactly(connectionConfig);
+    }
+
+    @Test
+    public void shouldAddConcurrentDuplicatesOnlyOnce() {
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+
+        long added = IntStream.range(0, ATTEMPTS).parallel().filter(attempt -> {
+            try {
+                connectionConfigConnector.addConnectionConfig(connectionConfig);
+                return true;
+            } catch (ConnectionAlreadyExistsException e) {
+                return false;
+            }
+        }).count();
+
+        assertThat(added).isEqualTo(1);
+        assertThat(connectionConfigConnector.getConnectionConfigs()).containsExactly(connectionConfig);
+    }
+
+    @Test
+    public void shouldNotifyLastWriteOfConcurrentEdits() throws Exception {
+        // Given
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        connectionConfigConnector.addConnectionConfig(connectionConfig);
+        BlockingQueue<ConnectionConfigEvent> events = new LinkedBlockingQueue<>();
+        connectionConfigConnector.addConnectionConfigListener(events::add);
+
+        // When
+        IntStream.range(0, ATTEMPTS).parallel().forEach(attempt -> connectionConfigConnector.editConnectionConfig(
+                config(connectionConfig.getName(), ImmutableMap.of("attempt", String.valueOf(attempt)))));
+
+        // Then
+        ConnectionConfig stored = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+        ConnectionConfigEvent last = events.poll(5, TimeUnit.SECONDS);
+        for (ConnectionConfigEvent event = last; event != null; event = events.poll(500, TimeUnit.MILLISECONDS)) {
+            last = event;
+        }
+        assertThat(last).isEqualTo(
+                new ConnectionConfigEvent(ConnectionConfigEventType.UPDATED, connectionConfig.getName(), stored));
+    }
+
+    private static ConnectionConfig config(String name, ImmutableMap<String, String> properties) {
+        return ConnectionConfig.builder().name(name).properties(properties).build();
+    }
 }
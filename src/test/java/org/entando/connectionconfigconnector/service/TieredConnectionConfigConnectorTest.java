@@ -0,0 +1,264 @@
+package org.entando.connectionconfigconnector.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.entando.connectionconfigconnector.TestHelper;
+import org.entando.connectionconfigconnector.exception.InvalidStrictOperationException;
+import org.entando.connectionconfigconnector.model.ConnectionConfig;
+import org.entando.connectionconfigconnector.model.ConnectionConfigEvent;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutation;
+import org.entando.connectionconfigconnector.model.ConnectionConfigMutationResult;
+import org.entando.connectionconfigconnector.model.ConnectionConfigTierWritePolicy;
+import org.entando.connectionconfigconnector.service.impl.ConnectionConfigTier;
+import org.entando.connectionconfigconnector.service.impl.InMemoryConnectionConfigConnector;
+import org.entando.connectionconfigconnector.service.impl.TieredConnectionConfigConnector;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.Mockito;
+
+@SuppressWarnings("PMD.TooManyMethods")
+public class TieredConnectionConfigConnectorTest {
+
+    private static final long TTL_MILLIS = 60_000;
+
+    private final InMemoryConnectionConfigConnector cache = new InMemoryConnectionConfigConnector();
+    private final InMemoryConnectionConfigConnector files = new InMemoryConnectionConfigConnector();
+    private final LookupHookConnector sidecar = new LookupHookConnector();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void shouldPromoteConnectionConfigsFromSlowerTiers() {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = tiered(ConnectionConfigTierWritePolicy.NONE, true);
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        sidecar.addConnectionConfig(connectionConfig);
+
+        // When
+        ConnectionConfig fetched = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+        sidecar.deleteConnectionConfig(connectionConfig.getName());
+
+        // Then
+        assertThat(fetched).isEqualTo(connectionConfig);
+        assertThat(cache.getConnectionConfigs()).containsExactly(connectionConfig);
+        assertThat(connectionConfigConnector.getConnectionConfig(connectionConfig.getName()))
+                .isEqualTo(connectionConfig);
+    }
+
+    @Test
+    public void shouldListSourceTiersWithEarlierTiersWinning() {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = tiered(ConnectionConfigTierWritePolicy.NONE, true);
+        ConnectionConfig mounted = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig overridden = TestHelper.getRandomConnectionConfig();
+        overridden.setName(mounted.getName());
+        ConnectionConfig other = TestHelper.getRandomConnectionConfig();
+        files.addConnectionConfig(mounted);
+        sidecar.addConnectionConfig(overridden);
+        sidecar.addConnectionConfig(other);
+
+        // When
+        ConnectionConfig fetched = connectionConfigConnector.getConnectionConfig(mounted.getName());
+
+        // Then
+        assertThat(fetched).isEqualTo(mounted);
+        assertThat(connectionConfigConnector.getConnectionConfigs()).containsExactlyInAnyOrder(mounted, other);
+    }
+
+    @Test
+    public void shouldWriteToAuthoritativeTierAndThroughCaches() {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector =
+                tiered(ConnectionConfigTierWritePolicy.WRITE_THROUGH, true);
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+
+        // When
+        connectionConfigConnector.addConnectionConfig(connectionConfig);
+
+        // Then
+        assertThat(sidecar.getConnectionConfigs()).containsExactly(connectionConfig);
+        assertThat(files.getConnectionConfigs()).isEmpty();
+        assertThat(cache.getConnectionConfigs()).containsExactly(connectionConfig);
+
+        // When
+        connectionConfigConnector.deleteConnectionConfig(connectionConfig.getName());
+
+        // Then
+        assertThat(sidecar.getConnectionConfigs()).isEmpty();
+        assertThat(cache.getConnectionConfigs()).isEmpty();
+    }
+
+    @Test
+    public void shouldWriteThroughVersionStoredByAuthoritativeTier() {
+        // Given
+        ConnectionConfigConnector source = mock(ConnectionConfigConnector.class);
+        ConnectionConfigConnector connectionConfigConnector = new TieredConnectionConfigConnector(Arrays.asList(
+                ConnectionConfigTier.builder().connector(cache).ttlMillis(TTL_MILLIS)
+                        .writePolicy(ConnectionConfigTierWritePolicy.WRITE_THROUGH).build(),
+                ConnectionConfigTier.builder().connector(source).authoritative(true).build()));
+        ConnectionConfig edited = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig stored = TestHelper.getRandomConnectionConfig();
+        stored.setName(edited.getName());
+        ConnectionConfig added = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig storedAdded = TestHelper.getRandomConnectionConfig();
+        storedAdded.setName(added.getName());
+        ConnectionConfigMutation addition = ConnectionConfigMutation.add(added);
+        List<ConnectionConfigMutation> mutations = Collections.singletonList(addition);
+        when(source.editConnectionConfig(edited)).thenReturn(stored);
+        when(source.applyMutations(mutations)).thenReturn(Collections.singletonList(
+                new ConnectionConfigMutationResult(addition, storedAdded, null)));
+
+        // When
+        connectionConfigConnector.editConnectionConfig(edited);
+        connectionConfigConnector.applyMutations(mutations);
+
+        // Then
+        assertThat(cache.getConnectionConfigs()).containsExactlyInAnyOrder(stored, storedAdded);
+    }
+
+    @Test
+    public void shouldNotApplyReportedOwnWriteAgain() throws Exception {
+        // Given
+        InMemoryConnectionConfigConnector spiedCache = spy(new InMemoryConnectionConfigConnector());
+        ConnectionConfigConnector connectionConfigConnector = new TieredConnectionConfigConnector(Arrays.asList(
+                ConnectionConfigTier.builder().connector(spiedCache).ttlMillis(TTL_MILLIS)
+                        .writePolicy(ConnectionConfigTierWritePolicy.WRITE_THROUGH).build(),
+                ConnectionConfigTier.builder().connector(sidecar).authoritative(true).build()));
+        BlockingQueue<ConnectionConfigEvent> events = new LinkedBlockingQueue<>();
+        sidecar.addConnectionConfigListener(events::add);
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+
+        // When
+        connectionConfigConnector.addConnectionConfig(connectionConfig);
+
+        // Then
+        assertThat(events.poll(5, TimeUnit.SECONDS)).isNotNull();
+        verify(spiedCache).addConnectionConfig(connectionConfig);
+        verify(spiedCache, never()).editConnectionConfig(any());
+        assertThat(spiedCache.getConnectionConfigs()).containsExactly(connectionConfig);
+    }
+
+    @Test
+    public void shouldListenOnlyToSourcesReportingChanges() {
+        // Given
+        ConnectionConfigConnector silent = mock(ConnectionConfigConnector.class, Mockito.CALLS_REAL_METHODS);
+        ConnectionConfigConnector connectionConfigConnector = new TieredConnectionConfigConnector(Arrays.asList(
+                ConnectionConfigTier.builder().connector(cache).ttlMillis(TTL_MILLIS).build(),
+                ConnectionConfigTier.builder().connector(silent).build(),
+                ConnectionConfigTier.builder().connector(sidecar).build()));
+        ConnectionConfigListener listener = event -> { };
+
+        // When
+        connectionConfigConnector.addConnectionConfigListener(listener);
+        connectionConfigConnector.removeConnectionConfigListener(listener);
+
+        // Then
+        verify(silent).addConnectionConfigListener(any());
+        verify(silent, never()).removeConnectionConfigListener(any());
+    }
+
+    @Test
+    public void shouldRejectWritesWithoutAuthoritativeTier() {
+        expectedException.expect(InvalidStrictOperationException.class);
+
+        tiered(ConnectionConfigTierWritePolicy.INVALIDATE, false)
+                .addConnectionConfig(TestHelper.getRandomConnectionConfig());
+    }
+
+    @Test
+    public void shouldRejectWritePolicyOnSourceTier() {
+        expectedException.expect(IllegalArgumentException.class);
+
+        ConnectionConfigTier.builder().connector(files).writePolicy(ConnectionConfigTierWritePolicy.WRITE_THROUGH)
+                .build();
+    }
+
+    @Test
+    public void shouldNotStoreChangeShadowedByEarlierSource() throws Exception {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector =
+                tiered(ConnectionConfigTierWritePolicy.WRITE_THROUGH, false);
+        ConnectionConfig mounted = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig overridden = TestHelper.getRandomConnectionConfig();
+        overridden.setName(mounted.getName());
+        files.addConnectionConfig(mounted);
+        sidecar.addConnectionConfig(overridden);
+        connectionConfigConnector.getConnectionConfig(mounted.getName());
+        BlockingQueue<ConnectionConfigEvent> events = new LinkedBlockingQueue<>();
+        sidecar.addConnectionConfigListener(events::add);
+        ConnectionConfig changed = TestHelper.getRandomConnectionConfig();
+        changed.setName(mounted.getName());
+
+        // When
+        sidecar.editConnectionConfig(changed);
+
+        // Then
+        assertThat(events.poll(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(cache.getConnectionConfigs()).doesNotContain(changed);
+        assertThat(connectionConfigConnector.getConnectionConfig(mounted.getName())).isEqualTo(mounted);
+    }
+
+    @Test
+    public void shouldNotPromoteVersionChangedDuringLookup() {
+        // Given
+        ConnectionConfigConnector connectionConfigConnector = tiered(ConnectionConfigTierWritePolicy.INVALIDATE, true);
+        ConnectionConfig connectionConfig = TestHelper.getRandomConnectionConfig();
+        ConnectionConfig edited = TestHelper.getRandomConnectionConfig();
+        edited.setName(connectionConfig.getName());
+        sidecar.addConnectionConfig(connectionConfig);
+        sidecar.setOnLookup(configName -> connectionConfigConnector.editConnectionConfig(edited));
+
+        // When
+        ConnectionConfig fetched = connectionConfigConnector.getConnectionConfig(connectionConfig.getName());
+
+        // Then
+        assertThat(fetched).isEqualTo(connectionConfig);
+        assertThat(cache.getConnectionConfigs()).isEmpty();
+        assertThat(connectionConfigConnector.getConnectionConfig(connectionConfig.getName())).isEqualTo(edited);
+    }
+
+    private ConnectionConfigConnector tiered(ConnectionConfigTierWritePolicy cachePolicy,
+            boolean sidecarAuthoritative) {
+        return new TieredConnectionConfigConnector(Arrays.asList(
+                ConnectionConfigTier.builder().connector(cache).ttlMillis(TTL_MILLIS).writePolicy(cachePolicy).build(),
+                ConnectionConfigTier.builder().connector(files).build(),
+                ConnectionConfigTier.builder().connector(sidecar).authoritative(sidecarAuthoritative).build()));
+    }
+
+    /**
+     * In-memory connector running a hook once, right after a lookup has read its connection config, to change it
+     * before the caller gets the result.
+     */
+    private static class LookupHookConnector extends InMemoryConnectionConfigConnector {
+
+        private Consumer<String> onLookup = configName -> { };
+
+        public void setOnLookup(Consumer<String> onLookup) {
+            this.onLookup = onLookup;
+        }
+
+        @Override
+        public ConnectionConfig getConnectionConfig(String configName) {
+            ConnectionConfig connectionConfig = super.getConnectionConfig(configName);
+            Consumer<String> hook = onLookup;
+            onLookup = name -> { };
+            hook.accept(configName);
+            return connectionConfig;
+        }
+    }
+}